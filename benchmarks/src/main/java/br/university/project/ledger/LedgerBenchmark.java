@@ -0,0 +1,111 @@
+package br.university.project.ledger;
+
+import br.university.project.model.OperationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do {@link Ledger} com 8 threads fazendo transferências (débito numa conta, crédito em outra)
+ * entre {@code accounts} contas, contra uma referência com um lock global sobre um mapa de saldos.
+ * Com poucas contas as threads disputam os mesmos slots; com muitas, quase nunca.
+ * {@code sessionTransfer} passa pelo caminho das ferramentas ({@link LedgerSession}, uma por thread).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    @Param({"8", "4096"})
+    public int accounts;
+
+    private Ledger ledger;
+    private int[] ids;
+    private String[] numbers;
+    private GlobalLockLedger baseline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ledger = new Ledger(Long.MAX_VALUE / 4, 0);
+        baseline = new GlobalLockLedger(Long.MAX_VALUE / 4);
+        ids = new int[accounts];
+        numbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            numbers[i] = String.format("AC%05d", i);
+            ids[i] = ledger.account(numbers[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        LedgerSession session;
+
+        @Setup(Level.Iteration)
+        public void setup(LedgerBenchmark bench) {
+            // sessão nova a cada iteração para não medir o crescimento do log
+            session = bench.ledger.session("bench");
+        }
+    }
+
+    @Benchmark
+    public boolean casTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = ids[random.nextInt(accounts)];
+        int to = ids[random.nextInt(accounts)];
+        if (!ledger.debit(from, 100)) return false;
+        ledger.credit(to, 100);
+        return true;
+    }
+
+    @Benchmark
+    public boolean globalLockTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return baseline.transfer(numbers[random.nextInt(accounts)], numbers[random.nextInt(accounts)], 100);
+    }
+
+    @Benchmark
+    public boolean sessionTransfer(Session s) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return s.session.apply(OperationType.WITHDRAW, numbers[random.nextInt(accounts)], 1.0)
+                && s.session.apply(OperationType.DEPOSIT, numbers[random.nextInt(accounts)], 1.0);
+    }
+
+    /**
+     * Referência: saldos num mapa por número de conta, toda operação sob o mesmo lock.
+     */
+    static final class GlobalLockLedger {
+        private final long opening;
+        private final Map<String, Long> balances = new HashMap<>();
+
+        GlobalLockLedger(long opening) {
+            this.opening = opening;
+        }
+
+        synchronized boolean transfer(String from, String to, long cents) {
+            long balance = balances.getOrDefault(from, opening);
+            if (balance < cents) return false;
+            balances.put(from, balance - cents);
+            balances.merge(to, opening + cents, (b, ignored) -> b + cents);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package br.university.project.llm;
+
+import br.university.project.runner.ScenarioController;
+import br.university.project.tools.BankToolsA;
+import br.university.project.tools.BankToolsB;
+import br.university.project.util.CallLogger;
+import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.service.AiServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de preparar o assistente de uma execução: reconstrução completa versus cache + {@link ToolScope}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AssistantSetupBenchmark {
+
+    private static final String BASE_URL = "http://localhost:11434";
+
+    private final ChatClientCache cache = new ChatClientCache();
+    private final ChatClientCache.ModelKey key =
+            new ChatClientCache.ModelKey(BASE_URL, "mistral:latest", 0.0, Duration.ofSeconds(300));
+
+    @Benchmark
+    public BankingAssistant rebuildPerRun() {
+        ScenarioController controller = new ScenarioController(ScenarioController.Scenario.P1A);
+        CallLogger logger = new CallLogger();
+        OllamaChatModel model = OllamaChatModel.builder()
+                .baseUrl(BASE_URL)
+                .modelName("mistral:latest")
+                .timeout(Duration.ofSeconds(300))
+                .temperature(0.0)
+                .build();
+        return AiServices.builder(BankingAssistant.class)
+                .chatLanguageModel(model)
+                .tools(new BankToolsA(controller, logger, "bench"), new BankToolsB(controller, logger, "bench"))
+                .build();
+    }
+
+    @Benchmark
+    public BankingAssistant cachedWithScope() {
+        ScenarioController controller = new ScenarioController(ScenarioController.Scenario.P1A);
+        CallLogger logger = new CallLogger();
+        BankingAssistant assistant = cache.assistant(key, "CONF3");
+        ToolScope scope = ToolScope.open(new BankToolsA(controller, logger, "bench"),
+                new BankToolsB(controller, logger, "bench"));
+        try {
+            return assistant;
+        } finally {
+            scope.close();
+        }
+    }
+}
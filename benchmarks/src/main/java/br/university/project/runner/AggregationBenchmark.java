@@ -0,0 +1,68 @@
+package br.university.project.runner;
+
+import br.university.project.util.CallLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int runs;
+
+    private List<Map<String, Object>> runSummaries;
+    private List<RunOutcome> outcomes;
+
+    @Setup
+    public void setup() {
+        List<String> expected = MainRunner.defineAcceptanceCriteria().get("P2B");
+        runSummaries = new ArrayList<>(runs);
+        outcomes = new ArrayList<>(runs);
+        AcceptanceMatcher matcher = AcceptanceMatcher.compile(expected);
+        for (int i = 0; i < runs; i++) {
+            CallLogger logger = BenchmarkFixtures.replay("P2", "B", i % 2 == 0);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("toolsUsed", List.of(i % 2 == 0 ? "BankToolsB" : "BankToolsA"));
+            summary.put("events", logger.getEvents());
+            summary.put("evaluation", MainRunner.evaluateRun(logger.getEvents(), expected).toMap());
+            runSummaries.add(summary);
+            outcomes.add(new RunOutcome(MainRunner.evaluateRun(logger.getCallEvents(), matcher),
+                    List.of(i % 2 == 0 ? "BankToolsB" : "BankToolsA")));
+        }
+    }
+
+    @Benchmark
+    public MainRunner.AggregatedMetrics aggregateMetrics() {
+        return MainRunner.aggregateMetrics(runSummaries);
+    }
+
+    /**
+     * Caminho da varredura: cada execução concluída atualiza o acumulador da combinação.
+     */
+    @Benchmark
+    public MainRunner.AggregatedMetrics accumulate() {
+        CombinationAccumulator accumulator = new CombinationAccumulator();
+        for (RunOutcome outcome : outcomes) accumulator.add(outcome);
+        return accumulator.toMetrics();
+    }
+}
@@ -0,0 +1,80 @@
+package br.university.project.runner;
+
+import br.university.project.model.OperationType;
+import br.university.project.standin.ConversationScript;
+import br.university.project.tools.BankToolsA;
+import br.university.project.tools.BankToolsB;
+import br.university.project.util.CallLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gera eventos realistas executando o roteiro do stand-in contra as ferramentas reais,
+ * sem passar por HTTP nem pelo modelo.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static String prompt(String pKey) {
+        switch (pKey) {
+            case "P1":
+                return MainRunner.PROMPT1;
+            case "P2":
+                return MainRunner.PROMPT2;
+            case "P3":
+                return MainRunner.PROMPT3;
+            default:
+                throw new IllegalArgumentException("Unknown prompt: " + pKey);
+        }
+    }
+
+    /**
+     * Executa o roteiro do prompt no cenário informado e devolve o logger preenchido.
+     */
+    public static CallLogger replay(String pKey, String scenario, boolean useToolsB) {
+        ScenarioController controller = new ScenarioController(MainRunner.mapToScenario(pKey, scenario));
+        CallLogger logger = new CallLogger();
+        BankToolsA a = new BankToolsA(controller, logger, "bench");
+        BankToolsB b = new BankToolsB(controller, logger, "bench");
+
+        ConversationScript script = ConversationScript.forPrompt(prompt(pKey));
+        List<Boolean> results = new ArrayList<>();
+        ConversationScript.Step step = script.next(results);
+        while (step.isToolCall()) {
+            results.add(useToolsB
+                    ? b.executeOperation(step.getType(), step.getAccount(), step.getValue())
+                    : callA(a, step.getType(), step.getAccount(), step.getValue()));
+            step = script.next(results);
+        }
+        return logger;
+    }
+
+    /**
+     * Repete os eventos até atingir {@code count}, para parametrizar o volume observado.
+     */
+    public static <T> List<T> scaled(List<T> events, int count) {
+        List<T> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(events.get(i % events.size()));
+        return out;
+    }
+
+    static boolean callA(BankToolsA a, OperationType type, String account, double value) {
+        switch (type) {
+            case WITHDRAW:
+                return a.withdraw(account, value);
+            case DEPOSIT:
+                return a.deposit(account, value);
+            case TAX:
+                return a.taxes(account, value);
+            case RETURN:
+                return a.returnValue(account, value);
+            case PAYMENT:
+                return a.payment(account, value);
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + type);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.university.project.runner;
+
+import br.university.project.util.CallEvent;
+import br.university.project.util.CallLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+
+    @Param({"P1A", "P2A", "P3B"})
+    public String combination;
+
+    @Param({"7", "100", "1000"})
+    public int eventCount;
+
+    private List<Map<String, Object>> events;
+    private List<String> expected;
+    private List<CallEvent> callEvents;
+    private AcceptanceMatcher matcher;
+
+    @Setup
+    public void setup() {
+        String pKey = combination.substring(0, 2);
+        String scenario = combination.substring(2);
+        CallLogger logger = BenchmarkFixtures.replay(pKey, scenario, false);
+        events = BenchmarkFixtures.scaled(logger.getEvents(), eventCount);
+        callEvents = BenchmarkFixtures.scaled(logger.getCallEvents(), eventCount);
+        expected = MainRunner.defineAcceptanceCriteria().get(combination);
+        matcher = AcceptanceMatcher.compile(expected);
+    }
+
+    @Benchmark
+    public MainRunner.EvaluationResult evaluateRun() {
+        return MainRunner.evaluateRun(events, expected);
+    }
+
+    @Benchmark
+    public MainRunner.EvaluationResult evaluateTyped() {
+        return MainRunner.evaluateRun(callEvents, matcher);
+    }
+}
@@ -0,0 +1,56 @@
+package br.university.project.runner;
+
+import br.university.project.model.OperationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de {@link ScenarioController#simulate} com várias threads disputando o mesmo controller
+ * (chamadas de ferramenta paralelas de uma execução): os contadores de ocorrência são atômicos.
+ * A corretude sob contenção é verificada por {@code ScenarioStressTest} (em {@code src/test}, roda no {@code mvn test}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ScenarioContentionBenchmark {
+
+    @Param({"P2B", "P3B"})
+    public String scenario;
+
+    private ScenarioController controller;
+
+    @Setup
+    public void setup() {
+        controller = new ScenarioController(ScenarioController.Scenario.valueOf(scenario));
+    }
+
+    @Benchmark
+    @Group("parallelTools")
+    @GroupThreads(2)
+    public boolean withdrawFirstAccount() {
+        return controller.simulate(OperationType.WITHDRAW, scenario.equals("P2B") ? "BC3456A" : "AG7340H", 500.0);
+    }
+
+    @Benchmark
+    @Group("parallelTools")
+    @GroupThreads(2)
+    public boolean withdrawSecondAccount() {
+        return controller.simulate(OperationType.WITHDRAW, scenario.equals("P2B") ? "BC3456A" : "TG23986Q", 700.0);
+    }
+}
@@ -0,0 +1,47 @@
+package br.university.project.runner;
+
+import br.university.project.model.OperationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScenarioControllerBenchmark {
+
+    @Param({"P1B", "P2B", "P3B"})
+    public String scenario;
+
+    private ScenarioController controller;
+    private String account;
+
+    @Setup
+    public void setup() {
+        controller = new ScenarioController(ScenarioController.Scenario.valueOf(scenario));
+        account = scenario.startsWith("P2") ? "BC3456A" : scenario.startsWith("P3") ? "AG7340H" : "ND87632";
+    }
+
+    @Benchmark
+    public boolean simulateWithdraw() {
+        return controller.simulate(OperationType.WITHDRAW, account, 500.0);
+    }
+
+    @Benchmark
+    public boolean simulateDeposit() {
+        return controller.simulate(OperationType.DEPOSIT, account, 500.0);
+    }
+}
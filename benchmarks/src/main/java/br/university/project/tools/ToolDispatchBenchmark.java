@@ -0,0 +1,86 @@
+package br.university.project.tools;
+
+import br.university.project.llm.ToolCatalog;
+import br.university.project.model.OperationType;
+import br.university.project.runner.ScenarioController;
+import br.university.project.util.CallLogger;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.service.tool.ToolExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Despacho de ferramentas direto e pelo caminho usado pelo AiServices (JSON de argumentos →
+ * {@code DefaultToolExecutor} → método anotado).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ToolDispatchBenchmark {
+
+    private BankToolsA toolsA;
+    private BankToolsB toolsB;
+    private ToolExecutor withdrawExecutor;
+    private ToolExecutor executeOperationExecutor;
+    private ToolExecutionRequest withdrawRequest;
+    private ToolExecutionRequest executeOperationRequest;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        // logger novo a cada iteração para não medir o crescimento da lista de eventos
+        ScenarioController controller = new ScenarioController(ScenarioController.Scenario.P2A);
+        CallLogger logger = new CallLogger();
+        toolsA = new BankToolsA(controller, logger, "bench");
+        toolsB = new BankToolsB(controller, logger, "bench");
+
+        Map<ToolSpecification, ToolExecutor> executors = ToolCatalog.forConfig("CONF3").bind(toolsA, toolsB);
+        for (Map.Entry<ToolSpecification, ToolExecutor> e : executors.entrySet()) {
+            if (e.getKey().name().equals("withdraw")) withdrawExecutor = e.getValue();
+            if (e.getKey().name().equals("executeOperation")) executeOperationExecutor = e.getValue();
+        }
+        withdrawRequest = ToolExecutionRequest.builder()
+                .name("withdraw")
+                .arguments("{\"arg0\":\"BC3456A\",\"arg1\":500.0}")
+                .build();
+        executeOperationRequest = ToolExecutionRequest.builder()
+                .name("executeOperation")
+                .arguments("{\"arg0\":\"WITHDRAW\",\"arg1\":\"BC3456A\",\"arg2\":500.0}")
+                .build();
+    }
+
+    @Benchmark
+    public boolean directBankToolsA() {
+        return toolsA.withdraw("BC3456A", 500.0);
+    }
+
+    @Benchmark
+    public boolean directBankToolsB() {
+        return toolsB.executeOperation(OperationType.WITHDRAW, "BC3456A", 500.0);
+    }
+
+    @Benchmark
+    public String executorBankToolsA() {
+        return withdrawExecutor.execute(withdrawRequest, null);
+    }
+
+    @Benchmark
+    public String executorBankToolsB() {
+        return executeOperationExecutor.execute(executeOperationRequest, null);
+    }
+}
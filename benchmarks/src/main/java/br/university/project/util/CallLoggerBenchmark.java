@@ -0,0 +1,84 @@
+package br.university.project.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CallLoggerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int eventCount;
+
+    private CallLogger filled;
+    private File out;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        filled = new CallLogger();
+        fill(filled, eventCount);
+        out = File.createTempFile("calllogger-bench", ".json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        out.delete();
+    }
+
+    /**
+     * Custo de registrar {@code eventCount} eventos num logger novo (uma execução típica tem 3–8).
+     */
+    @Benchmark
+    public CallLogger log() {
+        CallLogger logger = new CallLogger();
+        fill(logger, eventCount);
+        return logger;
+    }
+
+    /**
+     * Caminho antigo, com mapa de parâmetros montado pelo chamador.
+     */
+    @Benchmark
+    public CallLogger logMapParams() {
+        CallLogger logger = new CallLogger();
+        for (int i = 0; i < eventCount; i++) {
+            logger.log("bench", "BankToolsA", "withdraw", Map.of("account", "BC3456A", "value", 500.0), i % 4 != 3);
+        }
+        return logger;
+    }
+
+    @Benchmark
+    public long dumpJson() throws IOException {
+        filled.dumpJson(out);
+        return out.length();
+    }
+
+    private static final int TOOL_ID = SymbolTable.intern("BankToolsA");
+    private static final int WITHDRAW_ID = SymbolTable.intern("withdraw");
+
+    static void fill(CallLogger logger, int count) {
+        for (int i = 0; i < count; i++) {
+            logger.log("bench", TOOL_ID, WITHDRAW_ID, null, "BC3456A", 500.0, i % 4 != 3);
+        }
+    }
+}
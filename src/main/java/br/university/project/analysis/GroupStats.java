@@ -0,0 +1,225 @@
+package br.university.project.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Totais de um grupo (por exemplo configuração × prompt × cenário). Cada tarefa do analisador
+ * monta os seus e eles são combinados com {@link #merge(GroupStats)}, então o custo de memória é
+ * fixo por grupo: contadores, momentos (Welford) em vez de amostras e no máximo
+ * {@link #EXAMPLES} exemplos de execuções incorretas e com erro.
+ */
+final class GroupStats {
+
+    static final int EXAMPLES = 2;
+
+    /** t de Student bicaudal a 95% para 1..30 graus de liberdade */
+    private static final double[] T95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+    private static final double Z95 = 1.959964;
+
+    final Map<String, String> group;
+    int totalRuns;
+    int correctRuns;
+    int cancelledRuns;
+    /** com o texto interrompido em streaming: a corretude delas pode ter mudado */
+    int earlyStoppedRuns;
+    int errorRuns;
+    boolean consistent = true;
+    /** se {@link #firstOps} já foi fixado por alguma execução */
+    private boolean sawOps;
+    private long firstOps;
+    final Moments accuracy = new Moments();
+    final Moments runMillis = new Moments();
+    final Map<String, Integer> toolUsage = new HashMap<>();
+    final List<RunRecord> errorExamples = new ArrayList<>(EXAMPLES);
+    final List<RunRecord> incorrectExamples = new ArrayList<>(EXAMPLES);
+
+    GroupStats(Map<String, String> group) {
+        this.group = group;
+    }
+
+    void add(RunRecord r) {
+        totalRuns++;
+        if (r.correct) correctRuns++;
+        if (r.cancelled) cancelledRuns++;
+        if (r.earlyStopped) earlyStoppedRuns++;
+        if (r.error != null) {
+            errorRuns++;
+            if (errorExamples.size() < EXAMPLES) errorExamples.add(r);
+        } else if (!r.correct && incorrectExamples.size() < EXAMPLES) {
+            incorrectExamples.add(r);
+        }
+        if (!sawOps) {
+            sawOps = true;
+            firstOps = r.opsHash;
+        } else if (firstOps != r.opsHash) {
+            consistent = false;
+        }
+        if (!Double.isNaN(r.sequenceAccuracy)) accuracy.add(r.sequenceAccuracy);
+        if (!Double.isNaN(r.runMillis)) runMillis.add(r.runMillis);
+        Set<String> tools = new LinkedHashSet<>(r.toolsUsed);
+        if (tools.isEmpty()) tools.add("NO_TOOLS_USED");
+        for (String t : tools) toolUsage.merge(t, 1, Integer::sum);
+    }
+
+    void merge(GroupStats other) {
+        totalRuns += other.totalRuns;
+        correctRuns += other.correctRuns;
+        cancelledRuns += other.cancelledRuns;
+        earlyStoppedRuns += other.earlyStoppedRuns;
+        errorRuns += other.errorRuns;
+        consistent &= other.consistent;
+        if (other.sawOps) {
+            if (!sawOps) {
+                sawOps = true;
+                firstOps = other.firstOps;
+            } else if (firstOps != other.firstOps) {
+                consistent = false;
+            }
+        }
+        accuracy.merge(other.accuracy);
+        runMillis.merge(other.runMillis);
+        other.toolUsage.forEach((t, n) -> toolUsage.merge(t, n, Integer::sum));
+        for (RunRecord r : other.errorExamples) {
+            if (errorExamples.size() < EXAMPLES) errorExamples.add(r);
+        }
+        for (RunRecord r : other.incorrectExamples) {
+            if (incorrectExamples.size() < EXAMPLES) incorrectExamples.add(r);
+        }
+    }
+
+    /**
+     * Dados de uma combinação já agregada ({@code aggregated-*.json}): a consistência vem pronta.
+     */
+    void markConsistent(boolean consistent) {
+        this.consistent &= consistent;
+    }
+
+    double correctnessRatio() {
+        return totalRuns == 0 ? 0.0 : (double) correctRuns / totalRuns;
+    }
+
+    /**
+     * Intervalo de Wilson a 95% para a taxa de acerto (não degenera em 0/n nem n/n).
+     */
+    double[] correctnessInterval() {
+        if (totalRuns == 0) return new double[]{0.0, 1.0};
+        double n = totalRuns;
+        double p = correctRuns / n;
+        double z2 = Z95 * Z95;
+        double center = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double half = Z95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+        return new double[]{Math.max(0.0, center - half), Math.min(1.0, center + half)};
+    }
+
+    /**
+     * Ferramentas em ordem de uso, como {@code "a/b"}.
+     */
+    String approach() {
+        List<Map.Entry<String, Integer>> tools = new ArrayList<>(toolUsage.entrySet());
+        tools.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> t : tools) {
+            if (sb.length() > 0) sb.append('/');
+            sb.append(t.getKey());
+        }
+        return sb.toString();
+    }
+
+    boolean isProblematic() {
+        return correctRuns < totalRuns || !consistent || errorRuns > 0 || earlyStoppedRuns > 0;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("group", group);
+        m.put("totalRuns", totalRuns);
+        m.put("correctRuns", correctRuns);
+        m.put("cancelledRuns", cancelledRuns);
+        m.put("errorRuns", errorRuns);
+        m.put("correctnessRatio", correctnessRatio());
+        double[] ci = correctnessInterval();
+        m.put("correctnessCi95", List.of(ci[0], ci[1]));
+        m.put("earlyStoppedRuns", earlyStoppedRuns);
+        m.put("consistent", consistent);
+        m.put("toolUsage", new TreeMap<>(toolUsage));
+        m.put("sequenceAccuracy", accuracy.toMap());
+        m.put("runMillis", runMillis.toMap());
+        return m;
+    }
+
+    static double t95(long degreesOfFreedom) {
+        if (degreesOfFreedom <= 0) return Double.NaN;
+        if (degreesOfFreedom <= T95.length) return T95[(int) degreesOfFreedom - 1];
+        // expansão de Cornish-Fisher em torno da normal
+        double z = Z95;
+        double df = degreesOfFreedom;
+        return z + (z * z * z + z) / (4 * df) + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96 * df * df);
+    }
+
+    /**
+     * Média e soma dos quadrados dos desvios (Welford), combináveis pela fórmula de Chan.
+     */
+    static final class Moments {
+        long n;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            n++;
+            double delta = x - mean;
+            mean += delta / n;
+            m2 += delta * (x - mean);
+        }
+
+        void add(long count, double otherMean, double otherM2) {
+            if (count == 0) return;
+            if (n == 0) {
+                n = count;
+                mean = otherMean;
+                m2 = otherM2;
+                return;
+            }
+            long total = n + count;
+            double delta = otherMean - mean;
+            mean += delta * count / total;
+            m2 += otherM2 + delta * delta * ((double) n * count / total);
+            n = total;
+        }
+
+        void merge(Moments other) {
+            add(other.n, other.mean, other.m2);
+        }
+
+        double variance() {
+            return n < 2 ? 0.0 : m2 / (n - 1);
+        }
+
+        /**
+         * Meia largura do intervalo de confiança a 95% da média (t de Student).
+         */
+        double ci95() {
+            return n < 2 ? Double.NaN : t95(n - 1) * Math.sqrt(variance() / n);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", n);
+            if (n == 0) return m;
+            m.put("mean", mean);
+            m.put("variance", variance());
+            double half = ci95();
+            m.put("ci95", Double.isNaN(half) ? null : List.of(mean - half, mean + half));
+            return m;
+        }
+    }
+}
@@ -1,52 +1,633 @@
 package br.university.project.analysis;
 
+import br.university.project.store.ColumnarResultsReader;
+import br.university.project.store.ResultsManifest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+/**
+ * Agrega os resultados de uma ou mais varreduras por grupo (configuração, prompt, cenário, modelo,
+ * varredura) com intervalos de confiança, e gera {@code results/final-experiment-report.json} e
+ * {@code results/relatorio_completo.txt}.
+ * <p>
+ * Fontes, em ordem de preferência com {@code --source auto}: as linhas de resumo apontadas pelo
+ * {@link ResultsManifest}, se houver índice (só as execuções que passam nos filtros são lidas);
+ * colunas mapeadas dos arquivos {@code .cols}; resumos por execução ({@code sweep-*.jsonl} e os
+ * antigos {@code summary-*.json}) lidos por inteiro; e os {@code aggregated-*.json} de cada
+ * combinação, que não têm modelo nem tempos. JSON é lido com o parser de streaming do Jackson. Os
+ * arquivos (trechos de {@value #CHUNK_BYTES} bytes dos JSONL grandes, lotes de
+ * {@value #ENTRIES_PER_PART} execuções indexadas) são divididos entre os núcleos num
+ * {@link ForkJoinPool}; cada tarefa devolve os seus grupos e eles são combinados na volta.
+ * <pre>
+ * MetricsAnalyzer [sweepId] [--source auto|cols|summaries|aggregated]
+ *                 [--group-by config,prompt,scenario,model,sweep] [--filter dim=valor,...]
+ *                 [--results dir] [--parallelism n] [--no-manifest]
+ * </pre>
+ */
 public class MetricsAnalyzer {
 
+    /** nome do método equivalente a cada OperationType, como na avaliação do MainRunner */
+    private static final String[] OPERATION_METHODS = {"withdraw", "deposit", "taxes", "returnValue", "payment"};
+
+    private static final List<String> DEFAULT_GROUP_BY = List.of("config", "prompt", "scenario");
+    private static final List<String> DIMENSIONS = List.of("config", "prompt", "scenario", "model", "sweep");
+    private static final Map<String, String> DIMENSION_LABELS = Map.of(
+            "config", "Config", "prompt", "Prompt", "scenario", "Cenário", "model", "Modelo", "sweep", "Varredura");
+
+    static final int CHUNK_BYTES = 8 << 20;
+    /** execuções indexadas por tarefa */
+    static final int ENTRIES_PER_PART = 1024;
+
+    enum Source {
+        COLS, SUMMARIES, AGGREGATED
+    }
+
     public static void main(String[] args) throws IOException {
         File resultsDir = new File("results");
-        Map<String, Object> finalReport = new LinkedHashMap<>();
+        Map<String, String> filters = new LinkedHashMap<>();
+        boolean useManifest = true;
+        String source = "auto";
+        List<String> groupBy = DEFAULT_GROUP_BY;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--source":
+                    source = args[++i];
+                    break;
+                case "--group-by":
+                    groupBy = parseGroupBy(args[++i]);
+                    break;
+                case "--results":
+                    resultsDir = new File(args[++i]);
+                    break;
+                case "--parallelism":
+                    parallelism = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--filter":
+                    filters.putAll(parseFilters(args[++i]));
+                    break;
+                case "--no-manifest":
+                    useManifest = false;
+                    break;
+                default:
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    filters.put("sweep", args[i]);
+                    break;
+            }
+        }
+        if (!resultsDir.isDirectory()) {
+            System.out.println("❌ Diretório '" + resultsDir + "' não encontrado!");
+            return;
+        }
 
-        // Coletar todos os arquivos agregados
-        for (File file : resultsDir.listFiles((dir, name) -> name.startsWith("aggregated-") && name.endsWith(".json"))) {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<?, ?> data = mapper.readValue(file, Map.class);
+        Source chosen = chooseSource(resultsDir, source);
+        if (chosen == null) {
+            System.out.println("❌ Nenhum resultado em " + resultsDir.getAbsolutePath());
+            return;
+        }
+        if (chosen == Source.AGGREGATED) {
+            for (String dim : List.of("sweep", "model")) {
+                String ignored = filters.remove(dim);
+                if (ignored != null) {
+                    System.out.println("⚠️ aggregated-*.json não registram " + dim + "; filtro " + ignored + " ignorado");
+                }
+            }
+        }
 
-            String filename = file.getName().replace("aggregated-", "").replace(".json", "");
-            finalReport.put(filename, data);
+        long start = System.nanoTime();
+        List<File> files = List.of();
+        List<ResultsManifest.Entry> indexed = null;
+        if (chosen == Source.SUMMARIES && useManifest && ResultsManifest.exists(resultsDir)) {
+            List<ResultsManifest.Entry> all = ResultsManifest.read(resultsDir);
+            indexed = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (ResultsManifest.Entry e : all) {
+                // uma execução reemitida ao retomar aparece uma vez só
+                if (matches(e, filters) && seen.add(e.runId)) indexed.add(e);
+            }
+            System.out.printf("🔍 Analisando %d de %d execuções de %s em %d núcleo(s), agrupando por %s%n",
+                    indexed.size(), all.size(), ResultsManifest.FILE_NAME, parallelism, String.join(",", groupBy));
+        } else {
+            files = files(resultsDir, chosen);
+            System.out.printf("🔍 Analisando %d arquivo(s) (%s) em %d núcleo(s), agrupando por %s%n",
+                    files.size(), chosen.name().toLowerCase(Locale.ROOT), parallelism, String.join(",", groupBy));
         }
+        if (!filters.isEmpty()) System.out.println("   filtros: " + filters);
 
-        // Gerar relatório final
-        File finalReportFile = new File("results/final-experiment-report.json");
+        Map<String, GroupStats> stats = analyze(chosen, resultsDir, files, indexed, groupBy, filters, parallelism);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Map<String, Object> finalReport = new LinkedHashMap<>();
+        for (Map.Entry<String, GroupStats> e : stats.entrySet()) {
+            finalReport.put(e.getKey(), e.getValue().toMap());
+        }
+        File finalReportFile = new File(resultsDir, "final-experiment-report.json");
         try (FileWriter fw = new FileWriter(finalReportFile)) {
             new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(fw, finalReport);
         }
 
+        String report = textReport(stats, groupBy, chosen);
+        System.out.print(report);
+        File textFile = new File(resultsDir, "relatorio_completo.txt");
+        Files.writeString(textFile.toPath(), report, StandardCharsets.UTF_8);
+
+        int runs = 0;
+        for (GroupStats s : stats.values()) runs += s.totalRuns;
+        System.out.printf("%n⏱️ %d execuções em %d grupos, %d ms%n", runs, stats.size(), millis);
         System.out.println("Final report generated: " + finalReportFile.getAbsolutePath());
-        printSummary(finalReport);
+        System.out.println("💾 Relatório completo salvo em: " + textFile.getPath());
+    }
+
+    static List<String> parseGroupBy(String value) {
+        List<String> dims = new ArrayList<>();
+        for (String d : value.split(",")) {
+            String dim = d.trim().toLowerCase(Locale.ROOT);
+            if (dim.isEmpty()) continue;
+            if (!DIMENSIONS.contains(dim)) {
+                throw new IllegalArgumentException("Unknown grouping dimension: " + dim + " (expected " + DIMENSIONS + ")");
+            }
+            if (!dims.contains(dim)) dims.add(dim);
+        }
+        if (dims.isEmpty()) throw new IllegalArgumentException("--group-by needs at least one dimension");
+        return dims;
+    }
+
+    /**
+     * {@code dim=valor[,dim=valor...]}, com as dimensões de {@code --group-by}.
+     */
+    static Map<String, String> parseFilters(String value) {
+        Map<String, String> filters = new LinkedHashMap<>();
+        for (String f : value.split(",")) {
+            if (f.isBlank()) continue;
+            int eq = f.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Filter must be dim=value: " + f);
+            String dim = f.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+            if (!DIMENSIONS.contains(dim)) {
+                throw new IllegalArgumentException("Unknown filter dimension: " + dim + " (expected " + DIMENSIONS + ")");
+            }
+            filters.put(dim, f.substring(eq + 1).trim());
+        }
+        return filters;
+    }
+
+    private static Source chooseSource(File resultsDir, String source) {
+        switch (source.toLowerCase(Locale.ROOT)) {
+            case "auto":
+                if (ResultsManifest.exists(resultsDir)) return Source.SUMMARIES;
+                for (Source s : Source.values()) {
+                    if (!files(resultsDir, s).isEmpty()) return s;
+                }
+                return null;
+            case "cols":
+                return Source.COLS;
+            case "summaries":
+                return Source.SUMMARIES;
+            case "aggregated":
+                return Source.AGGREGATED;
+            default:
+                throw new IllegalArgumentException("Unknown source: " + source);
+        }
+    }
+
+    private static List<File> files(File resultsDir, Source source) {
+        File[] found;
+        switch (source) {
+            case COLS:
+                found = resultsDir.listFiles((dir, name) -> name.endsWith(".cols"));
+                break;
+            case SUMMARIES:
+                found = resultsDir.listFiles((dir, name) -> (name.startsWith("sweep-") && name.endsWith(".jsonl"))
+                        || (name.startsWith("summary-") && name.endsWith(".json")));
+                break;
+            default:
+                found = resultsDir.listFiles((dir, name) -> name.startsWith("aggregated-") && name.endsWith(".json"));
+                break;
+        }
+        if (found == null) return List.of();
+        Arrays.sort(found, Comparator.comparing(File::getName));
+        return Arrays.asList(found);
+    }
+
+    /**
+     * Divide os arquivos (e os JSONL grandes em trechos), ou as execuções selecionadas no índice,
+     * entre {@code parallelism} núcleos.
+     *
+     * @param indexed execuções do {@link ResultsManifest} já filtradas, ou {@code null} para ler
+     *                {@code files} inteiros
+     */
+    static Map<String, GroupStats> analyze(Source source, File resultsDir, List<File> files,
+                                           List<ResultsManifest.Entry> indexed, List<String> groupBy,
+                                           Map<String, String> filters, int parallelism) throws IOException {
+        List<Part> parts = new ArrayList<>();
+        if (indexed != null) {
+            Map<String, List<ResultsManifest.Entry>> byFile = new LinkedHashMap<>();
+            for (ResultsManifest.Entry e : indexed) byFile.computeIfAbsent(e.file, f -> new ArrayList<>()).add(e);
+            for (Map.Entry<String, List<ResultsManifest.Entry>> f : byFile.entrySet()) {
+                List<ResultsManifest.Entry> entries = f.getValue();
+                for (int i = 0; i < entries.size(); i += ENTRIES_PER_PART) {
+                    parts.add(new Part(new File(resultsDir, f.getKey()),
+                            entries.subList(i, Math.min(entries.size(), i + ENTRIES_PER_PART))));
+                }
+            }
+        } else {
+            for (File f : files) {
+                long length = f.length();
+                if (source == Source.SUMMARIES && f.getName().endsWith(".jsonl") && length > CHUNK_BYTES) {
+                    for (long pos = 0; pos < length; pos += CHUNK_BYTES) {
+                        parts.add(new Part(f, pos, Math.min(length, pos + CHUNK_BYTES)));
+                    }
+                } else {
+                    parts.add(new Part(f, 0, length));
+                }
+            }
+        }
+        if (parts.isEmpty()) return new TreeMap<>();
+
+        Job job = new Job(source, groupBy, filters);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Map<String, GroupStats> stats = new TreeMap<>(pool.invoke(new AnalyzeTask(job, parts, 0, parts.size())));
+            if (job.stale.get() > 0) {
+                System.out.printf("⚠️ %d entradas de %s apontam para além do fim do arquivo e foram ignoradas;"
+                        + " reconstrua com ResultsManifest%n", job.stale.get(), ResultsManifest.FILE_NAME);
+            }
+            return stats;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Se a entrada do índice passa nos filtros que o índice conhece (o modelo só aparece no resumo).
+     */
+    static boolean matches(ResultsManifest.Entry e, Map<String, String> filters) {
+        for (Map.Entry<String, String> f : filters.entrySet()) {
+            String value;
+            switch (f.getKey()) {
+                case "sweep":
+                    value = e.sweepId;
+                    break;
+                case "config":
+                    value = e.config;
+                    break;
+                case "prompt":
+                    value = e.prompt;
+                    break;
+                case "scenario":
+                    value = e.scenario;
+                    break;
+                default:
+                    continue;
+            }
+            if (!f.getValue().equals(value)) return false;
+        }
+        return true;
+    }
+
+    /** um arquivo, o trecho {@code [start, end)} de um JSONL ou execuções indexadas de um arquivo */
+    private static final class Part {
+        final File file;
+        final long start;
+        final long end;
+        final List<ResultsManifest.Entry> entries;
+
+        Part(File file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.entries = null;
+        }
+
+        Part(File file, List<ResultsManifest.Entry> entries) {
+            this.file = file;
+            this.start = 0;
+            this.end = file.length();
+            this.entries = entries;
+        }
+    }
+
+    /** o que todas as tarefas de uma análise compartilham */
+    private static final class Job {
+        final Source source;
+        final List<String> groupBy;
+        final Map<String, String> filters;
+        final AtomicInteger stale = new AtomicInteger();
+        /** {@code runId} já lidos dos {@code .cols}; a mesma execução pode estar em mais de um arquivo */
+        final Set<String> columnarRuns = ConcurrentHashMap.newKeySet();
+
+        Job(Source source, List<String> groupBy, Map<String, String> filters) {
+            this.source = source;
+            this.groupBy = groupBy;
+            this.filters = filters;
+        }
     }
 
-    private static void printSummary(Map<String, Object> finalReport) {
-        System.out.println("\n=== EXPERIMENT SUMMARY ===");
+    private static final class AnalyzeTask extends RecursiveTask<Map<String, GroupStats>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Job job;
+        private final List<Part> parts;
+        private final int from;
+        private final int to;
+
+        AnalyzeTask(Job job, List<Part> parts, int from, int to) {
+            this.job = job;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, GroupStats> compute() {
+            if (to - from == 1) {
+                try {
+                    return analyzePart(parts.get(from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read " + parts.get(from).file, e);
+                }
+            }
+            int mid = (from + to) >>> 1;
+            AnalyzeTask left = new AnalyzeTask(job, parts, from, mid);
+            left.fork();
+            Map<String, GroupStats> right = new AnalyzeTask(job, parts, mid, to).compute();
+            Map<String, GroupStats> merged = left.join();
+            right.forEach((key, s) -> merged.merge(key, s, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+            return merged;
+        }
+
+        private Map<String, GroupStats> analyzePart(Part part) throws IOException {
+            Map<String, GroupStats> stats = new HashMap<>();
+            Consumer<RunRecord> sink = r -> {
+                if (r.matches(job.filters)) add(stats, r);
+            };
+            if (part.entries != null) {
+                readIndexed(part, sink);
+                return stats;
+            }
+            switch (job.source) {
+                case COLS:
+                    readColumnar(part.file, job.filters.get("sweep"), job.columnarRuns, sink);
+                    break;
+                case SUMMARIES:
+                    if (part.file.getName().endsWith(".jsonl")) {
+                        byte[] lines = readLines(part);
+                        SummaryParser.readJsonl(lines, 0, lines.length, sink);
+                    } else {
+                        sink.accept(SummaryParser.readSummary(part.file));
+                    }
+                    break;
+                default: {
+                    String[] names = part.file.getName().replace("aggregated-", "").replace(".json", "").split("-", 3);
+                    RunRecord combination = new RunRecord();
+                    combination.config = names.length > 0 ? names[0] : null;
+                    combination.prompt = names.length > 1 ? names[1] : null;
+                    combination.scenario = names.length > 2 ? names[2] : null;
+                    if (combination.matches(job.filters)) {
+                        SummaryParser.readAggregated(part.file, group(stats, combination));
+                    }
+                    break;
+                }
+            }
+            return stats;
+        }
+
+        /**
+         * Lê só as linhas de resumo apontadas pelo índice, sem passar pelos eventos.
+         */
+        private void readIndexed(Part part, Consumer<RunRecord> sink) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(part.file, "r"); FileChannel ch = raf.getChannel()) {
+                long size = ch.size();
+                ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+                for (ResultsManifest.Entry e : part.entries) {
+                    long length = e.summaryLength();
+                    if (e.summaryOffset < 0 || e.summaryOffset + length > size || length > Integer.MAX_VALUE) {
+                        job.stale.incrementAndGet();
+                        continue;
+                    }
+                    if (buf.capacity() < length) buf = ByteBuffer.allocate((int) length);
+                    buf.clear().limit((int) length);
+                    while (buf.hasRemaining()) {
+                        if (ch.read(buf, e.summaryOffset + buf.position()) < 0) break;
+                    }
+                    SummaryParser.readJsonl(buf.array(), 0, buf.position(), sink);
+                }
+            }
+        }
+
+        private void add(Map<String, GroupStats> stats, RunRecord r) {
+            group(stats, r).add(r);
+        }
 
-        for (Map.Entry<String, Object> entry : finalReport.entrySet()) {
-            String config = entry.getKey();
-            Map<?, ?> data = (Map<?, ?>) entry.getValue();
+        private GroupStats group(Map<String, GroupStats> stats, RunRecord r) {
+            List<String> groupBy = job.groupBy;
+            StringBuilder key = new StringBuilder();
+            for (String dim : groupBy) {
+                if (key.length() > 0) key.append('-');
+                key.append(r.dimension(dim));
+            }
+            return stats.computeIfAbsent(key.toString(), k -> {
+                Map<String, String> dims = new LinkedHashMap<>();
+                for (String dim : groupBy) dims.put(dim, r.dimension(dim));
+                return new GroupStats(dims);
+            });
+        }
+    }
 
-            double correctness = (Double) data.get("correctnessRatio");
-            boolean consistent = (Boolean) data.get("consistent");
-            Map<?, ?> toolUsage = (Map<?, ?>) data.get("toolUsage");
+    /**
+     * Lê o trecho de linhas completas de um JSONL: começa depois da primeira quebra de linha em
+     * {@code start - 1} ou adiante (ou em 0) e termina do mesmo jeito em {@code end}, então trechos
+     * vizinhos não se sobrepõem nem perdem linhas.
+     */
+    private static byte[] readLines(Part part) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(part.file, "r"); FileChannel ch = raf.getChannel()) {
+            long size = ch.size();
+            long from = lineStart(ch, part.start, size);
+            long to = lineStart(ch, part.end, size);
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.max(0, to - from));
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, from + buf.position()) < 0) break;
+            }
+            return buf.array();
+        }
+    }
 
-            System.out.printf("Config: %s%n", config);
-            System.out.printf("  Correctness: %.2f%%%n", correctness * 100);
-            System.out.printf("  Consistent: %s%n", consistent);
-            System.out.printf("  Tool Usage: %s%n", toolUsage);
-            System.out.println();
+    private static long lineStart(FileChannel ch, long pos, long size) throws IOException {
+        if (pos <= 0) return 0;
+        if (pos >= size) return size;
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long at = pos - 1;
+        while (at < size) {
+            buf.clear();
+            int n = ch.read(buf, at);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return at + i + 1;
+            }
+            at += n;
         }
+        return size;
+    }
+
+    /**
+     * Execuções direto das colunas mapeadas de um {@code .cols}, sem desserializar resumos. Com
+     * {@code sweepFilter} só entram execuções daquela varredura. A consistência segue o critério do
+     * MainRunner: todas as execuções com a mesma sequência de operações. Os arquivos colunares não
+     * guardam modelo nem tempos. Execuções cujo {@code runId} já está em {@code seen} são puladas
+     * (um {@code sweep-*.cols} e um {@code converted-*.cols} podem trazer as mesmas); as lidas entram nele.
+     */
+    static void readColumnar(File file, String sweepFilter, Set<String> seen, Consumer<RunRecord> sink) throws IOException {
+        try (ColumnarResultsReader reader = ColumnarResultsReader.open(file)) {
+            int sweep = sweepFilter == null ? -1 : reader.symbolId(sweepFilter);
+            if (sweepFilter != null && sweep < 0) return;
+
+            for (int run = 0; run < reader.runCount(); run++) {
+                if (sweepFilter != null && reader.sweepId(run) != sweep) continue;
+                String runId = reader.runId(run);
+                if (!seen.add(runId)) continue;
+
+                RunRecord r = new RunRecord();
+                r.runId = runId;
+                r.sweepId = reader.symbol(reader.sweepId(run));
+                r.config = reader.symbol(reader.configId(run));
+                r.prompt = reader.symbol(reader.promptId(run));
+                r.scenario = reader.symbol(reader.scenarioId(run));
+                r.correct = reader.correct(run);
+                r.cancelled = reader.cancelled(run);
+                if (reader.error(run)) r.error = "[ERROR]";
+
+                StringBuilder ops = new StringBuilder();
+                int start = reader.eventStart(run);
+                int end = start + reader.eventCount(run);
+                for (int e = start; e < end; e++) {
+                    int type = reader.typeOrdinal(e);
+                    String op = (type >= 0 ? OPERATION_METHODS[type] : reader.symbol(reader.methodId(e)))
+                            + "(" + reader.symbol(reader.accountId(e)) + "," + reader.value(e) + ")";
+                    ops.append(op).append(reader.result(e) ? ";" : "->FAILED;");
+                    r.observedOps.add(op);
+                    String tool = reader.symbol(reader.toolId(e));
+                    if (tool != null && !r.toolsUsed.contains(tool)) r.toolsUsed.add(tool);
+                }
+                r.opsHash = RunRecord.hashOps(List.of(ops.toString()));
+                sink.accept(r);
+            }
+        }
+    }
+
+    private static String textReport(Map<String, GroupStats> stats, List<String> groupBy, Source source) {
+        StringWriter out = new StringWriter();
+        PrintWriter pw = new PrintWriter(out);
+        String rule = "=".repeat(110);
+        pw.println(rule);
+        pw.println("RELATÓRIO DE RESULTADOS - PROJETO LLM TOOLS");
+        pw.println("Fonte: " + source.name().toLowerCase(Locale.ROOT) + " | intervalos de confiança de 95%"
+                + " (Wilson para corretude, t de Student para médias)");
+        pw.println(rule);
+
+        pw.println("\nTABELA DE RESULTADOS - MÉTRICAS AGREGADAS");
+        pw.println("-".repeat(110));
+        StringBuilder header = new StringBuilder();
+        for (String dim : groupBy) header.append(String.format("%-10s ", DIMENSION_LABELS.get(dim)));
+        header.append(String.format("%-17s %-13s %-5s %-17s %-14s %-8s %s",
+                "Corretude", "IC 95%", "Cons.", "Precisão seq.", "ms/run", "Erros", "Abordagem"));
+        pw.println(header);
+        pw.println("-".repeat(110));
+        for (GroupStats s : stats.values()) {
+            StringBuilder row = new StringBuilder();
+            for (String dim : groupBy) row.append(String.format("%-10s ", s.group.get(dim)));
+            double[] ci = s.correctnessInterval();
+            row.append(String.format("%-17s %-13s %-5s %-17s %-14s %-8s %s",
+                    String.format("%d/%d (%.1f%%)%s", s.correctRuns, s.totalRuns, s.correctnessRatio() * 100,
+                            s.earlyStoppedRuns > 0 ? "*" : ""),
+                    String.format("%.0f–%.0f%%", ci[0] * 100, ci[1] * 100),
+                    s.consistent ? "Sim" : "Não",
+                    meanWithInterval(s.accuracy, "%.3f"),
+                    meanWithInterval(s.runMillis, "%.0f"),
+                    s.errorRuns > 0 ? s.errorRuns + "/" + s.totalRuns : "0",
+                    s.approach()));
+            pw.println(row);
+        }
+        if (stats.values().stream().anyMatch(s -> s.earlyStoppedRuns > 0)) {
+            pw.println("* inclui execuções com o texto interrompido no streaming (STREAM_STOP_AFTER_CHARS)");
+        }
+
+        pw.println("\n" + rule);
+        pw.println("ANÁLISE DETALHADA DE CASOS PROBLEMÁTICOS");
+        pw.println(rule);
+        boolean any = false;
+        for (Map.Entry<String, GroupStats> e : stats.entrySet()) {
+            GroupStats s = e.getValue();
+            if (!s.isProblematic()) continue;
+            any = true;
+            pw.println("\n🔍 CASO PROBLEMÁTICO: " + e.getKey());
+            pw.printf("   - Corretude: %d/%d (%.1f%%)%n", s.correctRuns, s.totalRuns, s.correctnessRatio() * 100);
+            if (s.earlyStoppedRuns > 0) {
+                pw.println("   - Interrompidas no streaming (corretude pode ter mudado): " + s.earlyStoppedRuns + "/" + s.totalRuns);
+            }
+            pw.println("   - Consistência: " + (s.consistent ? "Sim" : "Não"));
+            pw.println("   - Abordagem (Ferramentas): " + s.approach());
+            pw.println("   - Execuções com erro: " + s.errorRuns + "/" + s.totalRuns);
+            pw.println("   - Uso de ferramentas: " + new TreeMap<>(s.toolUsage));
+            if (!s.errorExamples.isEmpty()) {
+                pw.println("   - Execuções com FALHA (erro no LLM): " + s.errorRuns);
+                for (RunRecord r : s.errorExamples) {
+                    pw.println("     * Execução " + shortId(r.runId) + "...: " + abbreviate(r.error, 100));
+                }
+            }
+            int incorrect = s.totalRuns - s.correctRuns - s.errorRuns;
+            if (!s.incorrectExamples.isEmpty()) {
+                pw.println("   - Execuções INCORRETAS (lógica errada): " + incorrect);
+                for (RunRecord r : s.incorrectExamples) {
+                    pw.println("     * Execução " + shortId(r.runId) + "...:");
+                    for (int i = 0; i < Math.min(2, r.mismatches.size()); i++) {
+                        pw.println("       - " + r.mismatches.get(i));
+                    }
+                    if (r.mismatches.size() > 2) {
+                        pw.println("       - ... e mais " + (r.mismatches.size() - 2) + " problemas");
+                    }
+                    pw.println("       Operações observadas: " + r.observedOps);
+                }
+            }
+        }
+        if (!any) pw.println("✓ Nenhum caso problemático encontrado - todas as execuções foram corretas e consistentes!");
+        pw.flush();
+        return out.toString();
+    }
+
+    private static String meanWithInterval(GroupStats.Moments m, String format) {
+        if (m.n == 0) return "-";
+        double half = m.ci95();
+        String mean = String.format(format, m.mean);
+        return Double.isNaN(half) ? mean : mean + " ± " + String.format(format, half);
+    }
+
+    private static String shortId(String runId) {
+        if (runId == null) return "?";
+        return runId.length() > 8 ? runId.substring(0, 8) : runId;
+    }
+
+    private static String abbreviate(String text, int max) {
+        if (text == null) return "";
+        return text.length() > max ? text.substring(0, max) : text;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package br.university.project.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uma execução lida de um resumo ({@code sweep-*.jsonl}, {@code summary-*.json}) ou de um
+ * arquivo {@code .cols}. Campos que a fonte não tem ficam {@code null} ou {@code NaN}.
+ */
+final class RunRecord {
+    String runId;
+    String sweepId;
+    String config;
+    String prompt;
+    String scenario;
+    String model;
+    boolean correct;
+    boolean cancelled;
+    /** texto interrompido em streaming ({@code STREAM_STOP_AFTER_CHARS}) */
+    boolean earlyStopped;
+    /** resposta {@code [ERROR] ...}: a chamada ao modelo falhou */
+    String error;
+    double sequenceAccuracy = Double.NaN;
+    double runMillis = Double.NaN;
+    /** hash da sequência de operações observadas, para a consistência */
+    long opsHash;
+    final List<String> toolsUsed = new ArrayList<>(2);
+    final List<String> mismatches = new ArrayList<>(0);
+    final List<String> observedOps = new ArrayList<>(0);
+
+    /**
+     * Valor da dimensão de agrupamento; {@code "?"} se a fonte não a registra.
+     */
+    String dimension(String name) {
+        String v;
+        switch (name) {
+            case "config":
+                v = config;
+                break;
+            case "prompt":
+                v = prompt;
+                break;
+            case "scenario":
+                v = scenario;
+                break;
+            case "model":
+                v = model;
+                break;
+            case "sweep":
+                v = sweepId;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown grouping dimension: " + name);
+        }
+        return v == null ? "?" : v;
+    }
+
+    /**
+     * Se a execução tem todos os valores de {@code filters} (dimensão → valor).
+     */
+    boolean matches(Map<String, String> filters) {
+        for (Map.Entry<String, String> f : filters.entrySet()) {
+            if (!f.getValue().equals(dimension(f.getKey()))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre as operações, separadas por {@code '\n'}.
+     */
+    static long hashOps(Iterable<String> ops) {
+        long h = 0xcbf29ce484222325L;
+        for (String op : ops) {
+            for (int i = 0; i < op.length(); i++) {
+                char c = op.charAt(i);
+                h = (h ^ (c & 0xff)) * 0x100000001b3L;
+                h = (h ^ (c >>> 8)) * 0x100000001b3L;
+            }
+            h = (h ^ '\n') * 0x100000001b3L;
+        }
+        return h;
+    }
+}
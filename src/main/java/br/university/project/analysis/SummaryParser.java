@@ -0,0 +1,222 @@
+package br.university.project.analysis;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Leitura dos resultados com o {@link JsonParser} de streaming do Jackson, direto para
+ * {@link RunRecord}/{@link GroupStats}, sem montar árvores nem mapas genéricos. Números são lidos
+ * com {@code getValueAs*}, então {@code 1} e {@code 1.0} valem o mesmo.
+ * <p>
+ * Nas linhas de {@code sweep-*.jsonl} o {@code kind} vem primeiro: eventos são pulados sem serem
+ * decodificados.
+ */
+final class SummaryParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private SummaryParser() {
+    }
+
+    /**
+     * Entrega a {@code sink} cada resumo das linhas {@code [offset, offset + length)} de um
+     * {@code sweep-*.jsonl}; o trecho precisa começar e terminar em fronteira de linha.
+     */
+    static void readJsonl(byte[] buffer, int offset, int length, Consumer<RunRecord> sink) throws IOException {
+        try (JsonParser p = FACTORY.createParser(buffer, offset, length)) {
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                if (p.nextToken() != JsonToken.FIELD_NAME || !"kind".equals(p.currentName())) {
+                    // linha fora do formato: lê o objeto inteiro como resumo
+                    RunRecord r = new RunRecord();
+                    readFields(p, r);
+                    sink.accept(r);
+                    continue;
+                }
+                p.nextToken();
+                if (!"summary".equals(p.getText())) {
+                    p.skipChildren();
+                    skipRest(p);
+                    continue;
+                }
+                RunRecord r = new RunRecord();
+                p.nextToken();
+                readFields(p, r);
+                sink.accept(r);
+            }
+        }
+    }
+
+    /**
+     * Um {@code summary-*.json} (formato antigo, um resumo por arquivo).
+     */
+    static RunRecord readSummary(File file) throws IOException {
+        try (JsonParser p = FACTORY.createParser(file)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Not a summary: " + file);
+            RunRecord r = new RunRecord();
+            p.nextToken();
+            readFields(p, r);
+            return r;
+        }
+    }
+
+    /**
+     * Soma um {@code aggregated-<config>-<prompt>-<scenario>.json} (totais de uma combinação) a
+     * {@code s}.
+     */
+    static void readAggregated(File file, GroupStats s) throws IOException {
+        GroupStats part = new GroupStats(s.group);
+        int total = 0;
+        double mean = Double.NaN;
+        double variance = 0.0;
+        try (JsonParser p = FACTORY.createParser(file)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Not an aggregated file: " + file);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken t = p.nextToken();
+                switch (name) {
+                    case "totalRuns":
+                        total = p.getValueAsInt();
+                        break;
+                    case "correctRuns":
+                        part.correctRuns = p.getValueAsInt();
+                        break;
+                    case "cancelledRuns":
+                        part.cancelledRuns = p.getValueAsInt();
+                        break;
+                    case "earlyStoppedRuns":
+                        part.earlyStoppedRuns = p.getValueAsInt();
+                        break;
+                    case "consistent":
+                        part.markConsistent(p.getValueAsBoolean());
+                        break;
+                    case "sequenceAccuracyMean":
+                        mean = t == JsonToken.VALUE_NULL ? Double.NaN : p.getValueAsDouble();
+                        break;
+                    case "sequenceAccuracyVariance":
+                        variance = p.getValueAsDouble();
+                        break;
+                    case "toolUsage":
+                        if (t == JsonToken.START_OBJECT) {
+                            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                                String tool = p.currentName();
+                                p.nextToken();
+                                part.toolUsage.merge(tool, p.getValueAsInt(), Integer::sum);
+                            }
+                        }
+                        break;
+                    default:
+                        p.skipChildren();
+                        break;
+                }
+            }
+        }
+        part.totalRuns = total;
+        if (total > 0 && !Double.isNaN(mean)) part.accuracy.add(total, mean, variance * (total - 1));
+        s.merge(part);
+    }
+
+    /**
+     * Lê os campos de um resumo a partir do primeiro {@code FIELD_NAME} até o fim do objeto.
+     */
+    private static void readFields(JsonParser p, RunRecord r) throws IOException {
+        for (JsonToken t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (name) {
+                case "runId":
+                    r.runId = p.getValueAsString();
+                    break;
+                case "sweepId":
+                    r.sweepId = p.getValueAsString();
+                    break;
+                case "config":
+                    r.config = p.getValueAsString();
+                    break;
+                case "prompt":
+                    r.prompt = p.getValueAsString();
+                    break;
+                case "scenario":
+                    r.scenario = p.getValueAsString();
+                    break;
+                case "model":
+                    r.model = p.getValueAsString();
+                    break;
+                case "status":
+                    r.cancelled = "CANCELLED".equals(p.getValueAsString());
+                    break;
+                case "earlyStopped":
+                    r.earlyStopped = p.getValueAsBoolean();
+                    break;
+                case "runMillis":
+                    if (value != JsonToken.VALUE_NULL) r.runMillis = p.getValueAsDouble();
+                    break;
+                case "llmResponseText": {
+                    String text = p.getValueAsString();
+                    if (text != null && text.startsWith("[ERROR]")) r.error = text;
+                    break;
+                }
+                case "toolsUsed":
+                    readStrings(p, value, r.toolsUsed);
+                    break;
+                case "evaluation":
+                    if (value == JsonToken.START_OBJECT) readEvaluation(p, r);
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        r.opsHash = RunRecord.hashOps(r.observedOps);
+    }
+
+    private static void readEvaluation(JsonParser p, RunRecord r) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (name) {
+                case "correct":
+                    r.correct = p.getValueAsBoolean();
+                    break;
+                case "sequenceAccuracy":
+                    if (value != JsonToken.VALUE_NULL) r.sequenceAccuracy = p.getValueAsDouble();
+                    break;
+                case "mismatches":
+                    readStrings(p, value, r.mismatches);
+                    break;
+                case "observedOps":
+                    readStrings(p, value, r.observedOps);
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    private static void readStrings(JsonParser p, JsonToken start, List<String> out) throws IOException {
+        if (start != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() == JsonToken.START_OBJECT || p.currentToken() == JsonToken.START_ARRAY) {
+                p.skipChildren();
+            } else {
+                out.add(p.getValueAsString());
+            }
+        }
+    }
+
+    private static void skipRest(JsonParser p) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            p.nextToken();
+            p.skipChildren();
+        }
+    }
+}
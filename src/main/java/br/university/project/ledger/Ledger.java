@@ -0,0 +1,167 @@
+package br.university.project.ledger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Livro-razão em memória compartilhado por todas as execuções: saldos em centavos indexados por
+ * um id inteiro de conta, com regra de cheque especial.
+ * <p>
+ * Não há lock global. O número da conta vira um id uma única vez (a abertura da conta, com o saldo
+ * inicial, é a única operação sincronizada, e só no bin do mapa); depois disso cada saldo é um slot
+ * de {@link AtomicLongArray} atualizado por CAS. Execuções concorrentes só disputam quando mexem
+ * na mesma conta, e mesmo assim sem bloquear. Os slots ficam em blocos de tamanho fixo, criados sob
+ * demanda, então nada é copiado quando o número de contas cresce.
+ * <p>
+ * O efeito de cada execução passa por uma {@link LedgerSession}, que guarda o log das transações
+ * da execução e verifica a conservação do dinheiro no final.
+ */
+public final class Ledger {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    private final long openingBalanceCents;
+    private final long overdraftLimitCents;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger accounts = new AtomicInteger();
+
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder runsChecked = new LongAdder();
+    private final LongAdder runsUnbalanced = new LongAdder();
+
+    /**
+     * @param openingBalanceCents saldo de cada conta na primeira vez em que aparece
+     * @param overdraftLimitCents quanto um saldo pode ficar negativo ({@code 0}: sem cheque especial)
+     */
+    public Ledger(long openingBalanceCents, long overdraftLimitCents) {
+        if (overdraftLimitCents < 0) throw new IllegalArgumentException("overdraft limit must be >= 0: " + overdraftLimitCents);
+        this.openingBalanceCents = openingBalanceCents;
+        this.overdraftLimitCents = overdraftLimitCents;
+    }
+
+    public static long toCents(double value) {
+        return Math.round(value * 100.0);
+    }
+
+    /**
+     * Id da conta, abrindo-a com o saldo inicial se for nova.
+     */
+    public int account(String number) {
+        Integer id = ids.get(number);
+        if (id != null) return id;
+        return ids.computeIfAbsent(number, n -> {
+            int created = accounts.getAndIncrement();
+            // o saldo inicial é gravado antes de o id ficar visível para outras threads
+            chunk(created).set(created & (CHUNK_SIZE - 1), openingBalanceCents);
+            return created;
+        });
+    }
+
+    public long balanceCents(int account) {
+        return slots(account).get(account & (CHUNK_SIZE - 1));
+    }
+
+    public long balanceCents(String number) {
+        Integer id = ids.get(number);
+        return id == null ? openingBalanceCents : balanceCents(id);
+    }
+
+    /**
+     * Debita se o saldo resultante respeitar o limite do cheque especial.
+     *
+     * @return {@code false} se faltou saldo (nada é alterado)
+     */
+    public boolean debit(int account, long cents) {
+        AtomicLongArray slots = slots(account);
+        int i = account & (CHUNK_SIZE - 1);
+        long floor = -overdraftLimitCents;
+        while (true) {
+            long current = slots.get(i);
+            long next = current - cents;
+            if (next < floor) {
+                rejected.increment();
+                return false;
+            }
+            if (slots.compareAndSet(i, current, next)) {
+                transactions.increment();
+                return true;
+            }
+        }
+    }
+
+    public void credit(int account, long cents) {
+        slots(account).getAndAdd(account & (CHUNK_SIZE - 1), cents);
+        transactions.increment();
+    }
+
+    /**
+     * Estorno de um lançamento anterior: altera o saldo sem verificar o limite.
+     */
+    void adjust(int account, long cents) {
+        slots(account).getAndAdd(account & (CHUNK_SIZE - 1), cents);
+    }
+
+    public LedgerSession session(String runId) {
+        return new LedgerSession(this, runId);
+    }
+
+    void onChecked(boolean conserved) {
+        runsChecked.increment();
+        if (!conserved) runsUnbalanced.increment();
+    }
+
+    /**
+     * Soma dos saldos de todas as contas abertas (fotografia não atômica sob escrita concorrente).
+     */
+    public long totalBalanceCents() {
+        long total = 0;
+        int n = accounts.get();
+        for (int id = 0; id < n; id++) {
+            AtomicLongArray slots = chunks.get(id >>> CHUNK_SHIFT);
+            if (slots != null) total += slots.get(id & (CHUNK_SIZE - 1));
+        }
+        return total;
+    }
+
+    public int getAccounts() {
+        return accounts.get();
+    }
+
+    public long getTransactions() {
+        return transactions.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getRunsChecked() {
+        return runsChecked.sum();
+    }
+
+    public long getRunsUnbalanced() {
+        return runsUnbalanced.sum();
+    }
+
+    private AtomicLongArray slots(int account) {
+        AtomicLongArray slots = chunks.get(account >>> CHUNK_SHIFT);
+        if (slots == null) throw new IllegalArgumentException("unknown account id: " + account);
+        return slots;
+    }
+
+    private AtomicLongArray chunk(int account) {
+        int k = account >>> CHUNK_SHIFT;
+        if (k >= MAX_CHUNKS) throw new IllegalStateException("ledger full");
+        AtomicLongArray slots = chunks.get(k);
+        if (slots != null) return slots;
+        chunks.compareAndSet(k, null, new AtomicLongArray(CHUNK_SIZE));
+        return chunks.get(k);
+    }
+}
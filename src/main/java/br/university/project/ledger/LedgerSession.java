@@ -0,0 +1,175 @@
+package br.university.project.ledger;
+
+import br.university.project.model.OperationType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Efeito de uma tentativa de execução sobre o {@link Ledger}: aplica as operações das ferramentas,
+ * guarda o log append-only das transações e verifica a conservação do dinheiro.
+ * <p>
+ * Saques tiram o valor da conta e o deixam "em trânsito" com o agente; depósitos e devoluções o
+ * colocam de volta numa conta; taxas e pagamentos saem do sistema. A execução conserva o dinheiro
+ * quando nada fica em trânsito, isto é, quando tudo o que foi sacado foi depositado ou devolvido
+ * (no P2, o depósito é igual ao total sacado).
+ * <p>
+ * O lock da sessão serializa só as chamadas de ferramenta paralelas da mesma tentativa. Uma
+ * tentativa descartada (hedge perdedor, tentativa que falhou) é estornada com {@link #rollback()}.
+ */
+public final class LedgerSession {
+
+    /**
+     * Uma linha do log. {@code applied == false}: recusada por falta de saldo ou valor inválido.
+     */
+    public static final class Transaction {
+        public final int seq;
+        public final OperationType type;
+        public final String account;
+        public final long cents;
+        public final boolean applied;
+        /** id da conta no ledger, {@code -1} se não aplicada */
+        final int accountId;
+
+        Transaction(int seq, OperationType type, String account, long cents, int accountId) {
+            this.seq = seq;
+            this.type = type;
+            this.account = account;
+            this.cents = cents;
+            this.applied = accountId >= 0;
+            this.accountId = accountId;
+        }
+    }
+
+    private final Ledger ledger;
+    private final String runId;
+    private final List<Transaction> log = new ArrayList<>();
+    private boolean closed;
+
+    private long withdrawn;
+    private long deposited;
+    private long returned;
+    private long charged;
+
+    LedgerSession(Ledger ledger, String runId) {
+        this.ledger = ledger;
+        this.runId = runId;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    /**
+     * Lança a operação. Saques, taxas e pagamentos precisam de saldo (com o cheque especial do ledger).
+     *
+     * @return se a operação foi aplicada; sempre {@code false} depois de {@link #rollback()}
+     */
+    public synchronized boolean apply(OperationType type, String account, double value) {
+        if (closed) return false;
+        long cents = Ledger.toCents(value);
+        boolean applied = false;
+        int id = -1;
+        if (cents > 0 && account != null && type != null) {
+            id = ledger.account(account);
+            switch (type) {
+                case WITHDRAW:
+                    applied = ledger.debit(id, cents);
+                    if (applied) withdrawn += cents;
+                    break;
+                case TAX:
+                case PAYMENT:
+                    applied = ledger.debit(id, cents);
+                    if (applied) charged += cents;
+                    break;
+                case DEPOSIT:
+                    ledger.credit(id, cents);
+                    deposited += cents;
+                    applied = true;
+                    break;
+                case RETURN:
+                    ledger.credit(id, cents);
+                    returned += cents;
+                    applied = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        log.add(new Transaction(log.size(), type, account, cents, applied ? id : -1));
+        return applied;
+    }
+
+    /**
+     * Estorna, em ordem inversa, tudo o que a sessão lançou e recusa lançamentos posteriores.
+     */
+    public synchronized void rollback() {
+        if (closed) return;
+        closed = true;
+        for (int i = log.size() - 1; i >= 0; i--) {
+            Transaction t = log.get(i);
+            if (!t.applied) continue;
+            boolean debit = t.type == OperationType.WITHDRAW || t.type == OperationType.TAX
+                    || t.type == OperationType.PAYMENT;
+            ledger.adjust(t.accountId, debit ? t.cents : -t.cents);
+        }
+    }
+
+    /**
+     * Encerra a sessão e verifica a conservação.
+     */
+    public synchronized Conservation check() {
+        closed = true;
+        Conservation c = new Conservation(withdrawn, deposited, returned, charged, rejectedCount());
+        ledger.onChecked(c.conserved);
+        return c;
+    }
+
+    public synchronized List<Transaction> getLog() {
+        return List.copyOf(log);
+    }
+
+    private int rejectedCount() {
+        int n = 0;
+        for (Transaction t : log) if (!t.applied) n++;
+        return n;
+    }
+
+    /**
+     * Balanço da execução, em centavos.
+     */
+    public static final class Conservation {
+        public final long withdrawnCents;
+        public final long depositedCents;
+        public final long returnedCents;
+        public final long chargedCents;
+        /** sacado e não depositado nem devolvido; negativo se foi depositado mais do que sacado */
+        public final long inTransitCents;
+        public final int rejected;
+        public final boolean conserved;
+
+        Conservation(long withdrawn, long deposited, long returned, long charged, int rejected) {
+            this.withdrawnCents = withdrawn;
+            this.depositedCents = deposited;
+            this.returnedCents = returned;
+            this.chargedCents = charged;
+            this.inTransitCents = withdrawn - deposited - returned;
+            this.rejected = rejected;
+            this.conserved = inTransitCents == 0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("withdrawn", withdrawnCents / 100.0);
+            m.put("deposited", depositedCents / 100.0);
+            m.put("returned", returnedCents / 100.0);
+            m.put("charged", chargedCents / 100.0);
+            m.put("inTransit", inTransitCents / 100.0);
+            m.put("rejected", rejected);
+            m.put("conserved", conserved);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package br.university.project.llm;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff exponencial com jitter completo: a espera antes da tentativa {@code retry} (1, 2, ...)
+ * é sorteada em {@code [0, min(maxMillis, baseMillis * 2^(retry-1))]}, para que execuções que
+ * falharam juntas não voltem ao Ollama ao mesmo tempo.
+ */
+public final class Backoff {
+
+    private final long baseMillis;
+    private final long maxMillis;
+
+    public Backoff(long baseMillis, long maxMillis) {
+        this.baseMillis = Math.max(0, baseMillis);
+        this.maxMillis = Math.max(this.baseMillis, maxMillis);
+    }
+
+    public long delayMillis(int retry) {
+        if (retry <= 0 || baseMillis == 0) return 0;
+        int shift = Math.min(30, retry - 1);
+        long ceiling = Math.min(maxMillis, baseMillis << shift);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,5 @@
+package br.university.project.llm;
+
+public interface BankingAssistant {
+    String chat(String userMessage);
+}
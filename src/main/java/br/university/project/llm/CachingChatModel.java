@@ -0,0 +1,61 @@
+package br.university.project.llm;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * Decorador que consulta o {@link ResponseCache} antes de chamar o modelo. Só a resposta do modelo
+ * vem do cache: as chamadas de ferramenta que ela pede continuam sendo executadas pelo AiServices
+ * nas instâncias da execução, então o {@code CallLogger} registra os mesmos eventos.
+ * <p>
+ * A réplica do {@link ToolScope} corrente entra na chave, de modo que execuções repetidas de uma
+ * mesma combinação reproduzem cada uma a sua própria resposta.
+ */
+final class CachingChatModel implements ChatLanguageModel {
+
+    private final ChatLanguageModel delegate;
+    private final ResponseCache cache;
+    /** nome do modelo e temperatura, parte da chave */
+    private final String model;
+
+    CachingChatModel(ChatLanguageModel delegate, ResponseCache cache, String model) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.model = model;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        String key = ResponseCache.key(model, ToolScope.replica(), messages, List.of());
+        Response<AiMessage> cached = cache.get(key);
+        if (cached != null) return cached;
+        Response<AiMessage> response = delegate.generate(messages);
+        cache.put(key, model, response);
+        return response;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        String key = ResponseCache.key(model, ToolScope.replica(), messages, toolSpecifications);
+        Response<AiMessage> cached = cache.get(key);
+        if (cached != null) return cached;
+        Response<AiMessage> response = delegate.generate(messages, toolSpecifications);
+        cache.put(key, model, response);
+        return response;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        String key = ResponseCache.key(model, ToolScope.replica(), messages, "required " + toolSpecification);
+        Response<AiMessage> cached = cache.get(key);
+        if (cached != null) return cached;
+        Response<AiMessage> response = delegate.generate(messages, toolSpecification);
+        cache.put(key, model, response);
+        return response;
+    }
+}
@@ -0,0 +1,88 @@
+package br.university.project.llm;
+
+import okhttp3.Call;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prazo e cancelamento de uma tentativa de chamada ao modelo, propagados até a camada HTTP.
+ * <p>
+ * O {@link OllamaHttpChatModel} registra aqui cada requisição em andamento e limita o seu
+ * timeout ao tempo restante; {@link #cancel(String)} aborta essas conexões e faz com que
+ * ferramentas e novos turnos do modelo desta tentativa falhem com {@link CancellationException}.
+ */
+public final class CallDeadline {
+
+    private final long deadlineNanos;
+    private final Set<Call> inFlight = new HashSet<>();
+    private volatile String cancelReason;
+
+    private CallDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Prazo absoluto em {@link System#nanoTime()}.
+     */
+    public static CallDeadline at(long deadlineNanos) {
+        return new CallDeadline(deadlineNanos);
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    public String getCancelReason() {
+        return cancelReason;
+    }
+
+    /**
+     * Falha se a tentativa foi cancelada ou o prazo venceu (vencer o prazo também cancela).
+     */
+    public void check() {
+        if (cancelReason == null && remainingNanos() <= 0) cancel("deadline exceeded");
+        String reason = cancelReason;
+        if (reason != null) throw new CancellationException(reason);
+    }
+
+    /**
+     * Cancela a tentativa abortando as requisições HTTP em andamento. Chamadas seguintes não têm efeito.
+     */
+    public void cancel(String reason) {
+        Call[] calls;
+        synchronized (this) {
+            if (cancelReason != null) return;
+            cancelReason = reason;
+            calls = inFlight.toArray(new Call[0]);
+            inFlight.clear();
+        }
+        for (Call call : calls) call.cancel();
+    }
+
+    /**
+     * Associa a requisição ao prazo: o timeout da chamada passa a ser o tempo restante e um
+     * cancelamento posterior a aborta. Cancela de imediato se a tentativa já estiver cancelada.
+     */
+    void register(Call call) {
+        long remaining = remainingNanos();
+        call.timeout().timeout(Math.max(1, remaining), TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            if (cancelReason == null && remaining > 0) {
+                inFlight.add(call);
+                return;
+            }
+        }
+        call.cancel();
+    }
+
+    synchronized void unregister(Call call) {
+        inFlight.remove(call);
+    }
+}
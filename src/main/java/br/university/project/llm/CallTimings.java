@@ -0,0 +1,104 @@
+package br.university.project.llm;
+
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.Arrays;
+
+/**
+ * Durações coletadas durante uma chamada ao assistente: cada turno do modelo (uma requisição
+ * ao Ollama), o tempo até o primeiro token de cada turno em streaming e cada execução de
+ * ferramenta. Também soma o custo das requisições: bytes de especificação de ferramentas enviados
+ * e tokens de prompt e de resposta informados pelo Ollama. Ligada à thread pelo {@link ToolScope};
+ * usada por uma única thread.
+ */
+public final class CallTimings {
+
+    private long[] modelTurnNanos = new long[8];
+    private int modelTurns;
+    private long[] toolCallNanos = new long[8];
+    private int toolCalls;
+    private long[] firstTokenNanos = new long[8];
+    private int firstTokens;
+    private int earlyStops;
+    private int toolSpecBytes;
+    private long toolSpecBytesSent;
+    private long promptTokens;
+    private long completionTokens;
+
+    void recordModelTurn(long nanos) {
+        if (modelTurns == modelTurnNanos.length) modelTurnNanos = Arrays.copyOf(modelTurnNanos, modelTurns * 2);
+        modelTurnNanos[modelTurns++] = nanos;
+    }
+
+    void recordToolCall(long nanos) {
+        if (toolCalls == toolCallNanos.length) toolCallNanos = Arrays.copyOf(toolCallNanos, toolCalls * 2);
+        toolCallNanos[toolCalls++] = nanos;
+    }
+
+    void recordFirstToken(long nanos) {
+        if (firstTokens == firstTokenNanos.length) firstTokenNanos = Arrays.copyOf(firstTokenNanos, firstTokens * 2);
+        firstTokenNanos[firstTokens++] = nanos;
+    }
+
+    void recordEarlyStop() {
+        earlyStops++;
+    }
+
+    void recordRequest(int toolSpecBytes) {
+        this.toolSpecBytes = toolSpecBytes;
+        toolSpecBytesSent += toolSpecBytes;
+    }
+
+    /**
+     * @param usage {@code null} quando o turno foi interrompido antes do pedaço final
+     */
+    void recordTokens(TokenUsage usage) {
+        if (usage == null) return;
+        if (usage.inputTokenCount() != null) promptTokens += usage.inputTokenCount();
+        if (usage.outputTokenCount() != null) completionTokens += usage.outputTokenCount();
+    }
+
+    public long[] getModelTurnNanos() {
+        return Arrays.copyOf(modelTurnNanos, modelTurns);
+    }
+
+    public long[] getToolCallNanos() {
+        return Arrays.copyOf(toolCallNanos, toolCalls);
+    }
+
+    /**
+     * Do envio de cada turno em streaming até o primeiro pedaço de conteúdo ou chamada de ferramenta.
+     */
+    public long[] getFirstTokenNanos() {
+        return Arrays.copyOf(firstTokenNanos, firstTokens);
+    }
+
+    /**
+     * Turnos finais interrompidos por texto livre longo depois das chamadas de ferramenta.
+     */
+    public int getEarlyStops() {
+        return earlyStops;
+    }
+
+    /**
+     * Tamanho serializado do array {@code tools} de cada requisição ({@code 0} sem ferramentas).
+     */
+    public int getToolSpecBytes() {
+        return toolSpecBytes;
+    }
+
+    /**
+     * Bytes de especificação de ferramentas somados em todas as requisições da chamada.
+     */
+    public long getToolSpecBytesSent() {
+        return toolSpecBytesSent;
+    }
+
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+}
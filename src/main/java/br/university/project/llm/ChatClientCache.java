@@ -0,0 +1,182 @@
+package br.university.project.llm;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.service.AiServices;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de clientes Ollama e de proxies AiServices.
+ * <p>
+ * Os modelos são chaveados por (baseUrl, modelName, temperature, timeout) e os assistentes por
+ * (modelo, configuração). As ferramentas de cada execução são ligadas via {@link ToolScope}, assim como
+ * o {@link CallDeadline} da tentativa, respeitado pelo {@link OllamaHttpChatModel}. Os modelos dividem um
+ * único pool de conexões.
+ * Com um {@link ResponseCache} configurado, os assistentes consultam o cache antes do modelo.
+ * Com especificações compactas, os assistentes anunciam as ferramentas pela variante compacta do
+ * {@link ToolCatalog}.
+ */
+public final class ChatClientCache {
+
+    private final OkHttpClient http = new OkHttpClient();
+    private final ConcurrentMap<ModelKey, OllamaHttpChatModel> models = new ConcurrentHashMap<>();
+    private final ConcurrentMap<AssistantKey, BankingAssistant> assistants = new ConcurrentHashMap<>();
+    private final LongAdder modelBuilds = new LongAdder();
+    private final LongAdder assistantBuilds = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private volatile ResponseCache responseCache;
+    private volatile boolean streaming;
+    private volatile int stopAfterChars;
+    private volatile boolean compactToolSpecs;
+    private volatile String keepAlive;
+
+    /**
+     * Passa a usar {@code cache} (ou nenhum, com {@code null}) nos assistentes criados daqui em diante;
+     * os já criados são descartados.
+     */
+    public void setResponseCache(ResponseCache cache) {
+        this.responseCache = cache;
+        assistants.clear();
+    }
+
+    /**
+     * Liga o streaming nos modelos criados daqui em diante (os já criados são descartados), com parada
+     * antecipada do texto final depois de {@code stopAfterChars} caracteres ({@code <= 0} desliga).
+     */
+    public void setStreaming(boolean streaming, int stopAfterChars) {
+        this.streaming = streaming;
+        this.stopAfterChars = stopAfterChars;
+        assistants.clear();
+        models.clear();
+    }
+
+    /**
+     * Passa a anunciar as ferramentas com as especificações compactas do {@link ToolCatalog} nos
+     * assistentes criados daqui em diante; os já criados são descartados.
+     */
+    public void setCompactToolSpecs(boolean compact) {
+        this.compactToolSpecs = compact;
+        assistants.clear();
+    }
+
+    /**
+     * {@code keep_alive} das requisições de chat dos modelos criados daqui em diante (os já criados
+     * são descartados); {@code null} deixa o padrão do Ollama.
+     */
+    public void setKeepAlive(String keepAlive) {
+        this.keepAlive = keepAlive;
+        assistants.clear();
+        models.clear();
+    }
+
+    public boolean isCompactToolSpecs() {
+        return compactToolSpecs;
+    }
+
+    public BankingAssistant assistant(ModelKey key, String config) {
+        lookups.increment();
+        return assistants.computeIfAbsent(new AssistantKey(key, config), k -> {
+            assistantBuilds.increment();
+            ChatLanguageModel model = model(k.model);
+            ResponseCache cache = responseCache;
+            if (cache != null && cache.getMode() != ResponseCache.Mode.OFF) {
+                model = new CachingChatModel(model, cache, k.model.modelName + "@" + k.model.temperature);
+            }
+            return buildAssistant(model, ToolCatalog.forConfig(config, compactToolSpecs));
+        });
+    }
+
+    public OllamaHttpChatModel model(ModelKey key) {
+        return models.computeIfAbsent(key, k -> {
+            modelBuilds.increment();
+            return new OllamaHttpChatModel(http, k.baseUrl, k.modelName, k.temperature, k.timeout,
+                    streaming, stopAfterChars, keepAlive);
+        });
+    }
+
+    static BankingAssistant buildAssistant(ChatLanguageModel model, ToolCatalog catalog) {
+        return AiServices.builder(BankingAssistant.class)
+                .chatLanguageModel(new TimedChatModel(model))
+                .tools(catalog.scopedExecutors())
+                .build();
+    }
+
+    public long getModelBuilds() {
+        return modelBuilds.sum();
+    }
+
+    public long getAssistantBuilds() {
+        return assistantBuilds.sum();
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public static final class ModelKey {
+        final String baseUrl;
+        final String modelName;
+        final double temperature;
+        final Duration timeout;
+
+        public ModelKey(String baseUrl, String modelName, double temperature, Duration timeout) {
+            this.baseUrl = baseUrl;
+            this.modelName = modelName;
+            this.temperature = temperature;
+            this.timeout = timeout;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ModelKey)) return false;
+            ModelKey that = (ModelKey) o;
+            return Double.compare(temperature, that.temperature) == 0
+                    && baseUrl.equals(that.baseUrl)
+                    && modelName.equals(that.modelName)
+                    && timeout.equals(that.timeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseUrl, modelName, temperature, timeout);
+        }
+
+        @Override
+        public String toString() {
+            return modelName + "@" + baseUrl;
+        }
+    }
+
+    private static final class AssistantKey {
+        final ModelKey model;
+        final String config;
+
+        AssistantKey(ModelKey model, String config) {
+            this.model = model;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof AssistantKey)) return false;
+            AssistantKey that = (AssistantKey) o;
+            return model.equals(that.model) && config.equals(that.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(model, config);
+        }
+    }
+}
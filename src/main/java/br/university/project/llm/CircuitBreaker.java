@@ -0,0 +1,162 @@
+package br.university.project.llm;
+
+import java.util.Arrays;
+
+/**
+ * Circuit breaker por modelo sobre uma janela deslizante das últimas {@code window} tentativas.
+ * <p>
+ * Falhas e chamadas mais lentas que {@code slowCallNanos} contam para a taxa de falha; com pelo menos
+ * {@code minCalls} tentativas na janela e taxa acima de {@code failureRateThreshold} o circuito abre e
+ * recusa tentativas por {@code openNanos}. Depois disso fica meio-aberto: uma única tentativa de prova
+ * decide se fecha (sucesso) ou volta a abrir (falha).
+ * <p>
+ * Também guarda as latências dos últimos sucessos, usadas para decidir quando disparar um hedge.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int minLatencySamples;
+
+    /** 1 = falha ou lenta, 0 = ok; buffer circular */
+    private final byte[] outcomes;
+    private int outcomeCount;
+    private int outcomeNext;
+    private int badCount;
+
+    private final long[] latencies;
+    private int latencyCount;
+    private int latencyNext;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long timesOpened;
+
+    public CircuitBreaker(String name, int window, int minCalls, double failureRateThreshold,
+                          long slowCallNanos, long openNanos, int minLatencySamples) {
+        this.name = name;
+        this.outcomes = new byte[Math.max(1, window)];
+        this.latencies = new long[Math.max(1, Math.max(window, minLatencySamples))];
+        this.minCalls = Math.max(1, minCalls);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.minLatencySamples = Math.max(1, minLatencySamples);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Reserva uma tentativa; {@code false} se o circuito estiver aberto (ou meio-aberto com a prova em curso).
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) return false;
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long nanos) {
+        boolean slow = nanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (slow) {
+                open();
+                return;
+            }
+            state = State.CLOSED;
+            clearOutcomes();
+        }
+        latencies[latencyNext] = nanos;
+        latencyNext = (latencyNext + 1) % latencies.length;
+        if (latencyCount < latencies.length) latencyCount++;
+        record(slow);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            open();
+            return;
+        }
+        record(true);
+    }
+
+    /**
+     * Tentativa reservada que não chegou a um resultado (cancelada): libera a prova do meio-aberto.
+     */
+    public synchronized void onCancelled() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    private void record(boolean bad) {
+        if (outcomeCount == outcomes.length) {
+            badCount -= outcomes[outcomeNext];
+        } else {
+            outcomeCount++;
+        }
+        outcomes[outcomeNext] = (byte) (bad ? 1 : 0);
+        badCount += outcomes[outcomeNext];
+        outcomeNext = (outcomeNext + 1) % outcomes.length;
+
+        if (state == State.CLOSED && outcomeCount >= minCalls
+                && (double) badCount / outcomeCount > failureRateThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        timesOpened++;
+        clearOutcomes();
+    }
+
+    private void clearOutcomes() {
+        Arrays.fill(outcomes, (byte) 0);
+        outcomeCount = 0;
+        outcomeNext = 0;
+        badCount = 0;
+    }
+
+    /**
+     * Percentil {@code p} (0..1) das latências de sucesso recentes, ou {@code -1} com menos de
+     * {@code minLatencySamples} amostras.
+     */
+    public synchronized long latencyPercentileNanos(double p) {
+        if (latencyCount < minLatencySamples) return -1;
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) return State.HALF_OPEN;
+        return state;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    public synchronized double getFailureRate() {
+        return outcomeCount == 0 ? 0.0 : (double) badCount / outcomeCount;
+    }
+}
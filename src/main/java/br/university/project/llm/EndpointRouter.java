@@ -0,0 +1,255 @@
+package br.university.project.llm;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribui as chamadas ao modelo entre vários servidores Ollama.
+ * <p>
+ * Cada tentativa pede um {@link Lease} e vai para o endpoint saudável com o menor tempo de espera
+ * estimado: (requisições em andamento + 1) × latência recente (média móvel exponencial das tentativas
+ * bem-sucedidas). Endpoints ainda sem amostra herdam a menor latência conhecida, então entram na
+ * rotação logo. Empates são desfeitos em rodízio.
+ * <p>
+ * Falhas de conexão (não erros do modelo) contam contra o endpoint; depois de {@code maxFailures}
+ * seguidas ele sai da rotação até passar numa verificação de saúde ({@code GET /api/tags}), feita
+ * na abertura e periodicamente com {@link #startHealthChecks(Duration)}. Sem nenhum endpoint
+ * saudável, as chamadas vão para o que falhou menos vezes seguidas.
+ */
+public final class EndpointRouter implements AutoCloseable {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final List<Endpoint> endpoints;
+    private final int maxFailures;
+    private final AtomicInteger rotation = new AtomicInteger();
+    private final OkHttpClient health;
+    private ScheduledExecutorService checker;
+
+    public EndpointRouter(List<String> baseUrls, int maxFailures, Duration healthTimeout) {
+        if (baseUrls.isEmpty()) throw new IllegalArgumentException("at least one endpoint is required");
+        List<Endpoint> list = new ArrayList<>(baseUrls.size());
+        for (String url : baseUrls) {
+            list.add(new Endpoint(url.endsWith("/") ? url.substring(0, url.length() - 1) : url));
+        }
+        this.endpoints = List.copyOf(list);
+        this.maxFailures = Math.max(1, maxFailures);
+        this.health = new OkHttpClient.Builder().callTimeout(healthTimeout).build();
+    }
+
+    /**
+     * Reserva o endpoint com o menor tempo de espera estimado. O lease precisa ser liberado com
+     * {@link Lease#release(Throwable)}.
+     */
+    public Lease acquire() {
+        return acquire(null);
+    }
+
+    /**
+     * Como {@link #acquire()}, evitando {@code avoidBaseUrl} enquanto houver outro endpoint saudável
+     * (hedge da mesma chamada em outro servidor).
+     */
+    public Lease acquire(String avoidBaseUrl) {
+        double fallbackNanos = 1.0;
+        boolean sampled = false;
+        for (Endpoint e : endpoints) {
+            double l = e.latencyNanos;
+            if (l > 0 && (!sampled || l < fallbackNanos)) {
+                fallbackNanos = l;
+                sampled = true;
+            }
+        }
+
+        int n = endpoints.size();
+        int start = Math.floorMod(rotation.getAndIncrement(), n);
+        Endpoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            Endpoint e = endpoints.get((start + i) % n);
+            if (!e.healthy || e.baseUrl.equals(avoidBaseUrl)) continue;
+            double latency = e.latencyNanos > 0 ? e.latencyNanos : fallbackNanos;
+            double score = (e.inFlight.get() + 1) * latency;
+            if (score < bestScore) {
+                best = e;
+                bestScore = score;
+            }
+        }
+        if (best == null && avoidBaseUrl != null) return acquire(null);
+        if (best == null) {
+            for (int i = 0; i < n; i++) {
+                Endpoint e = endpoints.get((start + i) % n);
+                if (best == null || e.consecutiveFailures.get() < best.consecutiveFailures.get()) best = e;
+            }
+        }
+        best.inFlight.incrementAndGet();
+        best.routed.increment();
+        return new Lease(best);
+    }
+
+    /**
+     * Verifica todos os endpoints e devolve quantos estão saudáveis.
+     */
+    public int checkHealth() {
+        int healthy = 0;
+        for (Endpoint e : endpoints) {
+            boolean ok = ping(e);
+            if (ok != e.healthy) {
+                System.out.println(ok ? "🩺 Endpoint " + e.baseUrl + " de volta à rotação"
+                        : "🩺 Endpoint " + e.baseUrl + " fora da rotação (verificação de saúde falhou)");
+            }
+            if (ok) {
+                e.consecutiveFailures.set(0);
+                healthy++;
+            }
+            e.healthy = ok;
+        }
+        return healthy;
+    }
+
+    /**
+     * Repete {@link #checkHealth()} em segundo plano a cada {@code interval}.
+     */
+    public synchronized void startHealthChecks(Duration interval) {
+        if (checker != null || interval.isZero() || interval.isNegative()) return;
+        checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "endpoint-health");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = interval.toMillis();
+        checker.scheduleWithFixedDelay(this::checkHealth, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean ping(Endpoint e) {
+        Request request = new Request.Builder().url(e.baseUrl + "/api/tags").get().build();
+        try (Response response = health.newCall(request).execute()) {
+            return response.code() == 200;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    public List<String> getBaseUrls() {
+        List<String> urls = new ArrayList<>(endpoints.size());
+        for (Endpoint e : endpoints) urls.add(e.baseUrl);
+        return urls;
+    }
+
+    public List<String> getHealthyBaseUrls() {
+        List<String> urls = new ArrayList<>(endpoints.size());
+        for (Endpoint e : endpoints) {
+            if (e.healthy) urls.add(e.baseUrl);
+        }
+        return urls;
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Por endpoint: tentativas roteadas, falhas de conexão, latência recente (ms) e saúde.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Endpoint e : endpoints) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("routed", e.routed.sum());
+            m.put("failures", e.failures.sum());
+            m.put("latencyMillis", e.latencyNanos > 0 ? e.latencyNanos / 1e6 : null);
+            m.put("healthy", e.healthy);
+            out.put(e.baseUrl, m);
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (checker != null) checker.shutdownNow();
+        checker = null;
+    }
+
+    /**
+     * Falha atribuída ao endpoint: erro de E/S na cadeia de causas (conexão recusada, reset,
+     * timeout de socket). Erros de protocolo ou do modelo não tiram o endpoint da rotação, nem
+     * tentativas canceladas (a requisição abortada aparece como causa do cancelamento).
+     */
+    static boolean isEndpointFailure(Throwable error) {
+        boolean io = false;
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof CancellationException) return false;
+            if (t instanceof IOException) io = true;
+        }
+        return io;
+    }
+
+    private static final class Endpoint {
+        final String baseUrl;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final LongAdder routed = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        /** média móvel exponencial; {@code 0} antes da primeira amostra */
+        volatile double latencyNanos;
+        volatile boolean healthy = true;
+
+        Endpoint(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        synchronized void recordLatency(long nanos) {
+            latencyNanos = latencyNanos == 0 ? nanos : latencyNanos + LATENCY_WEIGHT * (nanos - latencyNanos);
+        }
+    }
+
+    /**
+     * Reserva de um endpoint para uma tentativa.
+     */
+    public final class Lease {
+        private final Endpoint endpoint;
+        private final long start = System.nanoTime();
+        private boolean released;
+
+        private Lease(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String baseUrl() {
+            return endpoint.baseUrl;
+        }
+
+        /**
+         * @param error {@code null} se a tentativa respondeu; cancelamentos não contam como falha
+         */
+        public void release(Throwable error) {
+            if (released) return;
+            released = true;
+            endpoint.inFlight.decrementAndGet();
+            if (error == null) {
+                endpoint.recordLatency(System.nanoTime() - start);
+                endpoint.consecutiveFailures.set(0);
+            } else if (isEndpointFailure(error)) {
+                endpoint.failures.increment();
+                if (endpoint.consecutiveFailures.incrementAndGet() >= maxFailures && endpoint.healthy) {
+                    endpoint.healthy = false;
+                    System.err.println("🩺 Endpoint " + endpoint.baseUrl + " fora da rotação após "
+                            + maxFailures + " falhas seguidas");
+                }
+            }
+        }
+    }
+}
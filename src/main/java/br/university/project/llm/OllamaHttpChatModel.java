@@ -0,0 +1,322 @@
+package br.university.project.llm;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolParameters;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cliente de {@code /api/chat} do Ollama sobre OkHttp, no mesmo formato de
+ * requisição do {@code OllamaChatModel} do langchain4j.
+ * <p>
+ * Existe para que o prazo da tentativa chegue à conexão: cada requisição é registrada no
+ * {@link CallDeadline} do {@link ToolScope} corrente, com timeout igual ao tempo restante, e
+ * cancelar a tentativa aborta a requisição em andamento. Não há retentativas internas; elas
+ * ficam com a cadeia de modelos do runner.
+ * <p>
+ * Em modo streaming ({@code stream: true}) a resposta chega em linhas NDJSON: o tempo até o primeiro
+ * pedaço de cada turno vai para o {@link CallTimings} do escopo e, quando a conversa já executou
+ * ferramentas e o turno é só texto livre, a geração pode ser interrompida depois de
+ * {@code stopAfterChars} caracteres ({@code <= 0} desliga). Só os eventos das ferramentas são
+ * avaliados, mas o modelo ainda poderia chamar outra ferramenta depois do texto: a interrupção fica
+ * registrada no {@link CallTimings} para que a corretude dessas execuções seja sinalizada.
+ * <p>
+ * O array {@code tools} é montado uma vez por conjunto de especificações e reaproveitado. O tamanho
+ * dele e as contagens de tokens que o Ollama devolve ({@code prompt_eval_count}, {@code eval_count})
+ * vão para o {@link CallTimings} a cada turno.
+ * <p>
+ * Com {@code keepAlive}, toda requisição leva o {@code keep_alive}: sem ele o Ollama aplica o padrão
+ * dele (5m) a cada chat e desfaz o pedido feito no aquecimento.
+ */
+public final class OllamaHttpChatModel implements ChatLanguageModel {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final TypeReference<Map<String, Object>> ARGUMENTS = new TypeReference<>() {
+    };
+    /** poucas entradas: uma por configuração e variante de especificação */
+    private static final Map<List<ToolSpecification>, ToolsJson> TOOLS_JSON = new ConcurrentHashMap<>();
+
+    private final OkHttpClient client;
+    private final String chatUrl;
+    private final String modelName;
+    private final double temperature;
+    private final boolean streaming;
+    /** {@code <= 0} desliga a parada antecipada */
+    private final int stopAfterChars;
+    /** {@code null} deixa o padrão do servidor */
+    private final String keepAlive;
+
+    /**
+     * @param client  cliente compartilhado (pool de conexões); o timeout por chamada é aplicado aqui
+     * @param timeout limite de cada requisição fora de uma tentativa com prazo
+     */
+    public OllamaHttpChatModel(OkHttpClient client, String baseUrl, String modelName, double temperature,
+                               Duration timeout) {
+        this(client, baseUrl, modelName, temperature, timeout, false, 0);
+    }
+
+    public OllamaHttpChatModel(OkHttpClient client, String baseUrl, String modelName, double temperature,
+                               Duration timeout, boolean streaming, int stopAfterChars) {
+        this(client, baseUrl, modelName, temperature, timeout, streaming, stopAfterChars, null);
+    }
+
+    /**
+     * @param keepAlive enviado como {@code keep_alive} em toda requisição ({@code null} para omitir)
+     */
+    public OllamaHttpChatModel(OkHttpClient client, String baseUrl, String modelName, double temperature,
+                               Duration timeout, boolean streaming, int stopAfterChars, String keepAlive) {
+        this.keepAlive = keepAlive;
+        this.client = client.newBuilder().callTimeout(timeout).readTimeout(Duration.ZERO).build();
+        this.chatUrl = (baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl) + "/api/chat";
+        this.modelName = modelName;
+        this.temperature = temperature;
+        this.streaming = streaming;
+        this.stopAfterChars = stopAfterChars;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        return chat(messages, List.of());
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        return chat(messages, toolSpecifications);
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        return chat(messages, List.of(toolSpecification));
+    }
+
+    private Response<AiMessage> chat(List<ChatMessage> messages, List<ToolSpecification> tools) {
+        CallDeadline deadline = ToolScope.deadline();
+        if (deadline != null) deadline.check();
+
+        ToolsJson toolsJson = tools.isEmpty() ? null : toolsJson(tools);
+        byte[] body;
+        try {
+            body = MAPPER.writeValueAsBytes(request(messages, toolsJson));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CallTimings timings = ToolScope.timings();
+        if (timings != null) timings.recordRequest(toolsJson == null ? 0 : toolsJson.bytes);
+        Call call = client.newCall(new Request.Builder()
+                .url(chatUrl)
+                .post(RequestBody.create(body, JSON))
+                .build());
+        if (deadline != null) deadline.register(call);
+        long start = System.nanoTime();
+        try (okhttp3.Response response = call.execute()) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful() || responseBody == null) {
+                throw new RuntimeException("Ollama /api/chat HTTP " + response.code() + ": "
+                        + (responseBody == null ? "" : responseBody.string()));
+            }
+            Response<AiMessage> result = streaming
+                    ? readStream(responseBody.source(), start, afterToolResults(messages))
+                    : toResponse(MAPPER.readTree(responseBody.string()));
+            if (timings != null) timings.recordTokens(result.tokenUsage());
+            return result;
+        } catch (IOException e) {
+            if (deadline != null) {
+                // timeout da chamada = prazo vencido; cancelamento = outra tentativa venceu ou o runner desistiu
+                if (!deadline.isCancelled() && deadline.remainingNanos() <= 0) deadline.cancel("deadline exceeded");
+                if (deadline.isCancelled()) {
+                    CancellationException cancelled = new CancellationException(deadline.getCancelReason());
+                    cancelled.initCause(e);
+                    throw cancelled;
+                }
+            }
+            throw new UncheckedIOException(e);
+        } finally {
+            if (deadline != null) deadline.unregister(call);
+        }
+    }
+
+    private ObjectNode request(List<ChatMessage> messages, ToolsJson tools) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("model", modelName);
+        ArrayNode out = root.putArray("messages");
+        for (ChatMessage m : messages) {
+            ObjectNode node = out.addObject();
+            if (m instanceof SystemMessage) {
+                node.put("role", "system");
+                node.put("content", ((SystemMessage) m).text());
+            } else if (m instanceof UserMessage) {
+                node.put("role", "user");
+                node.put("content", ((UserMessage) m).singleText());
+            } else if (m instanceof AiMessage) {
+                AiMessage ai = (AiMessage) m;
+                node.put("role", "assistant");
+                node.put("content", ai.text() == null ? "" : ai.text());
+                if (ai.hasToolExecutionRequests()) {
+                    ArrayNode calls = node.putArray("tool_calls");
+                    for (ToolExecutionRequest r : ai.toolExecutionRequests()) {
+                        ObjectNode fn = calls.addObject().putObject("function");
+                        fn.put("name", r.name());
+                        fn.set("arguments", arguments(r.arguments()));
+                    }
+                }
+            } else if (m instanceof ToolExecutionResultMessage) {
+                node.put("role", "tool");
+                node.put("content", ((ToolExecutionResultMessage) m).text());
+            } else {
+                throw new IllegalArgumentException("Unsupported message type: " + m.type());
+            }
+        }
+        // só leitura depois de montado, então o mesmo nó serve a requisições concorrentes
+        if (tools != null) root.set("tools", tools.node);
+        root.putObject("options").put("temperature", temperature);
+        root.put("stream", streaming);
+        if (keepAlive != null) root.put("keep_alive", keepAlive);
+        return root;
+    }
+
+    /**
+     * Array {@code tools} de uma requisição e o tamanho dele serializado.
+     */
+    static final class ToolsJson {
+        final ArrayNode node;
+        final int bytes;
+
+        private ToolsJson(ArrayNode node, int bytes) {
+            this.node = node;
+            this.bytes = bytes;
+        }
+    }
+
+    static ToolsJson toolsJson(List<ToolSpecification> tools) {
+        ToolsJson cached = TOOLS_JSON.get(tools);
+        if (cached != null) return cached;
+        return TOOLS_JSON.computeIfAbsent(List.copyOf(tools), OllamaHttpChatModel::buildToolsJson);
+    }
+
+    private static ToolsJson buildToolsJson(List<ToolSpecification> tools) {
+        ArrayNode toolsNode = MAPPER.createArrayNode();
+        for (ToolSpecification spec : tools) {
+            ObjectNode tool = toolsNode.addObject();
+            tool.put("type", "function");
+            ObjectNode fn = tool.putObject("function");
+            fn.put("name", spec.name());
+            fn.put("description", spec.description());
+            ToolParameters params = spec.parameters();
+            ObjectNode schema = fn.putObject("parameters");
+            schema.put("type", params == null ? "object" : params.type());
+            schema.set("properties", MAPPER.valueToTree(params == null ? Map.of() : params.properties()));
+            schema.set("required", MAPPER.valueToTree(params == null ? List.of() : params.required()));
+        }
+        try {
+            return new ToolsJson(toolsNode, MAPPER.writeValueAsBytes(toolsNode).length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean afterToolResults(List<ChatMessage> messages) {
+        for (ChatMessage m : messages) {
+            if (m instanceof ToolExecutionResultMessage) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Junta os pedaços de um turno em streaming. Fechar a resposta antes do pedaço final (parada
+     * antecipada) descarta a conexão e o Ollama deixa de gerar.
+     */
+    private Response<AiMessage> readStream(BufferedSource source, long start, boolean mayStopEarly) throws IOException {
+        CallTimings timings = ToolScope.timings();
+        StringBuilder content = new StringBuilder();
+        List<ToolExecutionRequest> requests = new ArrayList<>();
+        boolean first = true;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isBlank()) continue;
+            JsonNode chunk = MAPPER.readTree(line);
+            if (chunk.hasNonNull("error")) throw new RuntimeException("Ollama /api/chat: " + chunk.get("error").asText());
+            JsonNode message = chunk.path("message");
+            String piece = message.path("content").asText("");
+            JsonNode calls = message.path("tool_calls");
+            boolean hasCalls = calls.isArray() && calls.size() > 0;
+            if (first && (hasCalls || !piece.isEmpty())) {
+                first = false;
+                if (timings != null) timings.recordFirstToken(System.nanoTime() - start);
+            }
+            content.append(piece);
+            if (hasCalls) requests.addAll(toolRequests(calls));
+
+            if (chunk.path("done").asBoolean(false)) {
+                TokenUsage usage = new TokenUsage(chunk.path("prompt_eval_count").asInt(0), chunk.path("eval_count").asInt(0));
+                if (!requests.isEmpty()) return Response.from(AiMessage.from(requests), usage, FinishReason.TOOL_EXECUTION);
+                return Response.from(AiMessage.from(content.toString()), usage, FinishReason.STOP);
+            }
+            if (mayStopEarly && stopAfterChars > 0 && requests.isEmpty() && content.length() >= stopAfterChars) {
+                if (timings != null) timings.recordEarlyStop();
+                return Response.from(AiMessage.from(content.toString()), null, FinishReason.LENGTH);
+            }
+        }
+        throw new IOException("Ollama /api/chat stream ended before the final chunk");
+    }
+
+    private static JsonNode arguments(String json) {
+        try {
+            return MAPPER.readTree(json == null || json.isBlank() ? "{}" : json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Response<AiMessage> toResponse(JsonNode root) throws IOException {
+        JsonNode message = root.path("message");
+        TokenUsage usage = new TokenUsage(root.path("prompt_eval_count").asInt(0), root.path("eval_count").asInt(0));
+        JsonNode calls = message.path("tool_calls");
+        if (calls.isArray() && calls.size() > 0) {
+            return Response.from(AiMessage.from(toolRequests(calls)), usage, FinishReason.TOOL_EXECUTION);
+        }
+        return Response.from(AiMessage.from(message.path("content").asText("")), usage, FinishReason.STOP);
+    }
+
+    private static List<ToolExecutionRequest> toolRequests(JsonNode calls) throws IOException {
+        List<ToolExecutionRequest> requests = new ArrayList<>(calls.size());
+        for (JsonNode call : calls) {
+            JsonNode fn = call.path("function");
+            Map<String, Object> args = MAPPER.convertValue(fn.path("arguments"), ARGUMENTS);
+            requests.add(ToolExecutionRequest.builder()
+                    .name(fn.path("name").asText())
+                    .arguments(MAPPER.writeValueAsString(args == null ? Map.of() : args))
+                    .build());
+        }
+        return requests;
+    }
+}
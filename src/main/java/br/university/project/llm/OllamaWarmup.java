@@ -0,0 +1,57 @@
+package br.university.project.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Carrega um modelo no Ollama antes de um lote de execuções: {@code POST /api/generate} sem prompt
+ * carrega o modelo e {@code keep_alive} pede que ele fique residente pelo tempo indicado.
+ */
+public final class OllamaWarmup {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final String keepAlive;
+
+    public OllamaWarmup(String baseUrl, String keepAlive, Duration timeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.keepAlive = keepAlive;
+        this.client = new OkHttpClient.Builder()
+                .callTimeout(timeout)
+                .readTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Bloqueia até o modelo estar carregado; devolve o tempo gasto em nanossegundos.
+     */
+    public long load(String model) throws IOException {
+        ObjectNode body = MAPPER.createObjectNode();
+        body.put("model", model);
+        body.put("keep_alive", keepAlive);
+        body.put("stream", false);
+
+        Request request = new Request.Builder()
+                .url(baseUrl + "/api/generate")
+                .post(RequestBody.create(MAPPER.writeValueAsBytes(body), JSON))
+                .build();
+        long start = System.nanoTime();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("warm-up of " + model + " failed: HTTP " + response.code());
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
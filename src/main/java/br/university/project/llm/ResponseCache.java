@@ -0,0 +1,236 @@
+package br.university.project.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Cache em disco de respostas do modelo, endereçado pelo SHA-256 da requisição completa
+ * (modelo, temperatura, réplica, mensagens e especificações de ferramentas).
+ * <p>
+ * Cada entrada é um arquivo {@code <dir>/<aa>/<sha256>.json}. O índice em memória mantém a ordem de
+ * acesso (LRU) e o total de bytes; ao passar de {@code maxBytes} as entradas menos usadas são apagadas.
+ * A ordem sobrevive entre processos pela data de modificação, atualizada a cada acerto.
+ */
+public final class ResponseCache {
+
+    public enum Mode {
+        /** sem cache */
+        OFF,
+        /** lê e grava */
+        ON,
+        /** ignora as entradas existentes, mas grava as respostas novas */
+        REFRESH;
+
+        public static Mode parse(String raw, Mode defaultValue) {
+            if (raw == null || raw.isBlank()) return defaultValue;
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final File dir;
+    private final long maxBytes;
+    private final Mode mode;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(File dir, long maxBytes, Mode mode) throws IOException {
+        this.dir = dir;
+        this.maxBytes = Math.max(1, maxBytes);
+        this.mode = mode;
+        dir.mkdirs();
+        loadIndex();
+    }
+
+    private void loadIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(dir.toPath(), 2)) {
+            walk.filter(p -> p.getFileName().toString().endsWith(".json")).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+        synchronized (this) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                long size = p.toFile().length();
+                index.put(name.substring(0, name.length() - ".json".length()), size);
+                totalBytes += size;
+            }
+            evictIfNeeded();
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Chave da requisição: SHA-256 em hexadecimal.
+     */
+    public static String key(String model, String replica, List<ChatMessage> messages, Object toolSpecifications) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, "v1");
+        update(digest, model);
+        update(digest, replica == null ? "" : replica);
+        update(digest, ChatMessageSerializer.messagesToJson(messages));
+        update(digest, String.valueOf(toolSpecifications));
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        // prefixo de tamanho para que fronteiras entre partes não gerem colisões
+        digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    /**
+     * Resposta guardada para {@code key}, ou {@code null}. No modo {@link Mode#REFRESH} sempre {@code null}.
+     */
+    public Response<AiMessage> get(String key) {
+        if (mode != Mode.ON) return null;
+        synchronized (this) {
+            if (index.get(key) == null) {
+                misses.increment();
+                return null;
+            }
+        }
+        File f = file(key);
+        try {
+            JsonNode node = MAPPER.readTree(f);
+            AiMessage message = (AiMessage) ChatMessageDeserializer.messageFromJson(node.get("message").asText());
+            TokenUsage usage = new TokenUsage(intOrNull(node.get("inputTokens")), intOrNull(node.get("outputTokens")));
+            FinishReason finish = node.hasNonNull("finishReason") ? FinishReason.valueOf(node.get("finishReason").asText()) : null;
+            f.setLastModified(System.currentTimeMillis());
+            hits.increment();
+            return new Response<>(message, usage, finish);
+        } catch (IOException | RuntimeException e) {
+            // apagada por outra thread ou corrompida: trata como ausente
+            remove(key);
+            misses.increment();
+            return null;
+        }
+    }
+
+    public void put(String key, String model, Response<AiMessage> response) {
+        if (mode == Mode.OFF || response == null || response.content() == null) return;
+
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("model", model);
+        node.put("message", ChatMessageSerializer.messageToJson(response.content()));
+        TokenUsage usage = response.tokenUsage();
+        if (usage != null) {
+            if (usage.inputTokenCount() != null) node.put("inputTokens", usage.inputTokenCount());
+            if (usage.outputTokenCount() != null) node.put("outputTokens", usage.outputTokenCount());
+        }
+        if (response.finishReason() != null) node.put("finishReason", response.finishReason().name());
+
+        File f = file(key);
+        try {
+            byte[] bytes = MAPPER.writeValueAsBytes(node);
+            f.getParentFile().mkdirs();
+            Path tmp = Files.createTempFile(f.getParentFile().toPath(), key, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                Long previous = index.put(key, (long) bytes.length);
+                totalBytes += bytes.length - (previous == null ? 0 : previous);
+                writes.increment();
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  Não foi possível gravar a resposta no cache: " + e.getMessage());
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = index.remove(key);
+        if (size != null) totalBytes -= size;
+        file(key).delete();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            file(eldest.getKey()).delete();
+            evictions.increment();
+        }
+    }
+
+    private File file(String key) {
+        return new File(new File(dir, key.substring(0, 2)), key + ".json");
+    }
+
+    private static Integer intOrNull(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asInt();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized int getEntries() {
+        return index.size();
+    }
+
+    public synchronized long getBytes() {
+        return totalBytes;
+    }
+}
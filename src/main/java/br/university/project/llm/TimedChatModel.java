@@ -0,0 +1,57 @@
+package br.university.project.llm;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * Decorador que mede cada turno do modelo e registra no {@link CallTimings} do
+ * {@link ToolScope} corrente, quando houver.
+ */
+final class TimedChatModel implements ChatLanguageModel {
+
+    private final ChatLanguageModel delegate;
+
+    TimedChatModel(ChatLanguageModel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        long start = System.nanoTime();
+        try {
+            return delegate.generate(messages);
+        } finally {
+            record(start);
+        }
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        long start = System.nanoTime();
+        try {
+            return delegate.generate(messages, toolSpecifications);
+        } finally {
+            record(start);
+        }
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        long start = System.nanoTime();
+        try {
+            return delegate.generate(messages, toolSpecification);
+        } finally {
+            record(start);
+        }
+    }
+
+    private static void record(long start) {
+        CallTimings timings = ToolScope.timings();
+        if (timings != null) timings.recordModelTurn(System.nanoTime() - start);
+    }
+}
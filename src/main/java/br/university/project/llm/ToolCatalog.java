@@ -0,0 +1,232 @@
+package br.university.project.llm;
+
+import br.university.project.tools.BankToolsA;
+import br.university.project.tools.BankToolsB;
+import br.university.project.tools.BankToolsC;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolParameters;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Especificações de ferramentas de cada configuração, geradas uma única vez a partir das
+ * anotações {@code @Tool}/{@code @P} em vez de a cada execução.
+ * <p>
+ * As especificações vão em todo turno do modelo, então o tamanho delas pesa no processamento do
+ * prompt. A variante compacta ({@link #forConfig(String, boolean)}) manda só o essencial: a
+ * primeira oração da descrição de cada ferramenta e esquemas de parâmetros sem descrições (tipos,
+ * enums e campos obrigatórios ficam).
+ */
+public final class ToolCatalog {
+
+    private static final Map<String, ToolCatalog> CATALOGS = new ConcurrentHashMap<>();
+    /** nome gerado pelo compilador quando o nome real do parâmetro não está no bytecode */
+    private static final Pattern POSITIONAL_NAME = Pattern.compile("arg\\d+");
+
+    private final String config;
+    private final boolean compact;
+    private final List<Entry> entries;
+
+    private ToolCatalog(String config, boolean compact, List<Class<?>> toolClasses) {
+        this.config = config;
+        this.compact = compact;
+        List<Entry> list = new ArrayList<>();
+        for (Class<?> toolClass : toolClasses) {
+            for (Method method : toolClass.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Tool.class)) {
+                    ToolSpecification spec = ToolSpecifications.toolSpecificationFrom(method);
+                    list.add(new Entry(toolClass, method, compact ? compact(spec) : spec));
+                }
+            }
+        }
+        List<ToolSpecification> specs = new ArrayList<>();
+        for (Entry e : list) specs.add(e.specification);
+        ToolSpecifications.validateSpecifications(specs);
+        this.entries = Collections.unmodifiableList(list);
+    }
+
+    public static ToolCatalog forConfig(String config) {
+        return forConfig(config, false);
+    }
+
+    public static ToolCatalog forConfig(String config, boolean compact) {
+        return CATALOGS.computeIfAbsent(compact ? config + ":compact" : config,
+                k -> new ToolCatalog(config, compact, toolClassesFor(config)));
+    }
+
+    static List<Class<?>> toolClassesFor(String config) {
+        switch (config) {
+            case "CONF1":
+                return List.of(BankToolsA.class);
+            case "CONF2":
+                return List.of(BankToolsB.class);
+            case "CONF3":
+                return List.of(BankToolsA.class, BankToolsB.class);
+            case "CONF4":
+                return List.of(BankToolsB.class, BankToolsA.class);
+            case "CONF5":
+                return List.of(BankToolsC.class);
+            default:
+                throw new IllegalArgumentException("Unknown configuration: " + config);
+        }
+    }
+
+    public String getConfig() {
+        return config;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Tamanho, em bytes UTF-8, do array {@code tools} que o {@link OllamaHttpChatModel} manda a
+     * cada turno com estas especificações.
+     */
+    public int specBytes() {
+        return OllamaHttpChatModel.toolsJson(specifications()).bytes;
+    }
+
+    public List<ToolSpecification> specifications() {
+        List<ToolSpecification> specs = new ArrayList<>(entries.size());
+        for (Entry e : entries) specs.add(e.specification);
+        return specs;
+    }
+
+    /**
+     * Liga as especificações pré-compiladas às instâncias informadas. Útil para quem monta o
+     * próprio AiServices por execução sem repetir a varredura de anotações.
+     */
+    public Map<ToolSpecification, ToolExecutor> bind(Object... toolObjects) {
+        Map<ToolSpecification, ToolExecutor> executors = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            Object target = null;
+            for (Object o : toolObjects) {
+                if (e.toolClass.isInstance(o)) {
+                    target = o;
+                    break;
+                }
+            }
+            if (target == null) {
+                throw new IllegalArgumentException("Missing instance of " + e.toolClass.getSimpleName() + " for " + config);
+            }
+            executors.put(e.specification, new DefaultToolExecutor(target, e.method));
+        }
+        return executors;
+    }
+
+    /**
+     * Executores que resolvem a instância alvo no {@link ToolScope} da thread corrente,
+     * para uso por um assistente compartilhado entre execuções. Com o prazo do escopo vencido ou a
+     * tentativa cancelada, a ferramenta não executa e a conversa é interrompida.
+     */
+    Map<ToolSpecification, ToolExecutor> scopedExecutors() {
+        Map<ToolSpecification, ToolExecutor> executors = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            executors.put(e.specification, (request, memoryId) -> {
+                CallDeadline deadline = ToolScope.deadline();
+                if (deadline != null) deadline.check();
+                long start = System.nanoTime();
+                try {
+                    return new DefaultToolExecutor(ToolScope.target(e.toolClass), e.method).execute(request, memoryId);
+                } finally {
+                    CallTimings timings = ToolScope.timings();
+                    if (timings != null) timings.recordToolCall(System.nanoTime() - start);
+                }
+            });
+        }
+        return executors;
+    }
+
+    /**
+     * Primeira oração da descrição (sem o "and return if the operation was successful or not"
+     * repetido em toda ferramenta) e parâmetros sem descrição, recursivamente. Sem {@code -parameters}
+     * os parâmetros se chamam {@code arg0}, {@code arg1}...: esses mantêm a descrição do {@code @P},
+     * a única pista de qual é a conta e qual é o valor.
+     */
+    static ToolSpecification compact(ToolSpecification spec) {
+        ToolSpecification.Builder builder = ToolSpecification.builder()
+                .name(spec.name())
+                .description(compactDescription(spec.description()));
+        ToolParameters params = spec.parameters();
+        if (params != null) {
+            Map<String, Map<String, Object>> properties = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Object>> p : params.properties().entrySet()) {
+                Map<String, Object> property = withoutDescriptions(p.getValue());
+                Object description = p.getValue().get("description");
+                if (description != null && POSITIONAL_NAME.matcher(p.getKey()).matches()) {
+                    property.put("description", description);
+                }
+                properties.put(p.getKey(), property);
+            }
+            builder.parameters(ToolParameters.builder()
+                    .type(params.type())
+                    .properties(properties)
+                    .required(params.required())
+                    .build());
+        }
+        return builder.build();
+    }
+
+    static String compactDescription(String description) {
+        if (description == null) return null;
+        int end = description.length();
+        int clause = description.indexOf(" and return");
+        if (clause > 0) end = clause;
+        int sentence = description.indexOf('.');
+        if (sentence > 0 && sentence < end) end = sentence;
+        return description.substring(0, end).trim();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> withoutDescriptions(Map<String, Object> schema) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : schema.entrySet()) {
+            Object v = e.getValue();
+            switch (e.getKey()) {
+                case "description":
+                    continue;
+                case "items":
+                    if (v instanceof Map) v = withoutDescriptions((Map<String, Object>) v);
+                    break;
+                case "properties":
+                    if (v instanceof Map) {
+                        Map<String, Object> properties = new LinkedHashMap<>();
+                        for (Map.Entry<String, Object> p : ((Map<String, Object>) v).entrySet()) {
+                            properties.put(p.getKey(), p.getValue() instanceof Map
+                                    ? withoutDescriptions((Map<String, Object>) p.getValue()) : p.getValue());
+                        }
+                        v = properties;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            out.put(e.getKey(), v);
+        }
+        return out;
+    }
+
+    private static final class Entry {
+        final Class<?> toolClass;
+        final Method method;
+        final ToolSpecification specification;
+
+        Entry(Class<?> toolClass, Method method, ToolSpecification specification) {
+            this.toolClass = toolClass;
+            this.method = method;
+            this.specification = specification;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package br.university.project.llm;
+
+/**
+ * Associa as instâncias de ferramentas de uma execução à thread corrente, permitindo que
+ * um assistente em cache despache as chamadas de ferramenta para os objetos daquela execução.
+ * <p>
+ * O AiServices executa as ferramentas na mesma thread que chamou {@code chat}, então o escopo
+ * deve ser aberto na thread que faz a chamada ao assistente.
+ */
+public final class ToolScope implements AutoCloseable {
+
+    private static final ThreadLocal<ToolScope> CURRENT = new ThreadLocal<>();
+
+    private final Object[] targets;
+    private final CallTimings timings;
+    private final String replica;
+    private final CallDeadline deadline;
+    private final ToolScope previous;
+
+    private ToolScope(Object[] targets, CallTimings timings, String replica, CallDeadline deadline,
+                      ToolScope previous) {
+        this.targets = targets;
+        this.timings = timings;
+        this.replica = replica;
+        this.deadline = deadline;
+        this.previous = previous;
+    }
+
+    public static ToolScope open(Object... targets) {
+        return open(null, targets);
+    }
+
+    /**
+     * Abre o escopo registrando turnos do modelo e execuções de ferramenta em {@code timings}.
+     */
+    public static ToolScope open(CallTimings timings, Object... targets) {
+        return open(timings, null, targets);
+    }
+
+    /**
+     * Como {@link #open(CallTimings, Object...)}, identificando a réplica da execução (ex.: {@code run-3})
+     * para o {@link ResponseCache}.
+     */
+    public static ToolScope open(CallTimings timings, String replica, Object... targets) {
+        return open(timings, replica, null, targets);
+    }
+
+    /**
+     * Como {@link #open(CallTimings, String, Object...)}, sujeito a {@code deadline}: as requisições ao
+     * Ollama respeitam o prazo e, depois de cancelado, nenhuma ferramenta do escopo é executada.
+     */
+    public static ToolScope open(CallTimings timings, String replica, CallDeadline deadline, Object... targets) {
+        ToolScope scope = new ToolScope(targets.clone(), timings, replica, deadline, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static CallTimings timings() {
+        ToolScope scope = CURRENT.get();
+        return scope == null ? null : scope.timings;
+    }
+
+    static String replica() {
+        ToolScope scope = CURRENT.get();
+        return scope == null ? null : scope.replica;
+    }
+
+    static CallDeadline deadline() {
+        ToolScope scope = CURRENT.get();
+        return scope == null ? null : scope.deadline;
+    }
+
+    static Object target(Class<?> toolClass) {
+        ToolScope scope = CURRENT.get();
+        if (scope == null) {
+            throw new IllegalStateException("No tool scope bound to thread " + Thread.currentThread().getName());
+        }
+        for (Object t : scope.targets) {
+            if (toolClass.isInstance(t)) return t;
+        }
+        throw new IllegalStateException("Tool scope has no instance of " + toolClass.getSimpleName());
+    }
+
+    @Override
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
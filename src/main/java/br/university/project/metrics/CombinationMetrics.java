@@ -0,0 +1,41 @@
+package br.university.project.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de uma combinação CONFIG × PROMPT × SCENARIO.
+ */
+public final class CombinationMetrics implements CombinationMetricsMBean {
+
+    final String config;
+    final String prompt;
+    final String scenario;
+    final LongAdder completed = new LongAdder();
+    final LongAdder correct = new LongAdder();
+
+    CombinationMetrics(String config, String prompt, String scenario) {
+        this.config = config;
+        this.prompt = prompt;
+        this.scenario = scenario;
+    }
+
+    public String key() {
+        return config + "-" + prompt + "-" + scenario;
+    }
+
+    @Override
+    public long getRunsCompleted() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getRunsCorrect() {
+        return correct.sum();
+    }
+
+    @Override
+    public double getCorrectnessRatio() {
+        long total = completed.sum();
+        return total == 0 ? 0.0 : (double) correct.sum() / total;
+    }
+}
@@ -0,0 +1,13 @@
+package br.university.project.metrics;
+
+/**
+ * Visão JMX de uma combinação ({@code br.university.project:type=Combination,name=CONF-P-S}).
+ */
+public interface CombinationMetricsMBean {
+
+    long getRunsCompleted();
+
+    long getRunsCorrect();
+
+    double getCorrectnessRatio();
+}
@@ -0,0 +1,419 @@
+package br.university.project.metrics;
+
+import br.university.project.llm.CircuitBreaker;
+import br.university.project.llm.ResponseCache;
+import br.university.project.util.CallLogger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores ao vivo da varredura, expostos como MBeans JMX e em texto Prometheus
+ * ({@link MetricsServer}). Atualizações são {@link LongAdder}s, sem lock no caminho dos workers.
+ */
+public final class SweepMetrics implements SweepMetricsMBean {
+
+    static final String DOMAIN = "br.university.project";
+
+    private final long startNanos = System.nanoTime();
+    private final long toolEventsAtStart = CallLogger.totalEvents();
+    private final AtomicLong planned = new AtomicLong();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+    private final LongAdder llmCalls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private volatile Collection<CircuitBreaker> breakers = List.of();
+    private final LongAdder modelLoads = new LongAdder();
+    private final LongAdder modelSwitches = new LongAdder();
+    private volatile String loadedModel;
+    private final Map<String, CombinationMetrics> combinations = new ConcurrentSkipListMap<>();
+    private volatile MBeanServer registeredWith;
+    private volatile ResponseCache responseCache;
+
+    public void setRunsPlanned(long runs) {
+        planned.set(runs);
+    }
+
+    public void runStarted() {
+        inFlight.increment();
+    }
+
+    public void runCompleted(String config, String prompt, String scenario, boolean runCorrect) {
+        inFlight.decrement();
+        complete(config, prompt, scenario, runCorrect);
+    }
+
+    /**
+     * Execução concluída numa sessão anterior e relida do journal: conta como concluída,
+     * sem passar por {@link #runStarted()}.
+     */
+    public void runReplayed(String config, String prompt, String scenario, boolean runCorrect) {
+        replayed.increment();
+        complete(config, prompt, scenario, runCorrect);
+    }
+
+    private void complete(String config, String prompt, String scenario, boolean runCorrect) {
+        completed.increment();
+        CombinationMetrics c = combination(config, prompt, scenario);
+        c.completed.increment();
+        if (runCorrect) {
+            correct.increment();
+            c.correct.increment();
+        }
+    }
+
+    public void runFailed() {
+        inFlight.decrement();
+        failed.increment();
+    }
+
+    /**
+     * O prazo da execução venceu: as tentativas foram abortadas e a execução fica registrada como cancelada.
+     */
+    public void runCancelled() {
+        inFlight.decrement();
+        cancelled.increment();
+    }
+
+    /**
+     * Execução cancelada numa sessão anterior e relida do journal (não entra em {@code replayed},
+     * que conta só as concluídas).
+     */
+    public void runCancelledReplayed() {
+        cancelled.increment();
+    }
+
+    /**
+     * A tentativa terminou sem resposta e a execução vai para o lote do próximo modelo.
+     */
+    public void runDeferred() {
+        inFlight.decrement();
+        deferred.increment();
+        fallbacks.increment();
+    }
+
+    /**
+     * O scheduler carregou {@code model} antes de um lote; conta troca se for outro modelo.
+     */
+    public synchronized void modelLoaded(String model) {
+        modelLoads.increment();
+        if (loadedModel != null && !loadedModel.equals(model)) modelSwitches.increment();
+        loadedModel = model;
+    }
+
+    /** uma tentativa de chamada ao assistente */
+    public void llmCall() {
+        llmCalls.increment();
+    }
+
+    public void llmRetry() {
+        retries.increment();
+    }
+
+    public void llmTimeout() {
+        timeouts.increment();
+    }
+
+    public void llmHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * Um hedge foi para outro modelo: o servidor carrega um segundo modelo, como numa troca de lote.
+     */
+    public void hedgeModelSwitch() {
+        modelSwitches.increment();
+    }
+
+    public void llmHedgeWon() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Circuit breakers por modelo cujo estado é exposto.
+     */
+    public void setCircuitBreakers(Collection<CircuitBreaker> breakers) {
+        this.breakers = List.copyOf(breakers);
+    }
+
+    /**
+     * Cache de respostas cujos acertos, faltas, gravações e evicções são expostos.
+     */
+    public void setResponseCache(ResponseCache cache) {
+        this.responseCache = cache;
+    }
+
+    public CombinationMetrics combination(String config, String prompt, String scenario) {
+        String key = config + "-" + prompt + "-" + scenario;
+        CombinationMetrics c = combinations.get(key);
+        if (c != null) return c;
+        return combinations.computeIfAbsent(key, k -> {
+            CombinationMetrics created = new CombinationMetrics(config, prompt, scenario);
+            MBeanServer server = registeredWith;
+            if (server != null) register(server, created);
+            return created;
+        });
+    }
+
+    /**
+     * Registra o MBean da varredura e os das combinações (atuais e futuras) no servidor da plataforma.
+     */
+    public synchronized void registerMBeans() {
+        if (registeredWith != null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Sweep");
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("⚠️  Não foi possível registrar o MBean da varredura: " + e.getMessage());
+            return;
+        }
+        registeredWith = server;
+        for (CombinationMetrics c : combinations.values()) register(server, c);
+    }
+
+    private static void register(MBeanServer server, CombinationMetrics c) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Combination,name=" + c.key());
+            if (!server.isRegistered(name)) server.registerMBean(c, name);
+        } catch (JMException e) {
+            System.err.println("⚠️  Não foi possível registrar o MBean de " + c.key() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getRunsPlanned() {
+        return planned.get();
+    }
+
+    @Override
+    public long getRunsCompleted() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getRunsReplayed() {
+        return replayed.sum();
+    }
+
+    @Override
+    public long getRunsInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getRunsFailed() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getRunsDeferred() {
+        return deferred.sum();
+    }
+
+    @Override
+    public long getRunsCancelled() {
+        return cancelled.sum();
+    }
+
+    @Override
+    public long getRunsCorrect() {
+        return correct.sum();
+    }
+
+    @Override
+    public double getCorrectnessRatio() {
+        long total = completed.sum();
+        return total == 0 ? 0.0 : (double) correct.sum() / total;
+    }
+
+    @Override
+    public long getLlmCalls() {
+        return llmCalls.sum();
+    }
+
+    @Override
+    public double getLlmCallsPerSecond() {
+        return perSecond(llmCalls.sum());
+    }
+
+    @Override
+    public long getLlmRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getLlmFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public long getLlmTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getLlmHedges() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getLlmHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public long getModelLoads() {
+        return modelLoads.sum();
+    }
+
+    @Override
+    public long getModelSwitches() {
+        return modelSwitches.sum();
+    }
+
+    @Override
+    public long getLlmCacheHits() {
+        ResponseCache cache = responseCache;
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    @Override
+    public long getLlmCacheMisses() {
+        ResponseCache cache = responseCache;
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    @Override
+    public long getToolEvents() {
+        return CallLogger.totalEvents() - toolEventsAtStart;
+    }
+
+    @Override
+    public double getToolEventsPerSecond() {
+        return perSecond(getToolEvents());
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    private double perSecond(long count) {
+        double elapsed = getElapsedSeconds();
+        return elapsed <= 0 ? 0.0 : count / elapsed;
+    }
+
+    /**
+     * Formato de exposição texto do Prometheus (0.0.4). Taxas ficam a cargo de {@code rate()}
+     * sobre os contadores.
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        metric(sb, "banktools_runs_planned", "gauge", "Runs scheduled for this sweep", planned.get());
+        metric(sb, "banktools_runs_completed_total", "counter", "Runs completed", completed.sum());
+        metric(sb, "banktools_runs_replayed_total", "counter", "Runs recovered from the journal on resume", replayed.sum());
+        metric(sb, "banktools_runs_in_flight", "gauge", "Runs currently executing", inFlight.sum());
+        metric(sb, "banktools_runs_failed_total", "counter", "Runs that ended with an error", failed.sum());
+        metric(sb, "banktools_runs_deferred_total", "counter", "Run attempts deferred to the next model's batch", deferred.sum());
+        metric(sb, "banktools_runs_cancelled_total", "counter", "Runs cancelled when their deadline expired", cancelled.sum());
+        metric(sb, "banktools_runs_correct_total", "counter", "Runs evaluated as correct", correct.sum());
+        metric(sb, "banktools_llm_calls_total", "counter", "Assistant call attempts", llmCalls.sum());
+        metric(sb, "banktools_llm_retries_total", "counter", "Assistant call retries", retries.sum());
+        metric(sb, "banktools_llm_fallbacks_total", "counter", "Switches to the next fallback model", fallbacks.sum());
+        metric(sb, "banktools_llm_timeouts_total", "counter", "Assistant calls that hit the run timeout", timeouts.sum());
+        metric(sb, "banktools_llm_hedges_total", "counter", "Hedged attempts sent to the next model", hedges.sum());
+        metric(sb, "banktools_llm_hedge_wins_total", "counter", "Hedged attempts that answered first", hedgeWins.sum());
+        header(sb, "banktools_circuit_state", "gauge", "Circuit breaker state per model (0 closed, 1 half-open, 2 open)");
+        for (CircuitBreaker b : breakers) {
+            sample(sb, "banktools_circuit_state", "{model=\"" + escape(b.getName()) + "\"}", b.getState().ordinal());
+        }
+        header(sb, "banktools_circuit_opened_total", "counter", "Times the circuit breaker opened per model");
+        for (CircuitBreaker b : breakers) {
+            sample(sb, "banktools_circuit_opened_total", "{model=\"" + escape(b.getName()) + "\"}", b.getTimesOpened());
+        }
+        metric(sb, "banktools_model_loads_total", "counter", "Model warm-ups requested by the scheduler", modelLoads.sum());
+        metric(sb, "banktools_model_switches_total", "counter", "Warm-ups of a model other than the previous one, plus hedges to another model", modelSwitches.sum());
+        ResponseCache cache = responseCache;
+        if (cache != null) {
+            metric(sb, "banktools_llm_cache_hits_total", "counter", "Model responses served from the disk cache", cache.getHits());
+            metric(sb, "banktools_llm_cache_misses_total", "counter", "Cache lookups that went to the model", cache.getMisses());
+            metric(sb, "banktools_llm_cache_writes_total", "counter", "Model responses stored in the cache", cache.getWrites());
+            metric(sb, "banktools_llm_cache_evictions_total", "counter", "Cache entries evicted by the size bound", cache.getEvictions());
+            metric(sb, "banktools_llm_cache_bytes", "gauge", "Bytes held by the response cache", cache.getBytes());
+        }
+        metric(sb, "banktools_tool_events_total", "counter", "Tool-call events logged by CallLogger", getToolEvents());
+        metric(sb, "banktools_sweep_elapsed_seconds", "gauge", "Seconds since the sweep started", getElapsedSeconds());
+
+        header(sb, "banktools_combination_runs_total", "counter", "Runs completed per combination");
+        for (CombinationMetrics c : combinations.values()) {
+            sample(sb, "banktools_combination_runs_total", labels(c), c.completed.sum());
+        }
+        header(sb, "banktools_combination_correct_total", "counter", "Correct runs per combination");
+        for (CombinationMetrics c : combinations.values()) {
+            sample(sb, "banktools_combination_correct_total", labels(c), c.correct.sum());
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        metric(sb, "jvm_memory_heap_used_bytes", "gauge", "Used heap", heap.getUsed());
+        metric(sb, "jvm_memory_heap_committed_bytes", "gauge", "Committed heap", heap.getCommitted());
+        metric(sb, "jvm_memory_heap_max_bytes", "gauge", "Maximum heap", heap.getMax());
+        header(sb, "jvm_gc_collections_total", "counter", "GC collections");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(sb, "jvm_gc_collections_total", "{gc=\"" + escape(gc.getName()) + "\"}", gc.getCollectionCount());
+        }
+        header(sb, "jvm_gc_collection_seconds_total", "counter", "Time spent in GC");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(sb, "jvm_gc_collection_seconds_total", "{gc=\"" + escape(gc.getName()) + "\"}", gc.getCollectionTime() / 1000.0);
+        }
+        return sb.toString();
+    }
+
+    private static String labels(CombinationMetrics c) {
+        return "{config=\"" + escape(c.config) + "\",prompt=\"" + escape(c.prompt) + "\",scenario=\"" + escape(c.scenario) + "\"}";
+    }
+
+    private static void metric(StringBuilder sb, String name, String type, String help, double value) {
+        header(sb, name, type, help);
+        sample(sb, name, "", value);
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,61 @@
+package br.university.project.metrics;
+
+/**
+ * Visão JMX do andamento da varredura ({@code br.university.project:type=Sweep}).
+ */
+public interface SweepMetricsMBean {
+
+    long getRunsPlanned();
+
+    long getRunsCompleted();
+
+    /** execuções relidas do journal ao retomar a varredura (incluídas em RunsCompleted) */
+    long getRunsReplayed();
+
+    long getRunsInFlight();
+
+    long getRunsFailed();
+
+    /** tentativas de execução adiadas para o lote do próximo modelo */
+    long getRunsDeferred();
+
+    /** execuções canceladas por vencimento do prazo (fora de RunsCompleted) */
+    long getRunsCancelled();
+
+    long getRunsCorrect();
+
+    double getCorrectnessRatio();
+
+    long getLlmCalls();
+
+    double getLlmCallsPerSecond();
+
+    long getLlmRetries();
+
+    long getLlmFallbacks();
+
+    long getLlmTimeouts();
+
+    /** tentativas de hedge disparadas para o próximo modelo */
+    long getLlmHedges();
+
+    /** hedges que responderam antes da tentativa original */
+    long getLlmHedgeWins();
+
+    /** cargas de modelo pedidas pelo scheduler (uma por lote) */
+    long getModelLoads();
+
+    /** cargas de um modelo diferente do anterior */
+    long getModelSwitches();
+
+    /** respostas do modelo servidas pelo cache em disco (0 sem cache) */
+    long getLlmCacheHits();
+
+    long getLlmCacheMisses();
+
+    long getToolEvents();
+
+    double getToolEventsPerSecond();
+
+    double getElapsedSeconds();
+}
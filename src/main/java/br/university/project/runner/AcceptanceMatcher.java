@@ -0,0 +1,214 @@
+package br.university.project.runner;
+
+import br.university.project.model.OperationType;
+import br.university.project.util.CallEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Critério de aceitação de um prompt+cenário compilado uma única vez.
+ * <p>
+ * Cada operação esperada vira um padrão: exato ({@code withdraw(BC12345,1000.0)}), alternativa
+ * ({@code a OR b}) ou curinga por método ({@code returnValue(<...>)}). A avaliação tem a mesma
+ * semântica da busca gulosa original (cada esperado é procurado a partir da posição seguinte ao
+ * último casamento; um esperado ausente não avança a posição), mas em tempo linear: uma passada
+ * indexa, por busca em hash, a última ocorrência de cada padrão, e outra passada casa em ordem.
+ */
+final class AcceptanceMatcher {
+
+    /**
+     * Operação observada tipada. {@code text} é a mesma string que a avaliação sempre gerou
+     * ({@code metodo(conta,valor)} com {@code ->FAILED} quando falhou).
+     */
+    static final class Operation {
+        final String method;
+        final String account;
+        final String value;
+        final boolean failed;
+        final String text;
+        final String key;
+
+        Operation(String method, String account, String value, boolean failed) {
+            this.method = String.valueOf(method);
+            this.account = account;
+            this.value = value;
+            this.failed = failed;
+            this.text = method + '(' + account + ',' + value + ')' + (failed ? "->FAILED" : "");
+            this.key = MainRunner.normalize(text);
+        }
+
+        static Operation of(CallEvent e) {
+            OperationType type = e.getType();
+            String account = e.getAccount();
+            if (account == null && type == null) {
+                // evento com parâmetros não tipados
+                return of(e.getMethod(), e.getParams(), e.getResult());
+            }
+            String method = isTypedOperation(e.getMethod())
+                    ? methodFor(type == null ? "" : type.name())
+                    : e.getMethod();
+            return new Operation(method, account, Double.toString(e.getValue()), !e.getResult());
+        }
+
+        static Operation of(String method, Map<?, ?> params, boolean result) {
+            String mapped = method;
+            if (isTypedOperation(method)) {
+                Object typeObj = params.get("type");
+                mapped = methodFor(typeObj == null ? "" : typeObj.toString());
+            }
+            return new Operation(mapped, String.valueOf(params.get("account")),
+                    String.valueOf(params.get("value")), !result);
+        }
+    }
+
+    private static final int EXACT = 0;
+    private static final int ANY_OF = 1;
+    private static final int METHOD = 2;
+
+    private final List<String> expectedOps;
+    private final int[] kinds;
+    /** chaves normalizadas por padrão (uma por alternativa); para METHOD, o nome do método */
+    private final String[][] keys;
+    /** esperado inteiro normalizado, usado na acurácia posicional */
+    private final String[] normalizedExpected;
+    private final Map<String, int[]> patternsByKey = new HashMap<>();
+    private final Map<String, int[]> patternsByMethod = new HashMap<>();
+
+    private AcceptanceMatcher(List<String> expectedOps) {
+        this.expectedOps = List.copyOf(expectedOps);
+        int n = expectedOps.size();
+        this.kinds = new int[n];
+        this.keys = new String[n][];
+        this.normalizedExpected = new String[n];
+
+        for (int k = 0; k < n; k++) {
+            String expected = expectedOps.get(k);
+            normalizedExpected[k] = MainRunner.normalize(expected);
+            if (expected.contains(" OR ")) {
+                String[] options = expected.split(" OR ");
+                kinds[k] = ANY_OF;
+                keys[k] = new String[options.length];
+                for (int i = 0; i < options.length; i++) {
+                    keys[k][i] = MainRunner.normalize(options[i]);
+                    index(patternsByKey, keys[k][i], k);
+                }
+            } else if (expected.contains("<")) {
+                kinds[k] = METHOD;
+                keys[k] = new String[]{expected.split("\\(")[0]};
+                index(patternsByMethod, keys[k][0], k);
+            } else {
+                kinds[k] = EXACT;
+                keys[k] = new String[]{normalizedExpected[k]};
+                index(patternsByKey, keys[k][0], k);
+            }
+        }
+    }
+
+    static AcceptanceMatcher compile(List<String> expectedOps) {
+        return new AcceptanceMatcher(expectedOps);
+    }
+
+    List<String> getExpectedOps() {
+        return expectedOps;
+    }
+
+    MainRunner.EvaluationResult evaluate(List<Operation> observed) {
+        int n = kinds.length;
+
+        // 1ª passada: última posição em que cada padrão casa
+        int[] last = new int[n];
+        Arrays.fill(last, -1);
+        for (int j = 0; j < observed.size(); j++) {
+            Operation op = observed.get(j);
+            int[] byKey = patternsByKey.get(op.key);
+            if (byKey != null) for (int k : byKey) last[k] = j;
+            int[] byMethod = patternsByMethod.get(op.method);
+            if (byMethod != null) for (int k : byMethod) last[k] = j;
+        }
+
+        // 2ª passada: casamento guloso em ordem; só avança quando há ocorrência garantida adiante
+        List<String> mismatches = new ArrayList<>();
+        int idx = 0;
+        for (int k = 0; k < n; k++) {
+            if (last[k] < idx) {
+                mismatches.add("Expected not found: " + expectedOps.get(k));
+                continue;
+            }
+            while (!matches(k, observed.get(idx))) idx++;
+            idx++;
+        }
+
+        List<String> observedOps = new ArrayList<>(observed.size());
+        List<String> observedKeys = new ArrayList<>(observed.size());
+        for (Operation op : observed) {
+            observedOps.add(op.text);
+            observedKeys.add(op.key);
+        }
+
+        int matches = 0;
+        int minSize = Math.min(n, observed.size());
+        for (int i = 0; i < minSize; i++) {
+            if (normalizedExpected[i].equals(observed.get(i).key)) matches++;
+        }
+        double sequenceAccuracy = minSize == 0 ? 0.0 : (double) matches / minSize;
+
+        return new MainRunner.EvaluationResult(mismatches.isEmpty(), mismatches, observedOps, n, sequenceAccuracy,
+                CombinationAccumulator.hashOps(observedKeys));
+    }
+
+    private boolean matches(int k, Operation op) {
+        switch (kinds[k]) {
+            case METHOD:
+                return keys[k][0].equals(op.method);
+            case ANY_OF:
+                for (String key : keys[k]) {
+                    if (key.equals(op.key)) return true;
+                }
+                return false;
+            default:
+                return keys[k][0].equals(op.key);
+        }
+    }
+
+    private static void index(Map<String, int[]> index, String key, int pattern) {
+        int[] current = index.get(key);
+        if (current == null) {
+            index.put(key, new int[]{pattern});
+        } else if (current[current.length - 1] != pattern) {
+            int[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = pattern;
+            index.put(key, next);
+        }
+    }
+
+    /**
+     * Ferramentas genéricas cujo evento leva o tipo da operação: {@code executeOperation} (BankToolsB)
+     * e o lote {@code executeOperations} (BankToolsC, um evento por operação).
+     */
+    static boolean isTypedOperation(String method) {
+        return "executeOperation".equals(method) || "executeOperations".equals(method);
+    }
+
+    static String methodFor(String typeName) {
+        if (typeName == null) return "executeOperation";
+        switch (typeName.toUpperCase(Locale.ROOT)) {
+            case "WITHDRAW":
+                return "withdraw";
+            case "DEPOSIT":
+                return "deposit";
+            case "TAX":
+                return "taxes";
+            case "RETURN":
+                return "returnValue";
+            case "PAYMENT":
+                return "payment";
+            default:
+                return "executeOperation";
+        }
+    }
+}
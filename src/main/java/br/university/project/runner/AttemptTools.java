@@ -0,0 +1,45 @@
+package br.university.project.runner;
+
+import br.university.project.ledger.Ledger;
+import br.university.project.ledger.LedgerSession;
+import br.university.project.tools.BankToolsA;
+import br.university.project.tools.BankToolsB;
+import br.university.project.tools.BankToolsC;
+import br.university.project.util.CallLogger;
+
+/**
+ * Estado de uma tentativa de chamada ao modelo: cenário, log e ferramentas próprios. Tentativas
+ * concorrentes (hedge) ou repetidas não compartilham efeitos; a execução fica com os da vencedora.
+ */
+final class AttemptTools {
+    final CallLogger logger;
+    final BankToolsA toolsA;
+    final BankToolsB toolsB;
+    final BankToolsC toolsC;
+    /** lançamentos da tentativa no ledger compartilhado; {@code null} sem ledger */
+    final LedgerSession ledger;
+
+    AttemptTools(ScenarioController.Scenario scenario, String runId) {
+        this(ScenarioRules.standard().compile(scenario.name()), runId);
+    }
+
+    AttemptTools(ScenarioRules.Compiled rules, String runId) {
+        this(rules, runId, null);
+    }
+
+    AttemptTools(ScenarioRules.Compiled rules, String runId, Ledger ledger) {
+        ScenarioController controller = new ScenarioController(rules);
+        this.logger = new CallLogger();
+        this.ledger = ledger == null ? null : ledger.session(runId);
+        this.toolsA = new BankToolsA(controller, logger, runId, this.ledger);
+        this.toolsB = new BankToolsB(controller, logger, runId, this.ledger);
+        this.toolsC = new BankToolsC(controller, logger, runId, this.ledger);
+    }
+
+    /**
+     * A tentativa não venceu: estorna os seus lançamentos no ledger.
+     */
+    void discard() {
+        if (ledger != null) ledger.rollback();
+    }
+}
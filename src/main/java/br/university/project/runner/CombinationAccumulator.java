@@ -0,0 +1,189 @@
+package br.university.project.runner;
+
+import br.university.project.util.LatencyHistogram;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Métricas de uma combinação atualizadas a cada execução concluída, em memória constante.
+ * <p>
+ * Corretude e uso de ferramentas são contadores; a acurácia de sequência usa média/variância
+ * de Welford; a consistência compara o hash de 64 bits da sequência normalizada de operações
+ * observadas de cada execução com o da primeira. Latências vão para histogramas de tamanho fixo
+ * por modelo que respondeu. Execuções canceladas por prazo só são contadas à parte; as interrompidas
+ * no texto em streaming entram na corretude e também são contadas, para sinalizá-la.
+ */
+final class CombinationAccumulator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private int totalRuns;
+    private int correctRuns;
+    private int cancelledRuns;
+    private int earlyStoppedRuns;
+    /** contador mutável por ferramenta, sem boxing a cada execução */
+    private final Map<String, int[]> toolUsage = new HashMap<>();
+    private double accuracyMean;
+    private double accuracyM2;
+    private long firstOpsHash;
+    private boolean consistent = true;
+    private final Map<String, ModelLatency> latencyByModel = new TreeMap<>();
+    /** execuções com latência registrada, turnos do modelo (idas e voltas), tempo e custo somados */
+    private int timedRuns;
+    private long roundTrips;
+    private long runNanos;
+    private int toolSpecBytes;
+    private long toolSpecBytesSent;
+    private long promptTokens;
+    private long completionTokens;
+
+    synchronized void add(RunOutcome outcome) {
+        if (outcome.cancelled) {
+            cancelledRuns++;
+            return;
+        }
+        add(outcome.evaluation.correct, outcome.toolsUsed,
+                outcome.evaluation.sequenceAccuracy, outcome.evaluation.observedOpsHash);
+        if (outcome.latency != null) {
+            if (outcome.latency.earlyStops > 0) earlyStoppedRuns++;
+            latencyByModel.computeIfAbsent(outcome.latency.model, m -> new ModelLatency()).add(outcome.latency);
+            timedRuns++;
+            roundTrips += outcome.latency.modelTurnNanos.length;
+            runNanos += outcome.latency.runNanos;
+            toolSpecBytes = Math.max(toolSpecBytes, outcome.latency.toolSpecBytes);
+            toolSpecBytesSent += outcome.latency.toolSpecBytesSent;
+            promptTokens += outcome.latency.promptTokens;
+            completionTokens += outcome.latency.completionTokens;
+        }
+    }
+
+    synchronized void addTo(ConfigComparison.Row row) {
+        row.runs += totalRuns;
+        row.correctRuns += correctRuns;
+        row.earlyStoppedRuns += earlyStoppedRuns;
+        row.timedRuns += timedRuns;
+        row.roundTrips += roundTrips;
+        row.runNanos += runNanos;
+        row.toolSpecBytes = Math.max(row.toolSpecBytes, toolSpecBytes);
+        row.toolSpecBytesSent += toolSpecBytesSent;
+        row.promptTokens += promptTokens;
+        row.completionTokens += completionTokens;
+    }
+
+    synchronized void add(boolean correct, List<String> toolsUsed, double sequenceAccuracy, long observedOpsHash) {
+        totalRuns++;
+        if (correct) correctRuns++;
+        for (String tool : toolsUsed) {
+            if (tool != null) toolUsage.computeIfAbsent(tool, t -> new int[1])[0]++;
+        }
+
+        double delta = sequenceAccuracy - accuracyMean;
+        accuracyMean += delta / totalRuns;
+        accuracyM2 += delta * (sequenceAccuracy - accuracyMean);
+
+        if (totalRuns == 1) {
+            firstOpsHash = observedOpsHash;
+        } else if (observedOpsHash != firstOpsHash) {
+            consistent = false;
+        }
+    }
+
+    /**
+     * Execuções encerradas, concluídas ou canceladas: a combinação termina quando chega ao planejado.
+     */
+    synchronized int getFinishedRuns() {
+        return totalRuns + cancelledRuns;
+    }
+
+    synchronized MainRunner.AggregatedMetrics toMetrics() {
+        double correctness = totalRuns == 0 ? 0.0 : (double) correctRuns / totalRuns;
+        double variance = totalRuns < 2 ? 0.0 : accuracyM2 / (totalRuns - 1);
+        Map<String, Integer> usage = new HashMap<>();
+        for (Map.Entry<String, int[]> e : toolUsage.entrySet()) usage.put(e.getKey(), e.getValue()[0]);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (Map.Entry<String, ModelLatency> e : latencyByModel.entrySet()) latency.put(e.getKey(), e.getValue().toMap());
+        return new MainRunner.AggregatedMetrics(totalRuns, correctRuns, cancelledRuns, earlyStoppedRuns, correctness,
+                totalRuns > 0 && consistent, usage, accuracyMean, variance, latency);
+    }
+
+    private static final class ModelLatency {
+        int runs;
+        long retries;
+        long fallbacks;
+        long earlyStops;
+        long roundTrips;
+        int toolSpecBytes;
+        long toolSpecBytesSent;
+        long promptTokens;
+        long completionTokens;
+        final LatencyHistogram run = new LatencyHistogram();
+        final LatencyHistogram firstToolCall = new LatencyHistogram();
+        final LatencyHistogram toolCallGap = new LatencyHistogram();
+        final LatencyHistogram modelTurn = new LatencyHistogram();
+        final LatencyHistogram toolCall = new LatencyHistogram();
+        final LatencyHistogram firstToken = new LatencyHistogram();
+
+        void add(RunLatency l) {
+            runs++;
+            retries += Math.max(0, l.attempts - 1);
+            fallbacks += l.fallbacks;
+            run.recordNanos(l.runNanos);
+            if (l.firstToolCallNanos >= 0) firstToolCall.recordNanos(l.firstToolCallNanos);
+            for (long v : l.toolGapNanos) toolCallGap.recordNanos(v);
+            for (long v : l.modelTurnNanos) modelTurn.recordNanos(v);
+            for (long v : l.toolCallNanos) toolCall.recordNanos(v);
+            for (long v : l.firstTokenNanos) firstToken.recordNanos(v);
+            earlyStops += l.earlyStops;
+            roundTrips += l.modelTurnNanos.length;
+            toolSpecBytes = Math.max(toolSpecBytes, l.toolSpecBytes);
+            toolSpecBytesSent += l.toolSpecBytesSent;
+            promptTokens += l.promptTokens;
+            completionTokens += l.completionTokens;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("runs", runs);
+            m.put("retries", retries);
+            m.put("fallbacks", fallbacks);
+            m.put("runMillis", run.toMillisMap());
+            m.put("firstToolCallMillis", firstToolCall.toMillisMap());
+            m.put("toolCallGapMillis", toolCallGap.toMillisMap());
+            m.put("modelTurnMillis", modelTurn.toMillisMap());
+            m.put("toolCallMillis", toolCall.toMillisMap());
+            m.put("firstTokenMillis", firstToken.toMillisMap());
+            m.put("earlyStops", earlyStops);
+            m.put("roundTripsPerRun", perRun(roundTrips));
+            m.put("toolSpecBytes", toolSpecBytes);
+            m.put("toolSpecBytesPerRun", perRun(toolSpecBytesSent));
+            m.put("promptTokensPerRun", perRun(promptTokens));
+            m.put("completionTokensPerRun", perRun(completionTokens));
+            return m;
+        }
+
+        private double perRun(long total) {
+            return runs == 0 ? 0.0 : (double) total / runs;
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre as operações normalizadas, separadas por {@code '\n'}.
+     */
+    static long hashOps(Iterable<String> normalizedOps) {
+        long h = FNV_OFFSET;
+        for (String op : normalizedOps) {
+            for (int i = 0; i < op.length(); i++) {
+                char c = op.charAt(i);
+                h = (h ^ (c & 0xff)) * FNV_PRIME;
+                h = (h ^ (c >>> 8)) * FNV_PRIME;
+            }
+            h = (h ^ '\n') * FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,95 @@
+package br.university.project.runner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Comparação das configurações de ferramentas por prompt: corretude, idas e voltas ao modelo
+ * (turnos), tempo de parede e custo da superfície de ferramentas (bytes de especificação e tokens)
+ * por execução. Alimentada com cada combinação concluída; mostra, por exemplo, quantos turnos a
+ * ferramenta em lote (CONF5) economiza em relação a CONF1–CONF4 e quanto prompt as seis
+ * ferramentas de CONF3/CONF4 custam a cada turno.
+ */
+final class ConfigComparison {
+
+    static final class Row {
+        int runs;
+        int correctRuns;
+        int earlyStoppedRuns;
+        int timedRuns;
+        long roundTrips;
+        long runNanos;
+        int toolSpecBytes;
+        long toolSpecBytesSent;
+        long promptTokens;
+        long completionTokens;
+
+        double roundTripsPerRun() {
+            return perRun(roundTrips);
+        }
+
+        double promptTokensPerRun() {
+            return perRun(promptTokens);
+        }
+
+        private double perRun(long total) {
+            return timedRuns == 0 ? 0.0 : (double) total / timedRuns;
+        }
+
+        double runMillisMean() {
+            return timedRuns == 0 ? 0.0 : runNanos / 1_000_000.0 / timedRuns;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("runs", runs);
+            m.put("correctRuns", correctRuns);
+            m.put("correctnessRatio", runs == 0 ? 0.0 : (double) correctRuns / runs);
+            m.put("earlyStoppedRuns", earlyStoppedRuns);
+            m.put("roundTripsPerRun", roundTripsPerRun());
+            m.put("runMillisMean", runMillisMean());
+            m.put("toolSpecBytes", toolSpecBytes);
+            m.put("toolSpecBytesPerRun", perRun(toolSpecBytesSent));
+            m.put("promptTokensPerRun", promptTokensPerRun());
+            m.put("completionTokensPerRun", perRun(completionTokens));
+            return m;
+        }
+    }
+
+    /** prompt → configuração → linha */
+    private final Map<String, Map<String, Row>> rows = new TreeMap<>();
+
+    synchronized void add(String config, String prompt, CombinationAccumulator accumulator) {
+        accumulator.addTo(rows.computeIfAbsent(prompt, p -> new TreeMap<>()).computeIfAbsent(config, c -> new Row()));
+    }
+
+    synchronized boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Row>> prompt : rows.entrySet()) {
+            Map<String, Object> configs = new LinkedHashMap<>();
+            for (Map.Entry<String, Row> config : prompt.getValue().entrySet()) {
+                configs.put(config.getKey(), config.getValue().toMap());
+            }
+            out.put(prompt.getKey(), configs);
+        }
+        return out;
+    }
+
+    synchronized void print() {
+        System.out.println("\n=== CONFIGURAÇÕES: TURNOS, TEMPO E PROMPT POR EXECUÇÃO ===");
+        for (Map.Entry<String, Map<String, Row>> prompt : rows.entrySet()) {
+            System.out.println(prompt.getKey() + ":");
+            for (Map.Entry<String, Row> config : prompt.getValue().entrySet()) {
+                Row r = config.getValue();
+                System.out.printf("  %-6s %5.2f turnos/run  %9.1f ms/run  %6d B specs  %8.1f tokens prompt/run"
+                                + "  corretas %d/%d%n", config.getKey(), r.roundTripsPerRun(), r.runMillisMean(),
+                        r.toolSpecBytes, r.promptTokensPerRun(), r.correctRuns, r.runs);
+            }
+        }
+    }
+}
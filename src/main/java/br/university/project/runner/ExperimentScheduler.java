@@ -0,0 +1,437 @@
+package br.university.project.runner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agenda as execuções da grade CONFIG × PROMPT × SCENARIO × RUN num pool limitado de workers.
+ * <p>
+ * As tarefas são intercaladas por índice de execução (run 1 de todas as combinações, depois run 2, ...),
+ * então nenhuma combinação monopoliza os workers. Cada execução concluída alimenta o
+ * {@link CombinationAccumulator} da sua combinação, que é entregue ao listener quando a última
+ * execução termina; só as combinações em andamento ocupam memória.
+ * <p>
+ * Execuções já concluídas (relidas do {@link SweepJournal}) entram direto nos acumuladores e não
+ * são reagendadas; combinações que já estavam completas são entregues ao listener antes da primeira tarefa.
+ * <p>
+ * Com uma cadeia de modelos, as execuções rodam em fases por afinidade de modelo: todas as tarefas
+ * vão primeiro para o modelo principal; as que o executor adia ({@link DeferToNextModel}) formam o
+ * lote da fase seguinte, que só começa quando a anterior termina e depois de aquecer o próximo modelo.
+ * Assim o Ollama troca de modelo no máximo uma vez por fase, em vez de a cada execução com fallback.
+ * O lote adiado é limitado a {@link #DEFERRED_PER_WORKER} tarefas por worker: ao chegar nele (circuito
+ * aberto no modelo principal, por exemplo), a fase para de puxar tarefas, o lote roda nos modelos
+ * seguintes e o modelo principal é aquecido de novo antes de continuar a carga.
+ * <p>
+ * Cargas geradas ({@link #stream}) chegam por um iterador e não são materializadas: as tarefas são
+ * produzidas sob demanda, com no máximo {@code 2 × concorrência} submetidas ao pool, e o acumulador
+ * de uma combinação só existe entre a sua primeira tarefa e a última execução.
+ */
+public class ExperimentScheduler {
+
+    public static final class Combination {
+        final String config;
+        final String prompt;
+        final String scenario;
+
+        public Combination(String config, String prompt, String scenario) {
+            this.config = config;
+            this.prompt = prompt;
+            this.scenario = scenario;
+        }
+
+        public String key() {
+            return config + "-" + prompt + "-" + scenario;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Combination)) return false;
+            Combination that = (Combination) o;
+            return config.equals(that.config) && prompt.equals(that.prompt) && scenario.equals(that.scenario);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(config, prompt, scenario);
+        }
+
+        @Override
+        public String toString() {
+            return key();
+        }
+    }
+
+    public static final class RunTask {
+        final Combination combination;
+        final int runIdx;
+        /** posição na cadeia de modelos que esta tentativa usa */
+        final int modelIdx;
+        /** tentativas e tempo gastos nos modelos anteriores da cadeia */
+        final int priorAttempts;
+        final long priorNanos;
+
+        RunTask(Combination combination, int runIdx) {
+            this(combination, runIdx, 0, 0, 0);
+        }
+
+        RunTask(Combination combination, int runIdx, int modelIdx, int priorAttempts, long priorNanos) {
+            this.combination = combination;
+            this.runIdx = runIdx;
+            this.modelIdx = modelIdx;
+            this.priorAttempts = priorAttempts;
+            this.priorNanos = priorNanos;
+        }
+
+        RunTask onNextModel(DeferToNextModel deferral) {
+            return new RunTask(combination, runIdx, modelIdx + 1,
+                    priorAttempts + deferral.attempts, priorNanos + deferral.nanos);
+        }
+    }
+
+    /**
+     * Lançada pelo executor quando o modelo da tarefa esgotou as tentativas: a execução é refeita
+     * no próximo modelo da cadeia, no lote adiado. Se não houver próximo modelo, a causa é propagada.
+     */
+    static final class DeferToNextModel extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int attempts;
+        final long nanos;
+
+        DeferToNextModel(int attempts, long nanos, Throwable cause) {
+            super(cause);
+            this.attempts = attempts;
+            this.nanos = nanos;
+        }
+    }
+
+    interface RunExecutor {
+        RunOutcome execute(RunTask task) throws Exception;
+    }
+
+    interface ModelWarmer {
+        void warm(String model) throws Exception;
+    }
+
+    interface CombinationListener {
+        void onCombinationCompleted(Combination combination, CombinationAccumulator accumulator);
+    }
+
+    /** tarefas adiadas por worker que uma fase acumula antes de rodar o lote no próximo modelo */
+    static final int DEFERRED_PER_WORKER = 64;
+
+    private final int concurrency;
+    private final long pauseMillis;
+    private final List<String> models;
+    private final ModelWarmer warmer;
+
+    public ExperimentScheduler(int concurrency, long pauseMillis) {
+        this(concurrency, pauseMillis, List.of(), null);
+    }
+
+    /**
+     * @param models cadeia de modelos, do principal ao último fallback
+     * @param warmer chamado antes de cada fase com o modelo da fase ({@code null} para não aquecer)
+     */
+    ExperimentScheduler(int concurrency, long pauseMillis, List<String> models, ModelWarmer warmer) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be >= 1: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.models = List.copyOf(models);
+        this.warmer = warmer;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Fila de tarefas intercalando as combinações: para cada índice de execução, uma tarefa de cada
+     * combinação, na ordem recebida. As tarefas são geradas sob demanda a partir de
+     * (runIdx, posição da combinação), então a memória não cresce com {@code runsPerCombination}.
+     */
+    static Iterator<RunTask> interleave(List<Combination> combinations, int runsPerCombination) {
+        return interleave(combinations, runsPerCombination, Map.of());
+    }
+
+    /**
+     * Como {@link #interleave(List, int)}, pulando os índices presentes em {@code completed}.
+     */
+    static Iterator<RunTask> interleave(List<Combination> combinations, int runsPerCombination,
+                                        Map<Combination, ? extends Map<Integer, ?>> completed) {
+        return new Iterator<>() {
+            private int runIdx;
+            private int combination;
+            private RunTask next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && runIdx < runsPerCombination && !combinations.isEmpty()) {
+                    Combination c = combinations.get(combination);
+                    int idx = runIdx;
+                    if (++combination == combinations.size()) {
+                        combination = 0;
+                        runIdx++;
+                    }
+                    Map<Integer, ?> done = completed.get(c);
+                    if (done == null || !done.containsKey(idx)) next = new RunTask(c, idx);
+                }
+                return next != null;
+            }
+
+            @Override
+            public RunTask next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                RunTask task = next;
+                next = null;
+                return task;
+            }
+        };
+    }
+
+    void run(List<Combination> combinations, int runsPerCombination,
+             RunExecutor executor, CombinationListener listener) throws Exception {
+        run(combinations, runsPerCombination, Map.of(), executor, listener);
+    }
+
+    /**
+     * @param completed execuções já concluídas por combinação e índice (base 0), que não são reexecutadas
+     */
+    void run(List<Combination> combinations, int runsPerCombination,
+             Map<Combination, Map<Integer, RunOutcome>> completed,
+             RunExecutor executor, CombinationListener listener) throws Exception {
+        if (combinations.isEmpty() || runsPerCombination <= 0) return;
+
+        Map<Combination, CombinationAccumulator> pending = new HashMap<>();
+        for (Combination c : combinations) {
+            CombinationAccumulator accumulator = new CombinationAccumulator();
+            Map<Integer, RunOutcome> done = completed.getOrDefault(c, Map.of());
+            for (Map.Entry<Integer, RunOutcome> entry : done.entrySet()) {
+                if (entry.getKey() < runsPerCombination) accumulator.add(entry.getValue());
+            }
+            if (accumulator.getFinishedRuns() == runsPerCombination) {
+                listener.onCombinationCompleted(c, accumulator);
+            } else {
+                pending.put(c, accumulator);
+            }
+        }
+
+        runPhases(interleave(combinations, runsPerCombination, completed),
+                executor, listener, pending, runsPerCombination);
+    }
+
+    /**
+     * Como {@link #run(List, int, Map, RunExecutor, CombinationListener)}, para cargas grandes demais
+     * para uma lista: as combinações são consumidas do iterador à medida que há vaga no pool, e as
+     * execuções de cada combinação são agendadas juntas (intercalar por índice de execução manteria
+     * todas as combinações abertas até a última rodada).
+     *
+     * @param completed execuções já concluídas; combinações ausentes do iterador são ignoradas
+     */
+    void stream(Iterator<Combination> combinations, int runsPerCombination,
+                Map<Combination, Map<Integer, RunOutcome>> completed,
+                RunExecutor executor, CombinationListener listener) throws Exception {
+        if (runsPerCombination <= 0) return;
+        Map<Combination, CombinationAccumulator> pending = new HashMap<>();
+        runPhases(new LazyTasks(combinations, runsPerCombination, completed, pending, listener),
+                executor, listener, pending, runsPerCombination);
+    }
+
+    private void runPhases(Iterator<RunTask> first, RunExecutor executor, CombinationListener listener,
+                           Map<Combination, CombinationAccumulator> pending, int runsPerCombination) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, new WorkerThreadFactory());
+        int maxDeferred = concurrency * DEFERRED_PER_WORKER;
+        try {
+            // cada volta consome do iterador até o lote adiado encher, e então esvazia o lote nos modelos seguintes
+            while (first.hasNext()) {
+                Iterator<RunTask> batch = first;
+                for (int phase = 0; batch.hasNext(); phase++) {
+                    if (phase < models.size()) warm(models.get(phase));
+                    // só a fase que puxa do iterador é limitada; as seguintes esvaziam um lote já limitado
+                    List<RunTask> deferred = runPhase(pool, batch, executor, listener, pending,
+                            runsPerCombination, phase == 0 ? maxDeferred : Integer.MAX_VALUE);
+                    if (phase == 0 && first.hasNext() && !deferred.isEmpty()) {
+                        System.out.println("⏸️  " + deferred.size() + " execuções adiadas; rodando o lote no próximo modelo antes de continuar");
+                    }
+                    batch = deferred.iterator();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Executa um lote (todas as tarefas no mesmo modelo) e devolve as tarefas adiadas para o próximo.
+     * As tarefas são retiradas do iterador só quando há vaga: no máximo {@code 2 × concorrência} ficam
+     * submetidas, o bastante para nenhum worker esperar pela próxima. Com {@code maxDeferred} tarefas
+     * adiadas a fase para de retirar tarefas e termina as submetidas; o resto fica no iterador.
+     */
+    private List<RunTask> runPhase(ExecutorService pool, Iterator<RunTask> batch, RunExecutor executor,
+                                   CombinationListener listener, Map<Combination, CombinationAccumulator> pending,
+                                   int runsPerCombination, int maxDeferred) throws Exception {
+        CompletionService<RunTaskResult> completion = new ExecutorCompletionService<>(pool);
+        int maxInFlight = concurrency * 2;
+        int inFlight = 0;
+
+        List<RunTask> deferred = new ArrayList<>();
+        while (true) {
+            while (inFlight < maxInFlight && deferred.size() < maxDeferred && batch.hasNext()) {
+                RunTask task = batch.next();
+                completion.submit(() -> {
+                    RunOutcome outcome;
+                    try {
+                        outcome = executor.execute(task);
+                    } catch (DeferToNextModel deferral) {
+                        return new RunTaskResult(task, null, deferral);
+                    }
+                    // pausa entre execuções para não sobrecarregar o Ollama
+                    if (pauseMillis > 0) {
+                        Thread.sleep(pauseMillis);
+                    }
+                    return new RunTaskResult(task, outcome, null);
+                });
+                inFlight++;
+            }
+            if (inFlight == 0) break;
+
+            RunTaskResult result;
+            try {
+                result = completion.take().get();
+                inFlight--;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw e;
+            }
+
+            if (result.deferral != null) {
+                if (result.task.modelIdx + 1 >= Math.max(1, models.size())) {
+                    Throwable cause = result.deferral.getCause();
+                    if (cause instanceof Exception) throw (Exception) cause;
+                    throw result.deferral;
+                }
+                deferred.add(result.task.onNextModel(result.deferral));
+                continue;
+            }
+
+            Combination c = result.task.combination;
+            CombinationAccumulator accumulator = pending.get(c);
+            accumulator.add(result.outcome);
+            if (accumulator.getFinishedRuns() == runsPerCombination) {
+                listener.onCombinationCompleted(c, pending.remove(c));
+            }
+        }
+        return deferred;
+    }
+
+    private void warm(String model) {
+        if (warmer == null) return;
+        try {
+            warmer.warm(model);
+        } catch (Exception e) {
+            // sem aquecimento o primeiro chat do lote carrega o modelo
+            System.err.println("⚠️  Aquecimento de " + model + " falhou: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tarefas de um iterador de combinações, geradas sob demanda: cada combinação ganha o seu
+     * acumulador (com as execuções já concluídas) ao ser lida, e as que já estavam completas vão
+     * direto ao listener.
+     */
+    private static final class LazyTasks implements Iterator<RunTask> {
+        private final Iterator<Combination> combinations;
+        private final int runsPerCombination;
+        private final Map<Combination, Map<Integer, RunOutcome>> completed;
+        private final Map<Combination, CombinationAccumulator> pending;
+        private final CombinationListener listener;
+
+        private Combination current;
+        private Map<Integer, RunOutcome> done = Map.of();
+        private int nextRun;
+
+        LazyTasks(Iterator<Combination> combinations, int runsPerCombination,
+                  Map<Combination, Map<Integer, RunOutcome>> completed,
+                  Map<Combination, CombinationAccumulator> pending, CombinationListener listener) {
+            this.combinations = combinations;
+            this.runsPerCombination = runsPerCombination;
+            this.completed = completed;
+            this.pending = pending;
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (current != null) {
+                    while (nextRun < runsPerCombination && done.containsKey(nextRun)) nextRun++;
+                    if (nextRun < runsPerCombination) return true;
+                    current = null;
+                }
+                if (!combinations.hasNext()) return false;
+                open(combinations.next());
+            }
+        }
+
+        @Override
+        public RunTask next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return new RunTask(current, nextRun++);
+        }
+
+        private void open(Combination c) {
+            CombinationAccumulator accumulator = new CombinationAccumulator();
+            Map<Integer, RunOutcome> previous = completed.getOrDefault(c, Map.of());
+            for (Map.Entry<Integer, RunOutcome> entry : previous.entrySet()) {
+                if (entry.getKey() < runsPerCombination) accumulator.add(entry.getValue());
+            }
+            if (accumulator.getFinishedRuns() == runsPerCombination) {
+                listener.onCombinationCompleted(c, accumulator);
+                return;
+            }
+            pending.put(c, accumulator);
+            current = c;
+            done = previous;
+            nextRun = 0;
+        }
+    }
+
+    private static final class RunTaskResult {
+        final RunTask task;
+        final RunOutcome outcome;
+        final DeferToNextModel deferral;
+
+        RunTaskResult(RunTask task, RunOutcome outcome, DeferToNextModel deferral) {
+            this.task = task;
+            this.outcome = outcome;
+            this.deferral = deferral;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "experiment-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -1,10 +1,25 @@
 package br.university.project.runner;
 
+import br.university.project.ledger.Ledger;
+import br.university.project.ledger.LedgerSession;
+import br.university.project.llm.CallTimings;
+import br.university.project.llm.ChatClientCache;
+import br.university.project.llm.EndpointRouter;
+import br.university.project.llm.OllamaWarmup;
+import br.university.project.llm.ResponseCache;
+import br.university.project.llm.ToolCatalog;
+import br.university.project.metrics.MetricsServer;
+import br.university.project.metrics.SweepMetrics;
 import br.university.project.model.OperationType;
-import br.university.project.tools.BankToolsA;
-import br.university.project.tools.BankToolsB;
+import br.university.project.standin.OllamaStandInServer;
+import br.university.project.store.ColumnarResultsReader;
+import br.university.project.store.ColumnarResultsWriter;
+import br.university.project.store.JsonlSink;
+import br.university.project.store.ResultsManifest;
+import br.university.project.util.CallEvent;
 import br.university.project.util.CallLogger;
-import dev.langchain4j.service.AiServices;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -12,20 +27,47 @@ import java.io.IOException;
 import java.util.*;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class MainRunner {
 
-    private static final String PROMPT1 = "Transfer 1000 from account BC12345 to the account ND87632 by withdrawing from the first and depositing into the second. If both operations are successful, change 1.50 from the first account. If not, return the value to the account and don't charge the tax.";
-    private static final String PROMPT2 = "Execute withdrawal operations of 500 from account BC3456A one at a time. Repeat until a failure is received, or until this operation has been executed 5 times. Deposit the total value withdrawn in account FG62495S and pay a tax of 10% of the value deposited in the account FG62495S.";
-    private static final String PROMPT3 = "Withdraw 600 from account AG7340H and 700 from account TG23986Q. If one of the operations is not successful, return the value to the other account and don't execute anything else. If both operations are successful, perform a deposit of the summed value into account WS2754T and perform a payment of 1200 in this same account.";
+    static final String PROMPT1 = "Transfer 1000 from account BC12345 to the account ND87632 by withdrawing from the first and depositing into the second. If both operations are successful, change 1.50 from the first account. If not, return the value to the account and don't charge the tax.";
+    static final String PROMPT2 = "Execute withdrawal operations of 500 from account BC3456A one at a time. Repeat until a failure is received, or until this operation has been executed 5 times. Deposit the total value withdrawn in account FG62495S and pay a tax of 10% of the value deposited in the account FG62495S.";
+    static final String PROMPT3 = "Withdraw 600 from account AG7340H and 700 from account TG23986Q. If one of the operations is not successful, return the value to the other account and don't execute anything else. If both operations are successful, perform a deposit of the summed value into account WS2754T and perform a payment of 1200 in this same account.";
 
-    private static final String[] CONFIGS = new String[]{"CONF1", "CONF2", "CONF3", "CONF4"};
-    private static final int RUNS_PER_COMBINATION = 10;
+    /** valores de {@code status} nos resumos de execução */
+    static final String STATUS_COMPLETED = "COMPLETED";
+    static final String STATUS_CANCELLED = "CANCELLED";
+
+    private static final String[] CONFIGS = new String[]{"CONF1", "CONF2", "CONF3", "CONF4", "CONF5"};
+    private static final int RUNS_PER_COMBINATION = getEnvInt("RUNS_PER_COMBINATION", 10);
     private static final long OLLAMA_TIMEOUT_SECONDS = 300;
 
-    interface BankingAssistant {
-        String chat(String userMessage);
-    }
+    private static final ObjectWriter PRETTY_WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    private static volatile EndpointRouter router;
+    private static volatile Set<String> resultsFormats;
+    private static volatile JsonlSink resultsSink;
+    /** índice {@code results/manifest.idx}; {@code null} sem JSONL/JSON ou com {@code RESULTS_MANIFEST=false} */
+    private static volatile ResultsManifest manifest;
+    private static volatile ColumnarResultsWriter columnarWriter;
+    private static volatile SweepJournal journal;
+    private static String sweepId;
+    /** prefixo dos arquivos de resultados: o sweepId, mais o id do shard numa varredura dividida */
+    private static String resultsId;
+    /** {@code null} sem {@code SHARD_ID} */
+    private static SweepClaims claims;
+
+    private static final ChatClientCache CLIENTS = new ChatClientCache();
+    private static final ConfigComparison COMPARISON = new ConfigComparison();
+    /** ledger compartilhado pelas execuções ({@code LEDGER=on}); {@code null} desligado */
+    private static Ledger ledger;
+    static final SweepMetrics METRICS = new SweepMetrics();
+
+    /** cadeia de modelos: o principal e os fallbacks, cada um num lote próprio */
+    static final List<String> MODELS = List.of("mistral:latest", "llama3.1:latest", "llama3:latest");
+    private static final ModelChain CHAIN = new ModelChain(MODELS, CLIENTS, METRICS, chainSettings());
 
     public static void main(String[] args) throws Exception {
         String startFromConfig = getStartConfigFromArgs(args);
@@ -37,6 +79,9 @@ public class MainRunner {
                 (startFromPrompt != null ? startFromPrompt : "") + " " +
                 (startFromScenario != null ? startFromScenario : ""));
 
+        List<OllamaStandInServer> standIns = startStandInsIfRequested();
+        router = openRouter(standIns);
+
         boolean ollamaAvailable = checkOllamaAvailability();
         System.out.println("Ollama available: " + ollamaAvailable);
 
@@ -44,17 +89,510 @@ public class MainRunner {
             System.err.println("ERROR: Ollama is not available. Cannot run experiments without LLM.");
             System.exit(1);
         }
+        router.startHealthChecks(java.time.Duration.ofSeconds(getEnvInt("ENDPOINT_HEALTH_SECONDS", 15)));
+
+        ResponseCache responseCache = openResponseCache();
+        CLIENTS.setResponseCache(responseCache);
+        METRICS.setResponseCache(responseCache);
+        METRICS.setCircuitBreakers(CHAIN.breakers());
+        configureStreaming();
+        configureToolSpecs();
+        CLIENTS.setKeepAlive(keepAlive());
+        WorkloadGenerator workload = workloadFromEnv();
+        ledger = openLedger();
 
         Map<String, List<String>> acceptance = defineAcceptanceCriteria();
         saveAcceptanceToFile(acceptance, new File("results/acceptance_criteria.txt"));
+        Map<String, AcceptanceMatcher> matchers = compileAcceptance(acceptance);
+
+        Map<String, String> prompts = new LinkedHashMap<>();
+        prompts.put("P1", PROMPT1);
+        prompts.put("P2", PROMPT2);
+        prompts.put("P3", PROMPT3);
+
+        List<ExperimentScheduler.Combination> combinations = workload != null ? List.of()
+                : buildCombinations(prompts.keySet(), startFromConfig, startFromPrompt, startFromScenario);
+        Function<ExperimentScheduler.Combination, RunSpec> specs = workload != null
+                ? c -> RunSpec.of(workload.variant(c.prompt))
+                : c -> RunSpec.of(c, prompts, matchers);
+
+        sweepId = resolveSweepId();
+        claims = openClaims(sweepId);
+        resultsId = claims == null ? sweepId : sweepId + "-" + claims.getShardId();
+        resultsFormats = resolveResultsFormats();
+        manifest = openManifest();
+        resultsSink = openResultsSink(resultsId);
+        columnarWriter = openColumnarWriter(resultsId);
+        journal = openJournal(claims == null ? new File("results") : shardDir(), resultsId);
+        Map<ExperimentScheduler.Combination, Map<Integer, RunOutcome>> completed;
+        if (journal == null) {
+            completed = Map.of();
+        } else if (workload != null) {
+            List<String> configs = Arrays.asList(CONFIGS);
+            completed = journal.completedRuns(RUNS_PER_COMBINATION,
+                    c -> configs.contains(c.config) && workload.contains(c));
+        } else {
+            completed = journal.completedRuns(combinations, RUNS_PER_COMBINATION);
+        }
+        long combinationCount = workload != null
+                ? (long) workload.getVariants() * CONFIGS.length : combinations.size();
+
+        ExperimentScheduler scheduler = new ExperimentScheduler(
+                getEnvInt("EXPERIMENT_CONCURRENCY", 1),
+                getEnvInt("RUN_PAUSE_MS", 1000),
+                MODELS, createModelWarmer());
+        System.out.printf("📋 %d combinações x %d execuções, concorrência=%d%n",
+                combinationCount, RUNS_PER_COMBINATION, scheduler.getConcurrency());
+
+        METRICS.setRunsPlanned(combinationCount * RUNS_PER_COMBINATION);
+        if (!completed.isEmpty()) resumeFromJournal(completed, c -> metricsPrompt(c, workload));
+        METRICS.registerMBeans();
+        MetricsServer metricsServer = startMetricsServerIfRequested();
+
+        try {
+            if (claims != null) {
+                Iterator<ExperimentScheduler.Combination> source = workload != null
+                        ? workload.combinations(Arrays.asList(CONFIGS)) : combinations.iterator();
+                scheduler.stream(claims.claiming(source), RUNS_PER_COMBINATION, completed,
+                        task -> executeRun(task, specs.apply(task.combination)),
+                        (c, acc) -> writeAggregated(c, acc, metricsPrompt(c, workload)));
+            } else if (workload != null) {
+                scheduler.stream(workload.combinations(Arrays.asList(CONFIGS)), RUNS_PER_COMBINATION, completed,
+                        task -> executeRun(task, specs.apply(task.combination)),
+                        (c, acc) -> writeAggregated(c, acc, metricsPrompt(c, workload)));
+            } else {
+                scheduler.run(combinations, RUNS_PER_COMBINATION, completed,
+                        task -> executeRun(task, specs.apply(task.combination)),
+                        (c, acc) -> writeAggregated(c, acc, metricsPrompt(c, workload)));
+            }
+        } finally {
+            try {
+                if (resultsSink != null) resultsSink.close();
+            } finally {
+                try {
+                    if (columnarWriter != null) columnarWriter.close();
+                } finally {
+                    try {
+                        if (manifest != null) manifest.close();
+                    } finally {
+                        if (journal != null) journal.close();
+                        if (metricsServer != null) metricsServer.close();
+                    }
+                }
+            }
+        }
+
+        writeComparison();
+        if (claims != null) {
+            System.out.printf("🧩 Shard %s: %d combinações deste shard, %d com outros shards%n",
+                    claims.getShardId(), claims.getClaimed(), claims.getSkipped());
+        }
+        System.out.printf("🔁 Trocas de modelo na varredura: %d (cargas: %d, runs adiadas para fallback: %d)%n",
+                METRICS.getModelSwitches(), METRICS.getModelLoads(), METRICS.getRunsDeferred());
+        if (!standIns.isEmpty()) {
+            long loads = 0;
+            for (OllamaStandInServer s : standIns) loads += s.getModelLoads();
+            System.out.printf("🧪 Stand-in trocou o modelo residente %d vezes%n", loads);
+        }
+        if (responseCache != null) {
+            System.out.printf("🗃️  Cache de respostas: %d acertos, %d faltas, %d entradas (%d KB)%n",
+                    responseCache.getHits(), responseCache.getMisses(), responseCache.getEntries(),
+                    responseCache.getBytes() / 1024);
+        }
+        if (ledger != null) {
+            System.out.printf("🏦 Ledger: %d contas, %d lançamentos, %d recusados por saldo; %d de %d execuções sem conservação%n",
+                    ledger.getAccounts(), ledger.getTransactions(), ledger.getRejected(),
+                    ledger.getRunsUnbalanced(), ledger.getRunsChecked());
+        }
+        if (router.size() > 1) {
+            System.out.println("🛰️  Endpoints:");
+            for (Map.Entry<String, Object> e : router.toMap().entrySet()) {
+                System.out.println("  " + e.getKey() + " " + e.getValue());
+            }
+        }
+        router.close();
+        for (OllamaStandInServer s : standIns) {
+            System.out.printf("🧪 Stand-in %s atendeu %d chamadas de chat (%d pedaços em streaming)%n",
+                    s.getBaseUrl(), s.getChatRequests(), s.getStreamedChunks());
+            s.close();
+        }
+        System.out.println("All experiments finished. Check results/ for logs and summaries.");
+    }
+
+    /**
+     * Com {@code SHARD_ID}, este processo é um dos shards da varredura: reivindica combinações em
+     * {@code SHARD_DIR} (padrão {@code results/shards}), compartilhado com os outros processos, e
+     * guarda lá o seu journal. Todos os shards precisam do mesmo {@code SWEEP_ID}.
+     */
+    private static SweepClaims openClaims(String sweepId) throws IOException {
+        String shardId = System.getenv("SHARD_ID");
+        if (shardId == null || shardId.isBlank()) return null;
+        String explicitSweep = System.getenv("SWEEP_ID");
+        if (explicitSweep == null || explicitSweep.isBlank()) {
+            System.err.println("ERROR: SHARD_ID requires SWEEP_ID, shared by all shards of the sweep.");
+            System.exit(1);
+        }
+        if (!shardId.trim().matches("[A-Za-z0-9_.-]+")) {
+            System.err.println("ERROR: invalid SHARD_ID (use letters, digits, '.', '_' or '-'): " + shardId);
+            System.exit(1);
+        }
+        SweepClaims c = SweepClaims.open(shardDir(), sweepId, shardId.trim());
+        System.out.println("🧩 Shard " + c.getShardId() + " da varredura " + sweepId + " (claims em "
+                + shardDir().getPath() + ")");
+        return c;
+    }
+
+    private static File shardDir() {
+        String dir = System.getenv("SHARD_DIR");
+        return new File(dir == null || dir.isBlank() ? "results/shards" : dir.trim());
+    }
+
+    private static String resolveSweepId() {
+        String id = System.getenv("SWEEP_ID");
+        if (id != null && !id.isBlank()) return id.trim();
+        return java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    }
+
+    /**
+     * {@code RESULTS_FORMAT} é uma lista separada por vírgulas (padrão {@code jsonl,cols}):
+     * {@code jsonl} grava eventos e resumos em {@code results/sweep-<id>-NNNNN.jsonl},
+     * {@code cols} grava o formato colunar binário em {@code results/sweep-<id>-NNNNN.cols} e
+     * {@code json} mantém os arquivos {@code run-*.json}/{@code summary-*.json} por execução.
+     */
+    private static Set<String> resolveResultsFormats() {
+        String raw = System.getenv("RESULTS_FORMAT");
+        if (raw == null || raw.isBlank()) raw = "jsonl,cols";
+        Set<String> formats = new LinkedHashSet<>();
+        for (String f : raw.split(",")) {
+            String format = f.trim().toLowerCase(Locale.ROOT);
+            if (format.equals("jsonl") || format.equals("cols") || format.equals("json")) {
+                formats.add(format);
+            } else if (!format.isEmpty()) {
+                System.err.println("⚠️  Formato de resultados desconhecido: " + format);
+            }
+        }
+        if (formats.isEmpty()) formats.add("jsonl");
+        return formats;
+    }
+
+    private static JsonlSink openResultsSink(String sweepId) throws IOException {
+        if (!resultsFormats.contains("jsonl")) return null;
+
+        JsonlSink sink = new JsonlSink(new File("results"), "sweep-" + sweepId,
+                getEnvInt("JSONL_BATCH_SIZE", 64),
+                getEnvInt("JSONL_FLUSH_MS", 200),
+                getEnvInt("JSONL_MAX_FILE_MB", 64) * 1024L * 1024L,
+                JsonlSink.FsyncPolicy.parse(System.getenv("JSONL_FSYNC"), JsonlSink.FsyncPolicy.ROTATE), manifest);
+        System.out.println("📝 Gravando resultados em " + sink.getCurrentFile().getPath());
+        return sink;
+    }
+
+    /**
+     * Abre o índice dos resumos gravados em JSONL/JSON (desligado com {@code RESULTS_MANIFEST=false}).
+     */
+    private static ResultsManifest openManifest() throws IOException {
+        if (!resultsFormats.contains("jsonl") && !resultsFormats.contains("json")) return null;
+        String raw = System.getenv("RESULTS_MANIFEST");
+        if (raw != null && !raw.isBlank() && !Boolean.parseBoolean(raw.trim())) return null;
+
+        ResultsManifest m = ResultsManifest.open(new File("results"));
+        System.out.println("🗂️ Índice de resultados em " + m.getFile().getPath()
+                + (m.wasRebuilt() ? " (reconstruído a partir dos arquivos existentes)" : ""));
+        return m;
+    }
+
+    private static ColumnarResultsWriter openColumnarWriter(String sweepId) {
+        if (!resultsFormats.contains("cols")) return null;
+        return new ColumnarResultsWriter(new File("results"), "sweep-" + sweepId,
+                getEnvInt("COLS_SEGMENT_EVENTS", 1 << 18));
+    }
+
+    /**
+     * Abre {@code <dir>/journal-<id>.wal} (desligado com {@code RUN_JOURNAL=false}). Se a
+     * varredura já tem journal, as execuções registradas são retomadas em vez de reexecutadas.
+     */
+    private static SweepJournal openJournal(File dir, String id) throws IOException {
+        String raw = System.getenv("RUN_JOURNAL");
+        if (raw != null && !raw.isBlank() && !Boolean.parseBoolean(raw.trim())) return null;
+
+        SweepJournal j = SweepJournal.open(dir, id);
+        if (j.getDiscardedBytes() > 0) {
+            System.err.printf("⚠️  Journal %s: descartados %d bytes de um registro incompleto%n",
+                    j.getFile().getPath(), j.getDiscardedBytes());
+        }
+        return j;
+    }
+
+    /**
+     * Contabiliza as execuções relidas do journal e reemite nos sinks as que não chegaram ao disco
+     * antes da interrupção (o sink JSONL grava em lotes e o colunar só grava segmentos completos).
+     */
+    private static void resumeFromJournal(Map<ExperimentScheduler.Combination, Map<Integer, RunOutcome>> completed,
+                                          Function<ExperimentScheduler.Combination, String> metricsPrompt)
+            throws IOException {
+        int replayed = 0;
+        for (Map.Entry<ExperimentScheduler.Combination, Map<Integer, RunOutcome>> entry : completed.entrySet()) {
+            ExperimentScheduler.Combination c = entry.getKey();
+            for (RunOutcome outcome : entry.getValue().values()) {
+                if (outcome.cancelled) {
+                    METRICS.runCancelledReplayed();
+                    continue;
+                }
+                METRICS.runReplayed(c.config, metricsPrompt.apply(c), c.scenario, outcome.evaluation.correct);
+                replayed++;
+            }
+        }
+        System.out.printf("♻️  Retomando varredura %s: %d execuções já concluídas em %s%n",
+                sweepId, replayed, journal.getFile().getPath());
+
+        File dir = new File("results");
+        String prefix = "sweep-" + resultsId;
+        Set<String> inJsonl = resultsSink != null ? JsonlSink.summaryRunIds(dir, prefix) : Set.of();
+        Set<String> inCols = columnarWriter != null ? ColumnarResultsReader.runIds(dir, prefix) : Set.of();
+        int restored = 0;
+        for (Map<String, Object> record : journal.records()) {
+            Map<String, Object> summary = SweepJournal.summaryOf(record);
+            String runId = String.valueOf(summary.get("runId"));
+            boolean missing = false;
+            if (resultsSink != null && !inJsonl.contains(runId)) {
+                resultsSink.appendRunMaps(summary, SweepJournal.eventsOf(record));
+                missing = true;
+            }
+            if (columnarWriter != null && !inCols.contains(runId)) {
+                columnarWriter.appendRunMaps(summary, SweepJournal.eventsOf(record));
+                missing = true;
+            }
+            if (missing) restored++;
+        }
+        if (restored > 0) {
+            System.out.printf("♻️  %d execuções do journal reemitidas nos resultados%n", restored);
+        }
+    }
 
-        Map<String, String> prompts = Map.of(
-                "P1", PROMPT1,
-                "P2", PROMPT2,
-                "P3", PROMPT3
-        );
+    /**
+     * {@code LLM_CACHE=on} reaproveita respostas do modelo gravadas em {@code LLM_CACHE_DIR}
+     * (padrão {@code cache/llm}, limitado a {@code LLM_CACHE_MAX_MB}); {@code refresh} ignora as
+     * entradas existentes mas grava as novas; {@code off} (padrão) desliga o cache.
+     */
+    private static ResponseCache openResponseCache() throws IOException {
+        ResponseCache.Mode mode = ResponseCache.Mode.parse(System.getenv("LLM_CACHE"), ResponseCache.Mode.OFF);
+        if (mode == ResponseCache.Mode.OFF) return null;
+
+        String dir = System.getenv("LLM_CACHE_DIR");
+        ResponseCache cache = new ResponseCache(new File(dir == null || dir.isBlank() ? "cache/llm" : dir),
+                getEnvInt("LLM_CACHE_MAX_MB", 512) * 1024L * 1024L, mode);
+        System.out.printf("🗃️  Cache de respostas (%s): %d entradas (%d KB)%n",
+                mode.name().toLowerCase(Locale.ROOT), cache.getEntries(), cache.getBytes() / 1024);
+        return cache;
+    }
+
+    /**
+     * {@code LEDGER=on} põe um {@link Ledger} atrás das ferramentas: além do cenário, saques, taxas e
+     * pagamentos precisam de saldo, e cada execução verifica a conservação do dinheiro. Toda conta
+     * abre com {@code LEDGER_OPENING_BALANCE} e pode ficar até {@code LEDGER_OVERDRAFT} negativa.
+     */
+    private static Ledger openLedger() {
+        String raw = System.getenv("LEDGER");
+        if (raw == null || !(raw.trim().equalsIgnoreCase("on") || raw.trim().equalsIgnoreCase("true"))) return null;
+        int opening = getEnvInt("LEDGER_OPENING_BALANCE", 1_000_000);
+        int overdraft = Math.max(0, getEnvInt("LEDGER_OVERDRAFT", 0));
+        System.out.printf("🏦 Ledger ligado: saldo inicial %d, cheque especial %d%n", opening, overdraft);
+        return new Ledger(opening * 100L, overdraft * 100L);
+    }
 
-        boolean shouldStart = (startFromConfig == null); 
+    /**
+     * Carga gerada ({@link WorkloadGenerator}) no lugar da grade fixa quando {@code WORKLOAD_VARIANTS > 0}.
+     */
+    private static WorkloadGenerator workloadFromEnv() {
+        int variants = getEnvInt("WORKLOAD_VARIANTS", 0);
+        if (variants <= 0) return null;
+        int seed = getEnvInt("WORKLOAD_SEED", 42);
+        int failurePercent = Math.max(0, Math.min(100, getEnvInt("WORKLOAD_FAILURE_PERCENT", 50)));
+        System.out.printf("🧬 Carga gerada: %d variantes (semente %d, %d%% com falha injetada)%n",
+                variants, seed, failurePercent);
+        return new WorkloadGenerator(seed, variants, failurePercent / 100.0);
+    }
+
+    /**
+     * Nas métricas por combinação, as variantes geradas contam pelo modelo de prompt, não pelo id:
+     * uma série por modelo em vez de uma por variante.
+     */
+    private static String metricsPrompt(ExperimentScheduler.Combination c, WorkloadGenerator workload) {
+        if (workload == null) return c.prompt;
+        WorkloadGenerator.Variant v = workload.variant(c.prompt);
+        return v != null ? v.template.label : c.prompt;
+    }
+
+    /**
+     * {@code LLM_STREAMING=true} pede as respostas em streaming, medindo o tempo até o primeiro token
+     * de cada turno. {@code STREAM_STOP_AFTER_CHARS} (padrão {@code 0}, desligado) interrompe o
+     * texto livre depois de tantos caracteres quando a conversa já executou ferramentas; o modelo
+     * ainda poderia chamar outra ferramenta depois do texto, então essas execuções são contadas em
+     * {@code earlyStoppedRuns} ao lado da corretude.
+     */
+    private static void configureStreaming() {
+        boolean streaming = Boolean.parseBoolean(System.getenv("LLM_STREAMING"));
+        int stopAfter = getEnvInt("STREAM_STOP_AFTER_CHARS", 0);
+        CLIENTS.setStreaming(streaming, stopAfter);
+        if (streaming) {
+            System.out.println("📡 Streaming ligado" + (stopAfter > 0
+                    ? " (texto final interrompido após " + stopAfter + " caracteres)" : ""));
+        }
+    }
+
+    /**
+     * {@code TOOL_SPECS=compact} anuncia as ferramentas com as especificações compactas do
+     * {@link ToolCatalog} (padrão {@code full}: as descrições das anotações). Mostra o tamanho do
+     * array {@code tools} que cada configuração manda a cada turno.
+     */
+    private static void configureToolSpecs() {
+        String mode = System.getenv("TOOL_SPECS");
+        boolean compact = "compact".equalsIgnoreCase(mode);
+        if (mode != null && !mode.isBlank() && !compact && !"full".equalsIgnoreCase(mode)) {
+            System.err.println("WARNING: TOOL_SPECS inválido (" + mode + "), usando full");
+        }
+        CLIENTS.setCompactToolSpecs(compact);
+        StringBuilder sizes = new StringBuilder();
+        for (String config : CONFIGS) {
+            if (sizes.length() > 0) sizes.append(", ");
+            sizes.append(config).append(' ').append(ToolCatalog.forConfig(config, compact).specBytes()).append(" B");
+        }
+        System.out.println("📐 Especificações de ferramentas " + (compact ? "compactas" : "completas") + ": " + sizes);
+    }
+
+    /**
+     * Parâmetros da camada de resiliência ({@link ModelChain}) lidos do ambiente.
+     */
+    private static ModelChain.Settings chainSettings() {
+        ModelChain.Settings s = new ModelChain.Settings();
+        s.backoffBaseMillis = getEnvInt("BACKOFF_BASE_MS", (int) s.backoffBaseMillis);
+        s.backoffMaxMillis = getEnvInt("BACKOFF_MAX_MS", (int) s.backoffMaxMillis);
+        s.breakerWindow = getEnvInt("BREAKER_WINDOW", s.breakerWindow);
+        s.breakerMinCalls = getEnvInt("BREAKER_MIN_CALLS", s.breakerMinCalls);
+        s.breakerFailureRate = getEnvInt("BREAKER_FAILURE_PERCENT", (int) Math.round(s.breakerFailureRate * 100)) / 100.0;
+        s.slowCall = java.time.Duration.ofSeconds(getEnvInt("BREAKER_SLOW_SECONDS", (int) s.slowCall.getSeconds()));
+        s.breakerOpen = java.time.Duration.ofSeconds(getEnvInt("BREAKER_OPEN_SECONDS", (int) s.breakerOpen.getSeconds()));
+        s.hedgePercentile = getEnvInt("HEDGE_PERCENTILE", (int) Math.round(s.hedgePercentile * 100)) / 100.0;
+        s.hedgeMinSamples = getEnvInt("HEDGE_MIN_SAMPLES", s.hedgeMinSamples);
+        s.hedgeMin = java.time.Duration.ofMillis(getEnvInt("HEDGE_MIN_MS", (int) s.hedgeMin.toMillis()));
+        s.hedgeCrossModel = Boolean.parseBoolean(System.getenv("HEDGE_CROSS_MODEL"));
+        s.deadline = java.time.Duration.ofSeconds(getEnvInt("RUN_DEADLINE_SECONDS", (int) OLLAMA_TIMEOUT_SECONDS));
+        return s;
+    }
+
+    /**
+     * {@code OLLAMA_KEEP_ALIVE} (padrão {@code 30m}), enviado no aquecimento e em todo {@code /api/chat}.
+     */
+    private static String keepAlive() {
+        String keepAlive = System.getenv("OLLAMA_KEEP_ALIVE");
+        return keepAlive == null || keepAlive.isBlank() ? "30m" : keepAlive.trim();
+    }
+
+    /**
+     * Aquecimento do modelo antes de cada lote (desligado com {@code MODEL_WARMUP=false}), pedindo
+     * ao Ollama que o mantenha residente por {@code OLLAMA_KEEP_ALIVE} (padrão {@code 30m}).
+     */
+    private static ExperimentScheduler.ModelWarmer createModelWarmer() {
+        String raw = System.getenv("MODEL_WARMUP");
+        boolean enabled = raw == null || raw.isBlank() || Boolean.parseBoolean(raw.trim());
+        Map<String, OllamaWarmup> warmups = new LinkedHashMap<>();
+        for (String url : router.getBaseUrls()) {
+            warmups.put(url, new OllamaWarmup(url, keepAlive(), java.time.Duration.ofSeconds(OLLAMA_TIMEOUT_SECONDS)));
+        }
+        return model -> {
+            METRICS.modelLoaded(model);
+            if (!enabled) return;
+            List<String> urls = router.getHealthyBaseUrls();
+            if (urls.isEmpty()) urls = router.getBaseUrls();
+            // cada servidor carrega o modelo em paralelo; a fase espera o mais lento
+            ExecutorService pool = Executors.newFixedThreadPool(urls.size());
+            try {
+                Map<String, Future<Long>> loads = new LinkedHashMap<>();
+                for (String url : urls) loads.put(url, pool.submit(() -> warmups.get(url).load(model)));
+                for (Map.Entry<String, Future<Long>> load : loads.entrySet()) {
+                    try {
+                        System.out.printf("🔥 Modelo %s carregado em %.0f ms%s%n", model, load.getValue().get() / 1e6,
+                                urls.size() > 1 ? " (" + load.getKey() + ")" : "");
+                    } catch (ExecutionException e) {
+                        System.err.println("⚠️  Aquecimento de " + model + " em " + load.getKey() + " falhou: "
+                                + e.getCause().getMessage());
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        };
+    }
+
+    /**
+     * Com {@code METRICS_PORT} definido, expõe {@code /metrics} (texto Prometheus) nessa porta local.
+     */
+    private static MetricsServer startMetricsServerIfRequested() throws IOException {
+        int port = getEnvInt("METRICS_PORT", -1);
+        if (port < 0) return null;
+        MetricsServer server = MetricsServer.start(port, METRICS);
+        System.out.println("📈 Métricas em " + server.getUrl());
+        return server;
+    }
+
+    /**
+     * {@code OLLAMA_BASE_URLS} (lista separada por vírgulas) ou, com um servidor só,
+     * {@code OLLAMA_BASE_URL}; padrão {@code http://localhost:11434}.
+     */
+    private static List<String> resolveBaseUrls() {
+        String raw = System.getenv("OLLAMA_BASE_URLS");
+        if (raw == null || raw.isBlank()) raw = System.getenv("OLLAMA_BASE_URL");
+        List<String> urls = new ArrayList<>();
+        if (raw != null) {
+            for (String url : raw.split(",")) {
+                if (!url.isBlank()) urls.add(url.trim());
+            }
+        }
+        if (urls.isEmpty()) urls.add("http://localhost:11434");
+        return urls;
+    }
+
+    /**
+     * Roteador sobre os stand-ins ou sobre {@link #resolveBaseUrls()}; um endpoint sai da rotação
+     * depois de {@code ENDPOINT_MAX_FAILURES} (padrão 3) falhas de conexão seguidas.
+     */
+    private static EndpointRouter openRouter(List<OllamaStandInServer> standIns) {
+        List<String> urls = new ArrayList<>();
+        for (OllamaStandInServer s : standIns) urls.add(s.getBaseUrl());
+        if (urls.isEmpty()) urls = resolveBaseUrls();
+        if (urls.size() > 1) System.out.println("🛰️  " + urls.size() + " endpoints Ollama: " + urls);
+        return new EndpointRouter(urls, getEnvInt("ENDPOINT_MAX_FAILURES", 3), java.time.Duration.ofSeconds(5));
+    }
+
+    /**
+     * Com {@code OLLAMA_STANDIN=true} sobe servidores roteirizados locais no lugar do Ollama real:
+     * {@code OLLAMA_STANDIN_COUNT} servidores (padrão 1). {@code OLLAMA_STANDIN_LATENCY_MS} aceita
+     * uma lista, um valor por servidor (o último vale para os restantes).
+     */
+    private static List<OllamaStandInServer> startStandInsIfRequested() throws IOException {
+        if (!Boolean.parseBoolean(System.getenv("OLLAMA_STANDIN"))) return List.of();
+        int count = Math.max(1, getEnvInt("OLLAMA_STANDIN_COUNT", 1));
+        String[] latencies = System.getenv().getOrDefault("OLLAMA_STANDIN_LATENCY_MS", "0").split(",");
+        List<OllamaStandInServer> servers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String latency = latencies[Math.min(i, latencies.length - 1)].trim();
+            OllamaStandInServer server = OllamaStandInServer.start(0, latency.isEmpty() ? 0 : Long.parseLong(latency));
+            server.setLoadLatencyMillis(getEnvInt("OLLAMA_STANDIN_LOAD_MS", 0));
+            server.setPrimaryFailurePercent(getEnvInt("OLLAMA_STANDIN_FAIL_PERCENT", 0));
+            server.setPrimarySlowCalls(getEnvInt("OLLAMA_STANDIN_SLOW_PERCENT", 0), getEnvInt("OLLAMA_STANDIN_SLOW_MS", 0));
+            server.setStreaming(getEnvInt("OLLAMA_STANDIN_TOKEN_MS", 0), getEnvInt("OLLAMA_STANDIN_VERBOSE_WORDS", 0));
+            System.out.println("🧪 Usando Ollama stand-in em " + server.getBaseUrl());
+            servers.add(server);
+        }
+        return servers;
+    }
+
+    private static List<ExperimentScheduler.Combination> buildCombinations(Collection<String> promptKeys,
+                                                                       String startFromConfig,
+                                                                       String startFromPrompt,
+                                                                       String startFromScenario) {
+        List<ExperimentScheduler.Combination> combinations = new ArrayList<>();
+        boolean shouldStart = (startFromConfig == null);
 
         for (String conf : CONFIGS) {
             if (!shouldStart) {
@@ -67,7 +605,7 @@ public class MainRunner {
                 }
             }
 
-            for (String pKey : prompts.keySet()) {
+            for (String pKey : promptKeys) {
                 if (startFromPrompt != null && shouldStart) {
                     if (!pKey.equals(startFromPrompt)) {
                         System.out.println("⏭️  Pulando prompt: " + pKey);
@@ -86,93 +624,273 @@ public class MainRunner {
                             startFromScenario = null;
                         }
                     }
+                    combinations.add(new ExperimentScheduler.Combination(conf, pKey, scenarioSuffix));
+                }
+            }
+        }
+        return combinations;
+    }
 
-                    ScenarioController.Scenario scEnum = mapToScenario(pKey, scenarioSuffix);
-                    System.out.printf("=== Running config=%s prompt=%s scenario=%s ===%n", conf, pKey, scenarioSuffix);
-                    List<Map<String, Object>> runSummaries = new ArrayList<>();
+    /**
+     * O que uma execução precisa da sua combinação: prompt, regras do cenário, critério de aceitação
+     * e o rótulo de prompt nas métricas.
+     */
+    private static final class RunSpec {
+        final String prompt;
+        final ScenarioRules.Compiled rules;
+        final AcceptanceMatcher matcher;
+        final String metricsPrompt;
+
+        private RunSpec(String prompt, ScenarioRules.Compiled rules, AcceptanceMatcher matcher, String metricsPrompt) {
+            this.prompt = prompt;
+            this.rules = rules;
+            this.matcher = matcher;
+            this.metricsPrompt = metricsPrompt;
+        }
 
-                    for (int runIdx = 0; runIdx < RUNS_PER_COMBINATION; runIdx++) {
-                        String runId = UUID.randomUUID().toString();
-                        ScenarioController scenarioController = new ScenarioController(scEnum);
-                        CallLogger logger = new CallLogger();
+        static RunSpec of(ExperimentScheduler.Combination c, Map<String, String> prompts,
+                          Map<String, AcceptanceMatcher> matchers) {
+            ScenarioController.Scenario scenario = mapToScenario(c.prompt, c.scenario);
+            return new RunSpec(prompts.get(c.prompt), ScenarioRules.standard().compile(scenario.name()),
+                    matchers.get(c.prompt + c.scenario), c.prompt);
+        }
 
-                        BankToolsA a = new BankToolsA(scenarioController, logger, runId);
-                        BankToolsB b = new BankToolsB(scenarioController, logger, runId);
+        static RunSpec of(WorkloadGenerator.Variant v) {
+            return new RunSpec(v.prompt, v.compileRules(), v.matcher(), v.template.label);
+        }
+    }
 
-                        String llmResponseText;
-                        boolean usedLlm = false;
+    private static RunOutcome executeRun(ExperimentScheduler.RunTask task, RunSpec spec)
+            throws ExperimentScheduler.DeferToNextModel {
+        String conf = task.combination.config;
+        String pKey = task.combination.prompt;
+        String scenarioSuffix = task.combination.scenario;
+        int runIdx = task.runIdx;
 
-                        try {
-                            llmResponseText = callWithTools(prompts.get(pKey), conf, a, b);
-                            usedLlm = true;
-                        } catch (Exception e) {
-                            System.err.println("ERROR in LLM call: " + e.getMessage());
-                            llmResponseText = "[ERROR] " + e.getMessage();
-                            throw new RuntimeException("LLM call failed for config " + conf + " prompt " + pKey + " scenario " + scenarioSuffix, e);
-                        }
+        System.out.printf("=== Running config=%s prompt=%s scenario=%s run=%d ===%n", conf, pKey, scenarioSuffix, runIdx + 1);
 
-                        File out = new File("results/run-" + runId + ".json");
-                        out.getParentFile().mkdirs();
-                        logger.dumpJson(out);
+        String runId = UUID.randomUUID().toString();
 
-                        Set<String> toolsUsed = new LinkedHashSet<>();
-                        for (Map<String, Object> ev : logger.getEvents()) {
-                            Object tc = ev.get("toolClass");
-                            if (tc != null) toolsUsed.add(tc.toString());
-                        }
+        String llmResponseText;
+        boolean usedLlm = false;
+        LlmCall call;
 
-                        if (toolsUsed.isEmpty()) {
-                            System.err.println("WARNING: LLM did not use any tools for run " + runId);
-                            toolsUsed.add("NO_TOOLS_USED");
-                        }
+        METRICS.runStarted();
+        try {
+            call = callWithTools(spec.prompt, conf, task, () -> new AttemptTools(spec.rules, runId, ledger));
+            llmResponseText = call.text;
+            usedLlm = true;
+        } catch (LlmCallException e) {
+            if (e.isCancelled()) {
+                return recordCancelledRun(task, runId, spec.matcher, e);
+            }
+            if (task.modelIdx + 1 < MODELS.size()) {
+                // refeita no lote adiado do próximo modelo, depois que este terminar o seu
+                METRICS.runDeferred();
+                System.err.printf("⏭️  Run %d de %s adiada para o modelo %s: %s%n",
+                        runIdx + 1, task.combination, MODELS.get(task.modelIdx + 1), e.getMessage());
+                throw new ExperimentScheduler.DeferToNextModel(e.attempts, e.nanos, e);
+            }
+            METRICS.runFailed();
+            System.err.println("ERROR in LLM call: " + e.getMessage());
+            llmResponseText = "[ERROR] " + e.getMessage();
+            throw new RuntimeException("LLM call failed for config " + conf + " prompt " + pKey + " scenario " + scenarioSuffix, e);
+        }
+        CallLogger logger = call.tools.logger;
 
-                        List<String> expectedOps = acceptance.get(pKey + scenarioSuffix);
-                        EvaluationResult eval = evaluateRun(logger.getEvents(), expectedOps);
-
-                        Map<String, Object> runSummary = new LinkedHashMap<>();
-                        runSummary.put("runId", runId);
-                        runSummary.put("config", conf);
-                        runSummary.put("prompt", pKey);
-                        runSummary.put("scenario", scenarioSuffix);
-                        runSummary.put("usedLlm", usedLlm);
-                        runSummary.put("llmResponseText", llmResponseText);
-                        runSummary.put("toolsUsed", new ArrayList<>(toolsUsed));
-                        runSummary.put("events", logger.getEvents());
-                        runSummary.put("evaluation", eval.toMap());
-                        runSummary.put("eventsCount", logger.getEvents().size());
-                        runSummaries.add(runSummary);
-
-                        File summaryOut = new File(String.format("results/summary-%s-%s-%s-run%d.json", conf, pKey, scenarioSuffix, runIdx + 1));
-                        try (FileWriter fw = new FileWriter(summaryOut)) {
-                            fw.write(new com.fasterxml.jackson.databind.ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(runSummary));
-                        } catch (IOException ioe) {
-                            System.err.println("Could not write summary file: " + ioe.getMessage());
-                        }
+        Set<String> toolsUsed = new LinkedHashSet<>();
+        for (CallEvent ev : logger.getCallEvents()) {
+            String tc = ev.getToolClass();
+            if (tc != null) toolsUsed.add(tc);
+        }
 
-                        System.out.printf("Run %d/%d completed - Tools used: %s, Correct: %s%n",
-                                runIdx + 1, RUNS_PER_COMBINATION, toolsUsed, eval.correct);
+        if (toolsUsed.isEmpty()) {
+            System.err.println("WARNING: LLM did not use any tools for run " + runId);
+            toolsUsed.add("NO_TOOLS_USED");
+        }
 
-                        // pausa entre execuções para não sobrecarregar o Ollama
-                        try {
-                            Thread.sleep(1000);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    } // runs
-
-                    AggregatedMetrics aggregated = aggregateMetrics(runSummaries);
-                    File aggOut = new File(String.format("results/aggregated-%s-%s-%s.json", conf, pKey, scenarioSuffix));
-                    try (FileWriter fw = new FileWriter(aggOut)) {
-                        fw.write(new com.fasterxml.jackson.databind.ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(aggregated.toMap()));
-                        System.out.printf("Aggregated metrics saved to %s%n", aggOut.getAbsolutePath());
-                    } catch (IOException ioe) {
-                        System.err.println("Could not write aggregated file: " + ioe.getMessage());
-                    }
-                } // scenario
-            } // prompt
-        } // conf
+        EvaluationResult eval = evaluateRun(logger.getCallEvents(), spec.matcher);
+        RunLatency latency = RunLatency.of(call, logger.getCallEvents());
+
+        Map<String, Object> runSummary = new LinkedHashMap<>();
+        runSummary.put("runId", runId);
+        runSummary.put("sweepId", sweepId);
+        runSummary.put("runIdx", runIdx + 1);
+        runSummary.put("config", conf);
+        runSummary.put("prompt", pKey);
+        runSummary.put("scenario", scenarioSuffix);
+        runSummary.put("status", STATUS_COMPLETED);
+        runSummary.put("usedLlm", usedLlm);
+        runSummary.put("model", call.model);
+        runSummary.put("endpoint", call.endpoint);
+        runSummary.put("attempts", call.attempts);
+        runSummary.put("fallbacks", call.fallbacks);
+        runSummary.put("runMillis", call.totalNanos / 1_000_000.0);
+        runSummary.put("modelTurns", latency.modelTurnNanos.length);
+        runSummary.put("firstToolCallMillis", latency.firstToolCallNanos < 0 ? null : latency.firstToolCallNanos / 1_000_000.0);
+        runSummary.put("firstTokenMillis", latency.firstTokenNanos.length == 0 ? null : latency.firstTokenNanos[0] / 1_000_000.0);
+        runSummary.put("earlyStopped", latency.earlyStops > 0);
+        runSummary.put("toolSpecBytes", latency.toolSpecBytes);
+        runSummary.put("toolSpecBytesSent", latency.toolSpecBytesSent);
+        runSummary.put("promptTokens", latency.promptTokens);
+        runSummary.put("completionTokens", latency.completionTokens);
+        runSummary.put("llmResponseText", llmResponseText);
+        runSummary.put("toolsUsed", new ArrayList<>(toolsUsed));
+        runSummary.put("events", logger.getEvents());
+        runSummary.put("evaluation", eval.toMap());
+        runSummary.put("eventsCount", logger.size());
+        if (call.tools.ledger != null) {
+            LedgerSession.Conservation balance = call.tools.ledger.check();
+            runSummary.put("ledger", balance.toMap());
+            if (!balance.conserved) {
+                System.err.printf("⚖️  Run %d de %s não conserva o dinheiro: %.2f em trânsito%n",
+                        runIdx + 1, task.combination, balance.inTransitCents / 100.0);
+            }
+        }
 
-        System.out.println("All experiments finished. Check results/ for logs and summaries.");
+        RunOutcome outcome = new RunOutcome(eval, new ArrayList<>(toolsUsed), latency);
+        journalRun(runSummary, logger, outcome);
+        writeRunResults(runSummary, logger, runIdx);
+        METRICS.runCompleted(conf, spec.metricsPrompt, scenarioSuffix, eval.correct);
+
+        System.out.printf("Run %d/%d (%s) completed - Tools used: %s, Correct: %s%n",
+                runIdx + 1, RUNS_PER_COMBINATION, task.combination, toolsUsed, eval.correct);
+        return outcome;
+    }
+
+    /**
+     * O prazo da execução venceu e as tentativas foram abortadas: grava o resumo com
+     * {@code status=CANCELLED}, sem eventos (os das tentativas canceladas são descartados), e
+     * devolve um resultado que a agregação conta à parte da corretude.
+     */
+    private static RunOutcome recordCancelledRun(ExperimentScheduler.RunTask task, String runId,
+                                                 AcceptanceMatcher matcher, LlmCallException e) {
+        ExperimentScheduler.Combination c = task.combination;
+        METRICS.runCancelled();
+        System.err.printf("⌛ Run %d de %s cancelada: %s%n", task.runIdx + 1, c, e.getMessage());
+
+        CallLogger logger = new CallLogger();
+        EvaluationResult eval = evaluateRun(logger.getCallEvents(), matcher);
+        Map<String, Object> runSummary = new LinkedHashMap<>();
+        runSummary.put("runId", runId);
+        runSummary.put("sweepId", sweepId);
+        runSummary.put("runIdx", task.runIdx + 1);
+        runSummary.put("config", c.config);
+        runSummary.put("prompt", c.prompt);
+        runSummary.put("scenario", c.scenario);
+        runSummary.put("status", STATUS_CANCELLED);
+        runSummary.put("cancelReason", e.getMessage());
+        runSummary.put("usedLlm", false);
+        runSummary.put("model", MODELS.get(task.modelIdx));
+        runSummary.put("attempts", task.priorAttempts + e.attempts);
+        runSummary.put("fallbacks", task.modelIdx);
+        runSummary.put("runMillis", (task.priorNanos + e.nanos) / 1_000_000.0);
+        runSummary.put("llmResponseText", "[CANCELLED] " + e.getMessage());
+        runSummary.put("toolsUsed", new ArrayList<>());
+        runSummary.put("events", logger.getEvents());
+        runSummary.put("evaluation", eval.toMap());
+        runSummary.put("eventsCount", 0);
+
+        RunOutcome outcome = new RunOutcome(eval, List.of(), null, true);
+        journalRun(runSummary, logger, outcome);
+        writeRunResults(runSummary, logger, task.runIdx);
+        return outcome;
+    }
+
+    private static void journalRun(Map<String, Object> runSummary, CallLogger logger, RunOutcome outcome) {
+        SweepJournal j = journal;
+        if (j == null) return;
+        // registrado antes dos sinks: o que estiver no journal é recuperável ao retomar
+        try {
+            j.record(runSummary, logger.getEvents(), outcome);
+        } catch (IOException ioe) {
+            System.err.println("Could not write run journal: " + ioe.getMessage());
+        }
+    }
+
+    private static void writeRunResults(Map<String, Object> runSummary, CallLogger logger, int runIdx) {
+        JsonlSink sink = resultsSink;
+        if (sink != null) {
+            try {
+                sink.appendRun(runSummary, logger.getCallEvents());
+            } catch (IOException ioe) {
+                System.err.println("Could not write run results: " + ioe.getMessage());
+            }
+        }
+
+        ColumnarResultsWriter columnar = columnarWriter;
+        if (columnar != null) {
+            try {
+                columnar.appendRun(runSummary, logger.getCallEvents());
+            } catch (IOException ioe) {
+                System.err.println("Could not write columnar results: " + ioe.getMessage());
+            }
+        }
+
+        if (!resultsFormats.contains("json")) return;
+
+        File out = new File("results/run-" + runSummary.get("runId") + ".json");
+        out.getParentFile().mkdirs();
+        try {
+            logger.dumpJson(out);
+        } catch (IOException ioe) {
+            System.err.println("Could not write run file: " + ioe.getMessage());
+        }
+
+        File summaryOut = new File(String.format("results/summary-%s-%s-%s-run%d.json",
+                runSummary.get("config"), runSummary.get("prompt"), runSummary.get("scenario"), runIdx + 1));
+        try {
+            PRETTY_WRITER.writeValue(summaryOut, runSummary);
+            // com JSONL ligado o índice já aponta para o bloco da execução
+            ResultsManifest m = manifest;
+            if (m != null && sink == null) {
+                m.append(ResultsManifest.Entry.forRun(runSummary).at(summaryOut.getName(), 0, summaryOut.length(), 0));
+            }
+        } catch (IOException ioe) {
+            System.err.println("Could not write summary file: " + ioe.getMessage());
+        }
+    }
+
+    private static void writeAggregated(ExperimentScheduler.Combination combination, CombinationAccumulator accumulator,
+                                        String promptLabel) {
+        COMPARISON.add(combination.config, promptLabel, accumulator);
+        AggregatedMetrics aggregated = accumulator.toMetrics();
+        File aggOut = new File(String.format("results/aggregated-%s-%s-%s.json",
+                combination.config, combination.prompt, combination.scenario));
+        try {
+            PRETTY_WRITER.writeValue(aggOut, aggregated.toMap());
+            System.out.printf("Aggregated metrics saved to %s%n", aggOut.getAbsolutePath());
+        } catch (IOException ioe) {
+            System.err.println("Could not write aggregated file: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Turnos do modelo e tempo por execução de cada configuração, por prompt, em
+     * {@code results/config-comparison.json}.
+     */
+    private static void writeComparison() {
+        if (COMPARISON.isEmpty()) return;
+        File out = new File(claims == null ? "results/config-comparison.json"
+                : "results/config-comparison-" + claims.getShardId() + ".json");
+        try {
+            PRETTY_WRITER.writeValue(out, COMPARISON.toMap());
+            COMPARISON.print();
+            System.out.printf("Comparação entre configurações salva em %s%n", out.getAbsolutePath());
+        } catch (IOException ioe) {
+            System.err.println("Could not write configuration comparison: " + ioe.getMessage());
+        }
+    }
+
+    private static int getEnvInt(String name, int defaultValue) {
+        String raw = System.getenv(name);
+        if (raw == null || raw.isBlank()) return defaultValue;
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️  Valor inválido para " + name + ": " + raw + ". Usando: " + defaultValue);
+            return defaultValue;
+        }
     }
 
     private static String getStartConfigFromArgs(String[] args) {
@@ -211,132 +929,92 @@ public class MainRunner {
         return null;
     }
 
-    private static String callWithTools(String prompt, String config, BankToolsA toolsA, BankToolsB toolsB) {
-        final String baseUrl = System.getenv("OLLAMA_BASE_URL");
-        final String actualBaseUrl = (baseUrl == null || baseUrl.isBlank()) ? "http://localhost:11434" : baseUrl;
-        final String finalPrompt = prompt;
-        final String finalConfig = config;
-        final BankToolsA finalToolsA = toolsA;
-        final BankToolsB finalToolsB = toolsB;
-
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<String> future = executor.submit(() -> {
-            String[] modelNames = {"mistral:latest", "llama3.1:latest", "llama3:latest"};
-            int maxRetriesPerModel = 2;
-            Exception lastException = null;
-
-            for (String modelName : modelNames) {
-                for (int retry = 0; retry < maxRetriesPerModel; retry++) {
-                    try {
-                        System.out.println("🔄 Tentativa " + (retry + 1) + " com modelo: " + modelName);
-
-                        dev.langchain4j.model.ollama.OllamaChatModel model =
-                                dev.langchain4j.model.ollama.OllamaChatModel.builder()
-                                        .baseUrl(actualBaseUrl)
-                                        .modelName(modelName)
-                                        .timeout(java.time.Duration.ofSeconds(300))
-                                        .temperature(0.0)
-                                        .build();
-
-                        BankingAssistant assistant = buildAssistant(model, finalConfig, finalToolsA, finalToolsB);
+    /**
+     * Resultado de {@link #callWithTools}: a resposta, o modelo que respondeu, quantas tentativas e
+     * trocas de modelo foram necessárias e os tempos da tentativa bem-sucedida.
+     */
+    static final class LlmCall {
+        final String text;
+        final String model;
+        final int attempts;
+        final int fallbacks;
+        final CallTimings timings;
+        /** início da tentativa que respondeu */
+        final long chatStartNanos;
+        /** da primeira tentativa até a resposta, incluindo esperas entre tentativas */
+        final long totalNanos;
+        /** cenário, log e ferramentas da tentativa que respondeu */
+        final AttemptTools tools;
+        /** servidor Ollama da tentativa que respondeu */
+        final String endpoint;
+
+        LlmCall(String text, String model, int attempts, int fallbacks, CallTimings timings,
+                long chatStartNanos, long totalNanos, AttemptTools tools, String endpoint) {
+            this.text = text;
+            this.model = model;
+            this.attempts = attempts;
+            this.fallbacks = fallbacks;
+            this.timings = timings;
+            this.chatStartNanos = chatStartNanos;
+            this.totalNanos = totalNanos;
+            this.tools = tools;
+            this.endpoint = endpoint;
+        }
+    }
 
-                        System.out.println("Calling LLM with prompt: " + finalPrompt.substring(0, Math.min(100, finalPrompt.length())) + "...");
-                        String result = assistant.chat(finalPrompt);
-                        System.out.println("✅ LLM response received with model: " + modelName);
-                        return result;
+    private static LlmCall callWithTools(String prompt, String config, ExperimentScheduler.RunTask task,
+                                         Supplier<AttemptTools> tools) {
+        System.out.println("Calling LLM with prompt: " + prompt.substring(0, Math.min(100, prompt.length())) + "...");
+        return CHAIN.call(router, prompt, config, task, tools);
+    }
 
-                    } catch (Exception e) {
-                        lastException = e;
-                        System.err.println("❌ Tentativa " + (retry + 1) + " com modelo " + modelName + " falhou: " + e.getMessage());
+    /**
+     * Falha de {@link #callWithTools} depois de esgotar as tentativas no modelo da tarefa, ou
+     * cancelamento quando o prazo da execução vence.
+     */
+    static final class LlmCallException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
 
-                        if (e.getCause() instanceof IllegalArgumentException) {
-                            System.err.println("🔍 Erro de parâmetros inválidos - o modelo está gerando argumentos incorretos");
-                        }
+        final int attempts;
+        final long nanos;
+        private final boolean cancelled;
 
-                        if (retry < maxRetriesPerModel - 1) {
-                            try {
-                                System.out.println("⏳ Aguardando 3 segundos antes da próxima tentativa...");
-                                Thread.sleep(3000);
-                            } catch (InterruptedException ie) {
-                                Thread.currentThread().interrupt();
-                                throw new RuntimeException(ie);
-                            }
-                        }
-                    }
-                }
+        LlmCallException(String message, Throwable cause, int attempts, long nanos) {
+            this(message, cause, attempts, nanos, false);
+        }
 
-                System.out.println("🔁 Mudando para próximo modelo...");
-            }
+        private LlmCallException(String message, Throwable cause, int attempts, long nanos, boolean cancelled) {
+            super(message, cause);
+            this.attempts = attempts;
+            this.nanos = nanos;
+            this.cancelled = cancelled;
+        }
 
-            throw new RuntimeException("❌ Todos os modelos e tentativas falharam. Último erro: " +
-                    (lastException != null ? lastException.getMessage() : "Desconhecido"));
-        });
+        static LlmCallException cancelled(String message, Throwable cause, int attempts, long nanos) {
+            return new LlmCallException(message, cause, attempts, nanos, true);
+        }
 
-        try {
-            return future.get(OLLAMA_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            future.cancel(true);
-            throw new RuntimeException("Model response timed out after " + OLLAMA_TIMEOUT_SECONDS + " seconds");
-        } catch (Exception e) {
-            throw new RuntimeException("LLM call failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()), e);
-        } finally {
-            executor.shutdownNow();
-        }
-    }
-
-    private static BankingAssistant buildAssistant(dev.langchain4j.model.ollama.OllamaChatModel model,
-                                                   String config, BankToolsA toolsA, BankToolsB toolsB) {
-        switch (config) {
-            case "CONF1":
-                return AiServices.builder(BankingAssistant.class)
-                        .chatLanguageModel(model)
-                        .tools(toolsA)
-                        .build();
-            case "CONF2":
-                return AiServices.builder(BankingAssistant.class)
-                        .chatLanguageModel(model)
-                        .tools(toolsB)
-                        .build();
-            case "CONF3":
-                return AiServices.builder(BankingAssistant.class)
-                        .chatLanguageModel(model)
-                        .tools(toolsA, toolsB)
-                        .build();
-            case "CONF4":
-                return AiServices.builder(BankingAssistant.class)
-                        .chatLanguageModel(model)
-                        .tools(toolsB, toolsA)
-                        .build();
-            default:
-                throw new IllegalArgumentException("Unknown configuration: " + config);
+        boolean isCancelled() {
+            return cancelled;
         }
     }
 
+    /**
+     * Verifica todos os endpoints; basta um saudável. Os que falharem ficam fora da rotação até
+     * passarem numa verificação periódica.
+     */
     private static boolean checkOllamaAvailability() {
-        try {
-            String baseUrl = System.getenv("OLLAMA_BASE_URL");
-            if (baseUrl == null || baseUrl.isBlank()) {
-                baseUrl = "http://localhost:11434";
-            }
-
-            java.net.URL url = new java.net.URL(baseUrl + "/api/tags");
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-
-            int responseCode = connection.getResponseCode();
-            return responseCode == 200;
-        } catch (Exception e) {
-            System.err.println("Ollama not available: " + e.getMessage());
-            return false;
+        int healthy = router.checkHealth();
+        if (healthy < router.size()) {
+            System.err.printf("Ollama not available on %d of %d endpoints%n", router.size() - healthy, router.size());
         }
+        return healthy > 0;
     }
 
     // -----------------------------
     // Acceptance criteria
     // -----------------------------
-    private static Map<String, List<String>> defineAcceptanceCriteria() {
+    static Map<String, List<String>> defineAcceptanceCriteria() {
         Map<String, List<String>> acceptance = new LinkedHashMap<>();
 
         acceptance.put("P1A", List.of(
@@ -381,6 +1059,14 @@ public class MainRunner {
         return acceptance;
     }
 
+    static Map<String, AcceptanceMatcher> compileAcceptance(Map<String, List<String>> acceptance) {
+        Map<String, AcceptanceMatcher> matchers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> e : acceptance.entrySet()) {
+            matchers.put(e.getKey(), AcceptanceMatcher.compile(e.getValue()));
+        }
+        return matchers;
+    }
+
     private static void saveAcceptanceToFile(Map<String, List<String>> acceptance, File out) {
         out.getParentFile().mkdirs();
         try (FileWriter fw = new FileWriter(out)) {
@@ -396,7 +1082,7 @@ public class MainRunner {
         }
     }
 
-    private static ScenarioController.Scenario mapToScenario(String pKey, String suffix) {
+    static ScenarioController.Scenario mapToScenario(String pKey, String suffix) {
         switch (pKey + suffix) {
             case "P1A":
                 return ScenarioController.Scenario.P1A;
@@ -415,128 +1101,105 @@ public class MainRunner {
         }
     }
 
-    private static EvaluationResult evaluateRun(List<Map<String, Object>> events, List<String> expectedOps) {
-        List<String> ops = new ArrayList<>();
+    private static final Map<List<String>, AcceptanceMatcher> MATCHERS = new ConcurrentHashMap<>();
+
+    static EvaluationResult evaluateRun(List<Map<String, Object>> events, List<String> expectedOps) {
+        List<AcceptanceMatcher.Operation> ops = new ArrayList<>(events.size());
         for (Map<String, Object> e : events) {
-            String method = (String) e.get("method");
-            Map<?, ?> params = (Map<?, ?>) e.get("params");
-            boolean result = Boolean.TRUE.equals(e.get("result"));
-
-            String op;
-            if ("executeOperation".equals(method)) {
-                Object typeObj = params.get("type");
-                String typeName = typeObj == null ? "" : typeObj.toString();
-                String mapped = mapOperationTypeToMethod(typeName);
-                Object account = params.get("account");
-                Object value = params.get("value");
-                op = String.format("%s(%s,%s)", mapped, account, value);
-            } else {
-                Object account = params.get("account");
-                Object value = params.get("value");
-                op = String.format("%s(%s,%s)", method, account, value);
-            }
-            if (!result) op += "->FAILED";
-            ops.add(op);
-        }
-
-        List<String> mismatches = new ArrayList<>();
-        int idx = 0;
-        for (String expected : expectedOps) {
-            boolean matched = false;
-            for (int j = idx; j < ops.size(); j++) {
-                String observed = ops.get(j);
-                if (expected.contains(" OR ")) {
-                    String[] options = expected.split(" OR ");
-                    for (String opt : options) {
-                        if (normalize(opt).equals(normalize(observed))) {
-                            matched = true;
-                            idx = j + 1;
-                            break;
-                        }
-                    }
-                    if (matched) break;
-                } else if (expected.contains("<")) {
-                    String expectedMethod = expected.split("\\(")[0];
-                    if (observed.startsWith(expectedMethod + "(")) {
-                        matched = true;
-                        idx = j + 1;
-                        break;
-                    }
-                } else {
-                    if (normalize(expected).equals(normalize(observed))) {
-                        matched = true;
-                        idx = j + 1;
-                        break;
-                    }
-                }
-            }
-            if (!matched) mismatches.add("Expected not found: " + expected);
-        }
-
-        boolean correct = mismatches.isEmpty();
-        return new EvaluationResult(correct, mismatches, ops, expectedOps);
-    }
-
-    private static String mapOperationTypeToMethod(String typeName) {
-        if (typeName == null) return "executeOperation";
-        switch (typeName.toUpperCase(Locale.ROOT)) {
-            case "WITHDRAW":
-                return "withdraw";
-            case "DEPOSIT":
-                return "deposit";
-            case "TAX":
-                return "taxes";
-            case "RETURN":
-                return "returnValue";
-            case "PAYMENT":
-                return "payment";
-            default:
-                return "executeOperation";
+            ops.add(AcceptanceMatcher.Operation.of((String) e.get("method"), (Map<?, ?>) e.get("params"),
+                    Boolean.TRUE.equals(e.get("result"))));
         }
+        return MATCHERS.computeIfAbsent(expectedOps, AcceptanceMatcher::compile).evaluate(ops);
+    }
+
+    static EvaluationResult evaluateRun(List<CallEvent> events, AcceptanceMatcher matcher) {
+        List<AcceptanceMatcher.Operation> ops = new ArrayList<>(events.size());
+        for (CallEvent e : events) ops.add(AcceptanceMatcher.Operation.of(e));
+        return matcher.evaluate(ops);
     }
 
-    private static String normalize(String s) {
-        return s.replaceAll("\\s+", "").replaceAll(",0\\)", "\\)").trim();
+    /**
+     * Remove espaços em branco e troca {@code ",0)"} por {@code ")"}; mesmo resultado de
+     * {@code replaceAll("\\s+", "").replaceAll(",0\\)", "\\)").trim()}, sem regex.
+     */
+    static String normalize(String s) {
+        return replaceZeroArg(stripWhitespace(s)).trim();
     }
 
-    private static AggregatedMetrics aggregateMetrics(List<Map<String, Object>> runSummaries) {
-        int total = runSummaries.size();
-        int correctCount = 0;
-        Map<String, Integer> toolUsage = new HashMap<>();
-        Set<String> distinctResults = new HashSet<>();
+    private static String stripWhitespace(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            boolean whitespace = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (whitespace) {
+                if (sb == null) sb = new StringBuilder(s.length()).append(s, 0, i);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+
+    private static String replaceZeroArg(String s) {
+        int i = s.indexOf(",0)");
+        if (i < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        int from = 0;
+        while (i >= 0) {
+            sb.append(s, from, i).append(')');
+            from = i + 3;
+            i = s.indexOf(",0)", from);
+        }
+        return sb.append(s, from, s.length()).toString();
+    }
 
+    /**
+     * Agrega resumos já carregados (formato do JSON de resumo) com o mesmo acumulador da varredura.
+     */
+    static AggregatedMetrics aggregateMetrics(List<Map<String, Object>> runSummaries) {
+        CombinationAccumulator accumulator = new CombinationAccumulator();
         for (Map<String, Object> rs : runSummaries) {
             Map<?, ?> eval = (Map<?, ?>) rs.get("evaluation");
-            Boolean corr = (Boolean) eval.get("correct");
-            if (corr != null && corr) correctCount++;
-
+            List<String> toolsUsed = new ArrayList<>();
             Object toolsUsedObj = rs.get("toolsUsed");
             if (toolsUsedObj instanceof List) {
-                List<?> lst = (List<?>) toolsUsedObj;
-                for (Object t : lst) {
-                    if (t != null) {
-                        String tn = t.toString();
-                        toolUsage.merge(tn, 1, Integer::sum);
-                    }
+                for (Object t : (List<?>) toolsUsedObj) {
+                    if (t != null) toolsUsed.add(t.toString());
                 }
             }
-
-            distinctResults.add(eval.toString());
+            List<String> normalizedOps = new ArrayList<>();
+            Object observed = eval.get("observedOps");
+            if (observed instanceof List) {
+                for (Object op : (List<?>) observed) normalizedOps.add(normalize(String.valueOf(op)));
+            }
+            Object accuracy = eval.get("sequenceAccuracy");
+            accumulator.add(Boolean.TRUE.equals(eval.get("correct")), toolsUsed,
+                    accuracy instanceof Number ? ((Number) accuracy).doubleValue() : 0.0,
+                    CombinationAccumulator.hashOps(normalizedOps));
         }
-
-        double correctness = total == 0 ? 0.0 : (double) correctCount / total;
-        boolean consistent = distinctResults.size() == 1;
-
-        return new AggregatedMetrics(total, correctCount, correctness, consistent, toolUsage);
+        return accumulator.toMetrics();
     }
 
-    private static class EvaluationResult {
+    static class EvaluationResult {
         final boolean correct;
         final List<String> mismatches;
         final List<String> observedOps;
         final int expectedCount;
         final int observedCount;
         final double sequenceAccuracy;
+        /** hash da sequência normalizada de operações observadas, usado na consistência */
+        final long observedOpsHash;
+
+        EvaluationResult(boolean correct, List<String> mismatches, List<String> observedOps,
+                         int expectedCount, double sequenceAccuracy, long observedOpsHash) {
+            this.correct = correct;
+            this.mismatches = mismatches;
+            this.observedOps = observedOps;
+            this.expectedCount = expectedCount;
+            this.observedCount = observedOps.size();
+            this.sequenceAccuracy = sequenceAccuracy;
+            this.observedOpsHash = observedOpsHash;
+        }
 
         EvaluationResult(boolean correct, List<String> mismatches, List<String> observedOps, List<String> expectedOps) {
             this.correct = correct;
@@ -553,6 +1216,10 @@ public class MainRunner {
                 }
             }
             this.sequenceAccuracy = minSize == 0 ? 0.0 : (double) matches / minSize;
+
+            List<String> normalizedOps = new ArrayList<>(observedOps.size());
+            for (String op : observedOps) normalizedOps.add(normalize(op));
+            this.observedOpsHash = CombinationAccumulator.hashOps(normalizedOps);
         }
 
         Map<String, Object> toMap() {
@@ -567,28 +1234,47 @@ public class MainRunner {
         }
     }
 
-    private static class AggregatedMetrics {
+    static class AggregatedMetrics {
         final int totalRuns;
         final int correctRuns;
+        /** canceladas por prazo; não entram em {@code totalRuns} */
+        final int cancelledRuns;
+        /** interrompidas no texto em streaming; entram em {@code totalRuns}, a corretude pode ter mudado */
+        final int earlyStoppedRuns;
         final double correctnessRatio;
         final boolean consistent;
         final Map<String, Integer> toolUsage;
+        final double sequenceAccuracyMean;
+        final double sequenceAccuracyVariance;
+        /** por modelo que respondeu: retries, fallbacks e p50/p90/p99/max de cada latência */
+        final Map<String, Object> latency;
 
-        AggregatedMetrics(int totalRuns, int correctRuns, double correctnessRatio, boolean consistent, Map<String, Integer> toolUsage) {
+        AggregatedMetrics(int totalRuns, int correctRuns, int cancelledRuns, int earlyStoppedRuns, double correctnessRatio, boolean consistent, Map<String, Integer> toolUsage,
+                          double sequenceAccuracyMean, double sequenceAccuracyVariance, Map<String, Object> latency) {
             this.totalRuns = totalRuns;
             this.correctRuns = correctRuns;
+            this.cancelledRuns = cancelledRuns;
+            this.earlyStoppedRuns = earlyStoppedRuns;
             this.correctnessRatio = correctnessRatio;
             this.consistent = consistent;
             this.toolUsage = toolUsage;
+            this.sequenceAccuracyMean = sequenceAccuracyMean;
+            this.sequenceAccuracyVariance = sequenceAccuracyVariance;
+            this.latency = latency;
         }
 
         Map<String, Object> toMap() {
             Map<String, Object> m = new LinkedHashMap<>();
             m.put("totalRuns", totalRuns);
             m.put("correctRuns", correctRuns);
+            m.put("cancelledRuns", cancelledRuns);
             m.put("correctnessRatio", correctnessRatio);
+            m.put("earlyStoppedRuns", earlyStoppedRuns);
             m.put("consistent", consistent);
             m.put("toolUsage", toolUsage);
+            m.put("sequenceAccuracyMean", sequenceAccuracyMean);
+            m.put("sequenceAccuracyVariance", sequenceAccuracyVariance);
+            m.put("latency", latency);
             return m;
         }
     }
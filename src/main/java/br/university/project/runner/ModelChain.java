@@ -0,0 +1,334 @@
+package br.university.project.runner;
+
+import br.university.project.llm.Backoff;
+import br.university.project.llm.BankingAssistant;
+import br.university.project.llm.CallDeadline;
+import br.university.project.llm.CallTimings;
+import br.university.project.llm.ChatClientCache;
+import br.university.project.llm.CircuitBreaker;
+import br.university.project.llm.EndpointRouter;
+import br.university.project.llm.ToolScope;
+import br.university.project.metrics.SweepMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Camada de resiliência das chamadas ao modelo de uma tarefa.
+ * <ul>
+ *   <li>cada modelo tem um {@link CircuitBreaker}; com o circuito aberto a tarefa não tenta e é adiada
+ *       para o lote do próximo modelo;</li>
+ *   <li>as tentativas no modelo da tarefa são separadas por backoff exponencial com jitter;</li>
+ *   <li>se uma tentativa passa do percentil {@code hedgePercentile} das latências recentes do modelo,
+ *       e de {@code hedgeMin}, sai uma tentativa de hedge no mesmo modelo em outro servidor. Com um só
+ *       servidor o hedge fica desligado, a menos que {@code hedgeCrossModel} o mande para o próximo
+ *       modelo da cadeia, o que obriga o servidor a carregar um segundo modelo (contado como troca de
+ *       modelo). A primeira resposta válida vence e as demais são canceladas;</li>
+ *   <li>todas as tentativas compartilham o prazo {@code deadline} da execução, descontado o tempo já
+ *       gasto em lotes anteriores; ao vencer, as tentativas em andamento são canceladas e a chamada
+ *       termina com {@link MainRunner.LlmCallException#isCancelled()}.</li>
+ * </ul>
+ * Cada tentativa usa o seu próprio {@link AttemptTools} e {@link CallDeadline}: cancelar uma tentativa
+ * (hedge perdedor, prazo vencido) aborta a requisição HTTP em curso e impede novas chamadas de
+ * ferramenta, então ela não deixa eventos no log da execução. O servidor de cada tentativa é escolhido
+ * pelo {@link EndpointRouter} quando ela começa, então um retry ou hedge pode ir para outro servidor.
+ */
+final class ModelChain {
+
+    private static final ExecutorService ATTEMPTS = Executors.newCachedThreadPool(new AttemptThreadFactory());
+
+    private final List<String> models;
+    private final ChatClientCache clients;
+    private final SweepMetrics metrics;
+    private final Map<String, CircuitBreaker> breakers;
+    private final Backoff backoff;
+    private final int attemptsPerModel;
+    /** {@code <= 0} desliga o hedge */
+    private final double hedgePercentile;
+    /** piso do atraso do hedge, para que o p95 de um modelo rápido não dispare cargas de modelo */
+    private final long hedgeMinNanos;
+    /** com um só servidor, hedge para o próximo modelo (recarrega modelos no servidor) */
+    private final boolean hedgeCrossModel;
+    private final Duration deadline;
+
+    ModelChain(List<String> models, ChatClientCache clients, SweepMetrics metrics, Settings settings) {
+        this.models = List.copyOf(models);
+        this.clients = clients;
+        this.metrics = metrics;
+        Map<String, CircuitBreaker> byModel = new LinkedHashMap<>();
+        for (String m : models) {
+            byModel.put(m, new CircuitBreaker(m, settings.breakerWindow, settings.breakerMinCalls,
+                    settings.breakerFailureRate, settings.slowCall.toNanos(), settings.breakerOpen.toNanos(),
+                    settings.hedgeMinSamples));
+        }
+        this.breakers = byModel;
+        this.backoff = new Backoff(settings.backoffBaseMillis, settings.backoffMaxMillis);
+        this.attemptsPerModel = Math.max(1, settings.attemptsPerModel);
+        this.hedgePercentile = settings.hedgePercentile;
+        this.hedgeMinNanos = settings.hedgeMin.toNanos();
+        this.hedgeCrossModel = settings.hedgeCrossModel;
+        this.deadline = settings.deadline;
+    }
+
+    Collection<CircuitBreaker> breakers() {
+        return breakers.values();
+    }
+
+    /**
+     * Obtém a resposta para a tarefa no seu modelo (ou no próximo, via hedge).
+     *
+     * @throws MainRunner.LlmCallException se o circuito estiver aberto, as tentativas se esgotarem
+     *                                     ou o prazo vencer (neste caso, cancelada)
+     */
+    MainRunner.LlmCall call(EndpointRouter router, String prompt, String config, ExperimentScheduler.RunTask task,
+                            Supplier<AttemptTools> toolsFactory) {
+        String model = models.get(task.modelIdx);
+        CircuitBreaker breaker = breakers.get(model);
+        String nextModel = task.modelIdx + 1 < models.size() ? models.get(task.modelIdx + 1) : null;
+        // com outro servidor, o hedge fica no modelo já carregado em vez de carregar o próximo
+        String hedgeModel = router.size() > 1 ? model : hedgeCrossModel ? nextModel : null;
+        // réplica na chave do cache de respostas: cada run da combinação tem as suas
+        String replica = "run-" + (task.runIdx + 1);
+
+        long callStart = System.nanoTime();
+        long deadlineAt = callStart + deadline.toNanos() - task.priorNanos;
+        int attempts = 0;
+        Exception lastException = null;
+        CompletionService<Attempt> completion = new ExecutorCompletionService<>(ATTEMPTS);
+        Map<Future<Attempt>, Attempt> running = new HashMap<>();
+        List<AttemptTools> created = new ArrayList<>();
+        AttemptTools winner = null;
+
+        try {
+            for (int retry = 0; retry < attemptsPerModel; retry++) {
+                if (System.nanoTime() >= deadlineAt) throw expired(running, lastException, attempts, callStart);
+                if (retry > 0) {
+                    long wait = Math.min(backoff.delayMillis(retry),
+                            TimeUnit.NANOSECONDS.toMillis(Math.max(0, deadlineAt - System.nanoTime())));
+                    System.out.println("⏳ Aguardando " + wait + " ms antes da próxima tentativa...");
+                    Thread.sleep(wait);
+                    metrics.llmRetry();
+                }
+                if (!breaker.tryAcquire()) {
+                    System.err.println("🚫 Circuito aberto para o modelo " + model);
+                    if (lastException == null) lastException = new IllegalStateException("circuit open for " + model);
+                    break;
+                }
+
+                attempts++;
+                metrics.llmCall();
+                System.out.println("🔄 Tentativa " + (retry + 1) + " com modelo: " + model);
+                AttemptTools primaryTools = toolsFactory.get();
+                created.add(primaryTools);
+                Attempt primary = new Attempt(router, model, config, prompt, replica, primaryTools,
+                        CallDeadline.at(deadlineAt), false, null);
+                running.put(completion.submit(primary), primary);
+                long primaryStart = System.nanoTime();
+                long hedgeAt = -1;
+                if (hedgeModel != null && hedgePercentile > 0) {
+                    long p = breaker.latencyPercentileNanos(hedgePercentile);
+                    if (p >= 0) hedgeAt = primaryStart + Math.max(p, hedgeMinNanos);
+                }
+
+                while (!running.isEmpty()) {
+                    long now = System.nanoTime();
+                    if (now >= deadlineAt) throw expired(running, lastException, attempts, callStart);
+                    long wait = deadlineAt - now;
+                    if (hedgeAt >= 0) wait = Math.min(wait, Math.max(0, hedgeAt - now));
+
+                    Future<Attempt> done = completion.poll(wait, TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        if (hedgeAt >= 0 && System.nanoTime() >= hedgeAt) {
+                            hedgeAt = -1;
+                            if (breakers.get(hedgeModel).tryAcquire()) {
+                                attempts++;
+                                metrics.llmCall();
+                                metrics.llmHedge();
+                                boolean sameModel = hedgeModel.equals(model);
+                                if (sameModel) {
+                                    System.out.println("🪁 Hedge para o modelo " + model + " em outro servidor (tentativa em "
+                                            + primary.endpoint + " lenta)");
+                                } else {
+                                    metrics.hedgeModelSwitch();
+                                    System.out.println("🪁 Hedge para o modelo " + hedgeModel + " (tentativa em " + model + " lenta)");
+                                }
+                                AttemptTools hedgeTools = toolsFactory.get();
+                                created.add(hedgeTools);
+                                Attempt hedge = new Attempt(router, hedgeModel, config, prompt, replica,
+                                        hedgeTools, CallDeadline.at(deadlineAt), true, sameModel ? primary.endpoint : null);
+                                running.put(completion.submit(hedge), hedge);
+                            }
+                        }
+                        continue;
+                    }
+
+                    Attempt attempt = running.remove(done);
+                    try {
+                        done.get();
+                    } catch (ExecutionException e) {
+                        attempt.error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                    CircuitBreaker attemptBreaker = breakers.get(attempt.model);
+                    if (attempt.error instanceof CancellationException) {
+                        // o timeout da requisição é o prazo da execução: a tentativa só foi cancelada
+                        attemptBreaker.onCancelled();
+                        if (System.nanoTime() >= deadlineAt || attempt.deadline.isCancelled()) {
+                            throw expired(running, lastException, attempts, callStart);
+                        }
+                        continue;
+                    }
+                    if (attempt.error == null) {
+                        attemptBreaker.onSuccess(attempt.endNanos - attempt.startNanos);
+                        if (attempt.hedge) metrics.llmHedgeWon();
+                        System.out.println("✅ LLM response received with model: " + attempt.model);
+                        winner = attempt.tools;
+                        return new MainRunner.LlmCall(attempt.text, attempt.model, task.priorAttempts + attempts,
+                                models.indexOf(attempt.model), attempt.timings, attempt.startNanos,
+                                task.priorNanos + System.nanoTime() - callStart, attempt.tools, attempt.endpoint);
+                    }
+
+                    attemptBreaker.onFailure();
+                    lastException = attempt.error;
+                    System.err.println("❌ Tentativa com modelo " + attempt.model + " falhou: " + attempt.error.getMessage());
+                    if (attempt.error.getCause() instanceof IllegalArgumentException) {
+                        System.err.println("🔍 Erro de parâmetros inválidos - o modelo está gerando argumentos incorretos");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MainRunner.LlmCallException("Interrupted while waiting for the model", e,
+                    attempts, System.nanoTime() - callStart);
+        } finally {
+            for (Map.Entry<Future<Attempt>, Attempt> entry : running.entrySet()) {
+                entry.getValue().deadline.cancel("superseded");
+                entry.getKey().cancel(true);
+                breakers.get(entry.getValue().model).onCancelled();
+            }
+            // só os efeitos da vencedora ficam no ledger
+            for (AttemptTools tools : created) {
+                if (tools != winner) tools.discard();
+            }
+        }
+
+        throw new MainRunner.LlmCallException("❌ Todas as tentativas com o modelo " + model + " falharam. Último erro: " +
+                (lastException != null ? lastException.getMessage() : "Desconhecido"), lastException,
+                attempts, System.nanoTime() - callStart);
+    }
+
+    /**
+     * Prazo da execução vencido: cancela as tentativas em andamento (o {@code finally} de {@link #call}
+     * as tira do circuito) e devolve a exceção de chamada cancelada.
+     */
+    private MainRunner.LlmCallException expired(Map<Future<Attempt>, Attempt> running, Exception lastException,
+                                                int attempts, long callStart) {
+        metrics.llmTimeout();
+        for (Attempt attempt : running.values()) attempt.deadline.cancel("deadline exceeded");
+        return MainRunner.LlmCallException.cancelled("Run deadline of " + deadline.getSeconds()
+                + " seconds exceeded", lastException, attempts, System.nanoTime() - callStart);
+    }
+
+    /**
+     * Uma chamada ao assistente, executada numa thread própria com o {@link ToolScope} das suas ferramentas.
+     */
+    private final class Attempt implements Callable<Attempt> {
+        final EndpointRouter router;
+        final String model;
+        final String config;
+        final String prompt;
+        final String replica;
+        final AttemptTools tools;
+        final CallDeadline deadline;
+        final boolean hedge;
+        /** servidor da tentativa principal, evitado pelo hedge no mesmo modelo */
+        final String avoidEndpoint;
+        final CallTimings timings = new CallTimings();
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String text;
+        volatile Exception error;
+        volatile String endpoint;
+
+        Attempt(EndpointRouter router, String model, String config, String prompt, String replica,
+                AttemptTools tools, CallDeadline deadline, boolean hedge, String avoidEndpoint) {
+            this.router = router;
+            this.model = model;
+            this.config = config;
+            this.prompt = prompt;
+            this.replica = replica;
+            this.tools = tools;
+            this.deadline = deadline;
+            this.hedge = hedge;
+            this.avoidEndpoint = avoidEndpoint;
+        }
+
+        @Override
+        public Attempt call() throws Exception {
+            startNanos = System.nanoTime();
+            EndpointRouter.Lease lease = router.acquire(avoidEndpoint);
+            endpoint = lease.baseUrl();
+            Throwable failure = null;
+            try {
+                BankingAssistant assistant = clients.assistant(
+                        new ChatClientCache.ModelKey(endpoint, model, 0.0, ModelChain.this.deadline), config);
+                ToolScope scope = ToolScope.open(timings, replica, deadline, tools.toolsA, tools.toolsB, tools.toolsC);
+                try {
+                    text = assistant.chat(prompt);
+                } finally {
+                    scope.close();
+                }
+                return this;
+            } catch (Exception | Error e) {
+                failure = e;
+                throw e;
+            } finally {
+                endNanos = System.nanoTime();
+                lease.release(failure);
+            }
+        }
+    }
+
+    static final class Settings {
+        int attemptsPerModel = 2;
+        long backoffBaseMillis = 1000;
+        long backoffMaxMillis = 8000;
+        int breakerWindow = 20;
+        int breakerMinCalls = 10;
+        double breakerFailureRate = 0.5;
+        Duration slowCall = Duration.ofSeconds(120);
+        Duration breakerOpen = Duration.ofSeconds(30);
+        double hedgePercentile = 0.95;
+        int hedgeMinSamples = 20;
+        Duration hedgeMin = Duration.ofSeconds(10);
+        boolean hedgeCrossModel = false;
+        Duration deadline = Duration.ofSeconds(300);
+    }
+
+    private static final class AttemptThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "llm-attempt-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package br.university.project.runner;
+
+import br.university.project.util.CallEvent;
+
+import java.util.List;
+
+/**
+ * Tempos de uma execução: ponta a ponta, até a primeira chamada de ferramenta, intervalos entre
+ * chamadas, turnos do modelo, primeiro token de cada turno (em streaming) e execuções de ferramenta,
+ * além do modelo que respondeu e de quantas tentativas e trocas de modelo foram necessárias. Guarda
+ * também o custo da superfície de ferramentas: bytes de especificação por requisição e tokens.
+ */
+final class RunLatency {
+    final String model;
+    final int attempts;
+    final int fallbacks;
+    final long runNanos;
+    /** {@code -1} quando o modelo não chamou nenhuma ferramenta */
+    final long firstToolCallNanos;
+    final long[] toolGapNanos;
+    final long[] modelTurnNanos;
+    final long[] toolCallNanos;
+    /** vazio sem streaming */
+    final long[] firstTokenNanos;
+    /** turnos finais interrompidos pela parada antecipada do streaming */
+    final int earlyStops;
+    /** tamanho do array {@code tools} de cada requisição */
+    final int toolSpecBytes;
+    /** somado nas requisições que chegaram ao modelo (respostas do cache não contam) */
+    final long toolSpecBytesSent;
+    final long promptTokens;
+    final long completionTokens;
+
+    RunLatency(String model, int attempts, int fallbacks, long runNanos, long firstToolCallNanos,
+               long[] toolGapNanos, long[] modelTurnNanos, long[] toolCallNanos,
+               long[] firstTokenNanos, int earlyStops, int toolSpecBytes, long toolSpecBytesSent,
+               long promptTokens, long completionTokens) {
+        this.model = model;
+        this.attempts = attempts;
+        this.fallbacks = fallbacks;
+        this.runNanos = runNanos;
+        this.firstToolCallNanos = firstToolCallNanos;
+        this.toolGapNanos = toolGapNanos;
+        this.modelTurnNanos = modelTurnNanos;
+        this.toolCallNanos = toolCallNanos;
+        this.firstTokenNanos = firstTokenNanos;
+        this.earlyStops = earlyStops;
+        this.toolSpecBytes = toolSpecBytes;
+        this.toolSpecBytesSent = toolSpecBytesSent;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+    }
+
+
+    /**
+     * Deriva primeira chamada e intervalos dos eventos registrados a partir de {@code chatStartNanos}
+     * (início da tentativa que respondeu); eventos de tentativas anteriores são ignorados.
+     */
+    static RunLatency of(MainRunner.LlmCall call, List<CallEvent> events) {
+        int first = 0;
+        while (first < events.size() && events.get(first).getNanoTime() < call.chatStartNanos) first++;
+
+        long firstToolCall = first < events.size() ? events.get(first).getNanoTime() - call.chatStartNanos : -1;
+        int gapCount = Math.max(0, events.size() - first - 1);
+        long[] gaps = new long[gapCount];
+        for (int i = 0; i < gapCount; i++) {
+            gaps[i] = events.get(first + i + 1).getNanoTime() - events.get(first + i).getNanoTime();
+        }
+        return new RunLatency(call.model, call.attempts, call.fallbacks, call.totalNanos, firstToolCall, gaps,
+                call.timings.getModelTurnNanos(), call.timings.getToolCallNanos(),
+                call.timings.getFirstTokenNanos(), call.timings.getEarlyStops(), call.timings.getToolSpecBytes(),
+                call.timings.getToolSpecBytesSent(), call.timings.getPromptTokens(), call.timings.getCompletionTokens());
+    }
+}
@@ -0,0 +1,31 @@
+package br.university.project.runner;
+
+import java.util.List;
+
+/**
+ * O que sobra de uma execução depois que eventos e resumo foram gravados: só o necessário
+ * para a agregação da combinação.
+ */
+final class RunOutcome {
+    final MainRunner.EvaluationResult evaluation;
+    final List<String> toolsUsed;
+    /** {@code null} quando a execução não foi cronometrada */
+    final RunLatency latency;
+    /** prazo da execução venceu antes da resposta do modelo; fica fora da corretude da combinação */
+    final boolean cancelled;
+
+    RunOutcome(MainRunner.EvaluationResult evaluation, List<String> toolsUsed) {
+        this(evaluation, toolsUsed, null);
+    }
+
+    RunOutcome(MainRunner.EvaluationResult evaluation, List<String> toolsUsed, RunLatency latency) {
+        this(evaluation, toolsUsed, latency, false);
+    }
+
+    RunOutcome(MainRunner.EvaluationResult evaluation, List<String> toolsUsed, RunLatency latency, boolean cancelled) {
+        this.evaluation = evaluation;
+        this.toolsUsed = toolsUsed;
+        this.latency = latency;
+        this.cancelled = cancelled;
+    }
+}
@@ -0,0 +1,226 @@
+package br.university.project.runner;
+
+import br.university.project.model.OperationType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tabela declarativa dos cenários (por padrão o recurso {@code scenario-rules.txt}; com
+ * {@code SCENARIO_RULES} definido, o arquivo indicado). Cada linha é uma regra
+ * {@code cenário operação contas ocorrências resultado}; o formato está descrito no próprio recurso.
+ * <p>
+ * Cada cenário é compilado uma vez num {@link Compiled} imutável, compartilhado por todas as
+ * execuções: por operação e conta, os índices das regras que se aplicam. O estado de uma execução
+ * (ocorrências por regra) fica no {@link ScenarioController}.
+ */
+final class ScenarioRules {
+
+    static final String RESOURCE = "scenario-rules.txt";
+
+    private final Map<String, List<Rule>> rulesByScenario;
+    private final ConcurrentMap<String, Compiled> compiled = new ConcurrentHashMap<>();
+
+    private ScenarioRules(Map<String, List<Rule>> rulesByScenario) {
+        this.rulesByScenario = rulesByScenario;
+    }
+
+    /**
+     * Tabela da varredura: {@code SCENARIO_RULES} ou o recurso padrão, carregada uma vez.
+     */
+    static ScenarioRules standard() {
+        return Holder.STANDARD;
+    }
+
+    static ScenarioRules parse(Reader reader) throws IOException {
+        Map<String, List<Rule>> rules = new LinkedHashMap<>();
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            int hash = line.indexOf('#');
+            String text = (hash >= 0 ? line.substring(0, hash) : line).trim();
+            if (text.isEmpty()) continue;
+            String[] cols = text.split("\\s+");
+            if (cols.length != 5) {
+                throw new IllegalArgumentException("scenario rules line " + lineNo + ": expected 5 columns, got " + cols.length);
+            }
+            try {
+                rules.computeIfAbsent(cols[0].toUpperCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(Rule.of(cols[1], cols[2], cols[3], cols[4]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("scenario rules line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+        return new ScenarioRules(rules);
+    }
+
+    /**
+     * Regras compiladas do cenário; um cenário sem regras sucede em todas as operações.
+     */
+    Compiled compile(String scenario) {
+        String key = scenario.toUpperCase(Locale.ROOT);
+        return compiled.computeIfAbsent(key, k -> new Compiled(k, rulesByScenario.getOrDefault(k, List.of())));
+    }
+
+    /**
+     * Compila regras avulsas (fora da tabela), como as de uma variante do {@link WorkloadGenerator}.
+     */
+    static Compiled compile(String name, List<Rule> rules) {
+        return new Compiled(name.toUpperCase(Locale.ROOT), rules);
+    }
+
+    /**
+     * Uma linha da tabela. {@code accounts == null} casa com qualquer conta; ocorrências em
+     * {@code [from, to]}, base 1.
+     */
+    static final class Rule {
+        final OperationType type;
+        final List<String> accounts;
+        final int from;
+        final int to;
+        final boolean outcome;
+
+        private Rule(OperationType type, List<String> accounts, int from, int to, boolean outcome) {
+            this.type = type;
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+            this.outcome = outcome;
+        }
+
+        static Rule of(String type, String accounts, String occurrences, String outcome) {
+            OperationType op = OperationType.valueOf(type.toUpperCase(Locale.ROOT));
+            List<String> accountList = accounts.equals("*") ? null : List.of(accounts.split(","));
+
+            int from;
+            int to;
+            if (occurrences.equals("*")) {
+                from = 1;
+                to = Integer.MAX_VALUE;
+            } else {
+                int dash = occurrences.indexOf('-');
+                if (dash < 0) {
+                    from = to = Integer.parseInt(occurrences);
+                } else {
+                    from = Integer.parseInt(occurrences.substring(0, dash));
+                    String end = occurrences.substring(dash + 1);
+                    to = end.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(end);
+                }
+                if (from < 1 || to < from) throw new IllegalArgumentException("invalid occurrences: " + occurrences);
+            }
+
+            boolean result;
+            switch (outcome.toUpperCase(Locale.ROOT)) {
+                case "OK":
+                    result = true;
+                    break;
+                case "FAIL":
+                    result = false;
+                    break;
+                default:
+                    throw new IllegalArgumentException("outcome must be OK or FAIL: " + outcome);
+            }
+            return new Rule(op, accountList, from, to, result);
+        }
+    }
+
+    /**
+     * Consulta pré-computada de um cenário: para cada operação, os índices das regras por conta
+     * (já incluindo as regras de qualquer conta, na ordem da tabela).
+     */
+    static final class Compiled {
+        private static final int[] NONE = new int[0];
+
+        final String name;
+        private final Rule[] rules;
+        private final EnumMap<OperationType, Map<String, int[]>> byAccount = new EnumMap<>(OperationType.class);
+        private final EnumMap<OperationType, int[]> anyAccount = new EnumMap<>(OperationType.class);
+
+        private Compiled(String name, List<Rule> ruleList) {
+            this.name = name;
+            this.rules = ruleList.toArray(new Rule[0]);
+            for (OperationType type : OperationType.values()) {
+                List<Integer> wildcard = new ArrayList<>();
+                Map<String, List<Integer>> perAccount = new HashMap<>();
+                for (int i = 0; i < rules.length; i++) {
+                    Rule r = rules[i];
+                    if (r.type != type) continue;
+                    if (r.accounts == null) {
+                        wildcard.add(i);
+                        for (List<Integer> l : perAccount.values()) l.add(i);
+                    } else {
+                        for (String account : r.accounts) {
+                            perAccount.computeIfAbsent(account, a -> new ArrayList<>(wildcard)).add(i);
+                        }
+                    }
+                }
+                Map<String, int[]> lookup = new HashMap<>();
+                for (Map.Entry<String, List<Integer>> e : perAccount.entrySet()) lookup.put(e.getKey(), toArray(e.getValue()));
+                byAccount.put(type, lookup);
+                anyAccount.put(type, toArray(wildcard));
+            }
+        }
+
+        int ruleCount() {
+            return rules.length;
+        }
+
+        Rule rule(int index) {
+            return rules[index];
+        }
+
+        /**
+         * Índices das regras que se aplicam à chamada, na ordem da tabela.
+         */
+        int[] rulesFor(OperationType type, String account) {
+            int[] specific = byAccount.get(type).get(account);
+            return specific != null ? specific : anyAccount.getOrDefault(type, NONE);
+        }
+
+        private static int[] toArray(List<Integer> list) {
+            int[] out = new int[list.size()];
+            for (int i = 0; i < out.length; i++) out[i] = list.get(i);
+            return out;
+        }
+    }
+
+    private static final class Holder {
+        static final ScenarioRules STANDARD = load();
+
+        private static ScenarioRules load() {
+            String path = System.getenv("SCENARIO_RULES");
+            try {
+                if (path != null && !path.isBlank()) {
+                    try (Reader r = Files.newBufferedReader(Path.of(path.trim()), StandardCharsets.UTF_8)) {
+                        return parse(r);
+                    }
+                }
+                InputStream in = ScenarioRules.class.getClassLoader().getResourceAsStream(RESOURCE);
+                if (in == null) throw new IllegalStateException("Missing resource " + RESOURCE);
+                try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                    return parse(r);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read scenario rules", e);
+            }
+        }
+    }
+}
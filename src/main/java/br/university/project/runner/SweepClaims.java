@@ -0,0 +1,122 @@
+package br.university.project.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Divisão da varredura entre vários processos do runner ({@code SHARD_ID}) que compartilham um
+ * diretório local ({@code SHARD_DIR}/{@code claims-<sweepId>/}).
+ * <p>
+ * Cada combinação é reivindicada por um arquivo {@code <combinação>.claim} com o id do shard, criado
+ * como hard link de um arquivo temporário já escrito: o link falha se o arquivo existir, então só um
+ * processo ganha e ninguém lê um claim pela metade. A reivindicação acontece quando o scheduler puxa
+ * a combinação, ou seja, quando há vaga nos workers, e um processo mais rápido acaba ficando com
+ * mais combinações. Um shard reiniciado com o mesmo id reconhece os próprios claims e os retoma
+ * pelo seu journal.
+ */
+final class SweepClaims {
+
+    private final Path dir;
+    private final String shardId;
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    private SweepClaims(Path dir, String shardId) {
+        this.dir = dir;
+        this.shardId = shardId;
+    }
+
+    static SweepClaims open(File shardDir, String sweepId, String shardId) throws IOException {
+        Path dir = new File(shardDir, "claims-" + sweepId).toPath();
+        Files.createDirectories(dir);
+        return new SweepClaims(dir, shardId);
+    }
+
+    String getShardId() {
+        return shardId;
+    }
+
+    /**
+     * @return se a combinação é deste shard (reivindicada agora ou antes de um reinício)
+     */
+    boolean claim(ExperimentScheduler.Combination c) throws IOException {
+        Path claim = dir.resolve(c.key() + ".claim");
+        Path tmp = dir.resolve(c.key() + "." + shardId + ".tmp");
+        Files.write(tmp, shardId.getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.createLink(claim, tmp);
+            claimed.incrementAndGet();
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return owned(claim);
+        } catch (UnsupportedOperationException e) {
+            // sem hard links: CREATE_NEW também é atômico, mas o conteúdo chega depois
+            try {
+                Files.write(claim, shardId.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+                claimed.incrementAndGet();
+                return true;
+            } catch (FileAlreadyExistsException taken) {
+                return owned(claim);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private boolean owned(Path claim) throws IOException {
+        if (shardId.equals(Files.readString(claim, StandardCharsets.UTF_8).trim())) {
+            claimed.incrementAndGet();
+            return true;
+        }
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * As combinações de {@code source} que este shard conseguir reivindicar, sob demanda.
+     */
+    Iterator<ExperimentScheduler.Combination> claiming(Iterator<ExperimentScheduler.Combination> source) {
+        return new Iterator<>() {
+            private ExperimentScheduler.Combination next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && source.hasNext()) {
+                    ExperimentScheduler.Combination c = source.next();
+                    try {
+                        if (claim(c)) next = c;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not claim " + c, e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public ExperimentScheduler.Combination next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ExperimentScheduler.Combination c = next;
+                next = null;
+                return c;
+            }
+        };
+    }
+
+    int getClaimed() {
+        return claimed.get();
+    }
+
+    int getSkipped() {
+        return skipped.get();
+    }
+}
@@ -0,0 +1,190 @@
+package br.university.project.runner;
+
+import br.university.project.store.RunJournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Journal da varredura ({@code results/journal-<sweepId>.wal}): cada execução concluída é registrada,
+ * com fsync, antes de ir para os sinks de resultados. O registro guarda o resumo, os eventos e o que
+ * a agregação precisa ({@code observedOpsHash} e latências), de modo que uma varredura interrompida
+ * possa ser retomada com o mesmo {@code SWEEP_ID} reconstruindo os acumuladores sem reexecutar nada.
+ */
+final class SweepJournal implements AutoCloseable {
+
+    private final RunJournal journal;
+
+    private SweepJournal(RunJournal journal) {
+        this.journal = journal;
+    }
+
+    static SweepJournal open(File dir, String sweepId) throws IOException {
+        return new SweepJournal(RunJournal.open(new File(dir, "journal-" + sweepId + ".wal")));
+    }
+
+    File getFile() {
+        return journal.getFile();
+    }
+
+    long getDiscardedBytes() {
+        return journal.getDiscardedBytes();
+    }
+
+    /**
+     * Registros relidos na abertura, na ordem de gravação.
+     */
+    List<Map<String, Object>> records() {
+        return journal.getReplayed();
+    }
+
+    void record(Map<String, Object> runSummary, List<Map<String, Object>> events, RunOutcome outcome) throws IOException {
+        Map<String, Object> summary = new LinkedHashMap<>(runSummary);
+        summary.remove("events");
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("summary", summary);
+        record.put("events", events);
+        record.put("observedOpsHash", outcome.evaluation.observedOpsHash);
+        if (outcome.latency != null) record.put("latency", latencyToMap(outcome.latency));
+        journal.append(record);
+    }
+
+    /**
+     * Execuções já registradas para as combinações pedidas, por combinação e índice de execução
+     * (base 0). Registros de combinações fora da lista ou além de {@code runsPerCombination}
+     * são ignorados; se um índice aparecer mais de uma vez, vale o primeiro.
+     */
+    Map<ExperimentScheduler.Combination, Map<Integer, RunOutcome>> completedRuns(
+            Collection<ExperimentScheduler.Combination> combinations, int runsPerCombination) {
+        return completedRuns(runsPerCombination, new HashSet<>(combinations)::contains);
+    }
+
+    /**
+     * Como {@link #completedRuns(Collection, int)}, para cargas que não cabem numa lista: a
+     * combinação de cada registro é aceita ou não por {@code belongs}.
+     */
+    Map<ExperimentScheduler.Combination, Map<Integer, RunOutcome>> completedRuns(
+            int runsPerCombination, Predicate<ExperimentScheduler.Combination> belongs) {
+        Map<ExperimentScheduler.Combination, Map<Integer, RunOutcome>> completed = new HashMap<>();
+        for (Map<String, Object> record : records()) {
+            Map<String, Object> summary = summaryOf(record);
+            ExperimentScheduler.Combination c = new ExperimentScheduler.Combination(
+                    String.valueOf(summary.get("config")), String.valueOf(summary.get("prompt")),
+                    String.valueOf(summary.get("scenario")));
+            int runIdx = intOf(summary.get("runIdx")) - 1;
+            if (runIdx < 0 || runIdx >= runsPerCombination || !belongs.test(c)) continue;
+            completed.computeIfAbsent(c, k -> new TreeMap<>()).putIfAbsent(runIdx, outcomeOf(record));
+        }
+        return completed;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> summaryOf(Map<String, Object> record) {
+        Object summary = record.get("summary");
+        return summary instanceof Map ? (Map<String, Object>) summary : Map.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> eventsOf(Map<String, Object> record) {
+        Object events = record.get("events");
+        return events instanceof List ? (List<Map<String, Object>>) events : List.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    static RunOutcome outcomeOf(Map<String, Object> record) {
+        Map<String, Object> summary = summaryOf(record);
+        Map<String, Object> evaluation = summary.get("evaluation") instanceof Map
+                ? (Map<String, Object>) summary.get("evaluation") : Map.of();
+
+        MainRunner.EvaluationResult eval = new MainRunner.EvaluationResult(
+                Boolean.TRUE.equals(evaluation.get("correct")),
+                stringList(evaluation.get("mismatches")),
+                stringList(evaluation.get("observedOps")),
+                intOf(evaluation.get("expectedCount")),
+                evaluation.get("sequenceAccuracy") instanceof Number
+                        ? ((Number) evaluation.get("sequenceAccuracy")).doubleValue() : 0.0,
+                record.get("observedOpsHash") instanceof Number
+                        ? ((Number) record.get("observedOpsHash")).longValue() : 0L);
+
+        RunLatency latency = record.get("latency") instanceof Map
+                ? latencyFromMap((Map<String, Object>) record.get("latency")) : null;
+        return new RunOutcome(eval, stringList(summary.get("toolsUsed")), latency,
+                MainRunner.STATUS_CANCELLED.equals(summary.get("status")));
+    }
+
+    private static Map<String, Object> latencyToMap(RunLatency latency) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("model", latency.model);
+        m.put("attempts", latency.attempts);
+        m.put("fallbacks", latency.fallbacks);
+        m.put("runNanos", latency.runNanos);
+        m.put("firstToolCallNanos", latency.firstToolCallNanos);
+        m.put("toolGapNanos", latency.toolGapNanos);
+        m.put("modelTurnNanos", latency.modelTurnNanos);
+        m.put("toolCallNanos", latency.toolCallNanos);
+        m.put("firstTokenNanos", latency.firstTokenNanos);
+        m.put("earlyStops", latency.earlyStops);
+        m.put("toolSpecBytes", latency.toolSpecBytes);
+        m.put("toolSpecBytesSent", latency.toolSpecBytesSent);
+        m.put("promptTokens", latency.promptTokens);
+        m.put("completionTokens", latency.completionTokens);
+        return m;
+    }
+
+    private static RunLatency latencyFromMap(Map<String, Object> m) {
+        return new RunLatency(
+                m.get("model") == null ? null : m.get("model").toString(),
+                intOf(m.get("attempts")),
+                intOf(m.get("fallbacks")),
+                longOf(m.get("runNanos")),
+                m.get("firstToolCallNanos") instanceof Number ? longOf(m.get("firstToolCallNanos")) : -1,
+                longArray(m.get("toolGapNanos")),
+                longArray(m.get("modelTurnNanos")),
+                longArray(m.get("toolCallNanos")),
+                longArray(m.get("firstTokenNanos")),
+                intOf(m.get("earlyStops")),
+                intOf(m.get("toolSpecBytes")),
+                longOf(m.get("toolSpecBytesSent")),
+                longOf(m.get("promptTokens")),
+                longOf(m.get("completionTokens")));
+    }
+
+    private static List<String> stringList(Object o) {
+        if (!(o instanceof List)) return new ArrayList<>();
+        List<?> in = (List<?>) o;
+        List<String> out = new ArrayList<>(in.size());
+        for (Object item : in) out.add(String.valueOf(item));
+        return out;
+    }
+
+    private static long[] longArray(Object o) {
+        if (!(o instanceof List)) return new long[0];
+        List<?> in = (List<?>) o;
+        long[] out = new long[in.size()];
+        for (int i = 0; i < out.length; i++) out[i] = longOf(in.get(i));
+        return out;
+    }
+
+    private static int intOf(Object o) {
+        return o instanceof Number ? ((Number) o).intValue() : 0;
+    }
+
+    private static long longOf(Object o) {
+        return o instanceof Number ? ((Number) o).longValue() : 0L;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
@@ -0,0 +1,316 @@
+package br.university.project.runner;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador paramétrico de cargas: transforma os três modelos de prompt da grade (transferência com
+ * taxa, retiradas até falha, dupla retirada condicional) em variantes com contas, valores, número de
+ * repetições e ponto de falha sorteados.
+ * <p>
+ * Nada é guardado: a variante {@code i} é sempre recalculada a partir de {@code (semente, i)}, então o
+ * agendador recebe as combinações de um iterador preguiçoso, a execução reconstrói prompt, regras e
+ * critério pelo id ({@code G000123}) e uma varredura retomada do journal reencontra as mesmas variantes.
+ * O texto de cada variante segue a redação de {@code PROMPT1}..{@code PROMPT3}, e por isso também é
+ * reconhecido pelos roteiros do stand-in.
+ */
+final class WorkloadGenerator {
+
+    static final String ID_PREFIX = "G";
+
+    /** cenário da combinação: {@code A} sem falha injetada, {@code B} com falha */
+    static final String NO_FAILURE = "A";
+    static final String WITH_FAILURE = "B";
+
+    enum Template {
+        TRANSFER_WITH_FEE("GEN_TRANSFER"),
+        REPEAT_UNTIL_FAILURE("GEN_REPEAT"),
+        CONDITIONAL_WITHDRAW("GEN_DOUBLE");
+
+        /** rótulo nas métricas por combinação (uma série por modelo, não por variante) */
+        final String label;
+
+        Template(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Template[] TEMPLATES = Template.values();
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final long seed;
+    private final int variants;
+    private final double failureRate;
+
+    /**
+     * @param failureRate fração das variantes com falha injetada (cenário {@code B})
+     */
+    WorkloadGenerator(long seed, int variants, double failureRate) {
+        if (variants < 0) throw new IllegalArgumentException("variants must be >= 0: " + variants);
+        if (failureRate < 0.0 || failureRate > 1.0) {
+            throw new IllegalArgumentException("failureRate must be in [0, 1]: " + failureRate);
+        }
+        this.seed = seed;
+        this.variants = variants;
+        this.failureRate = failureRate;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    int getVariants() {
+        return variants;
+    }
+
+    static String idOf(int index) {
+        return String.format(Locale.ROOT, "%s%06d", ID_PREFIX, index);
+    }
+
+    /**
+     * Variante pelo id da combinação; {@code null} se o id não pertence a esta carga.
+     */
+    Variant variant(String id) {
+        if (id == null || !id.startsWith(ID_PREFIX) || id.length() <= ID_PREFIX.length()) return null;
+        int index;
+        try {
+            index = Integer.parseInt(id.substring(ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (index < 0 || index >= variants || !id.equals(idOf(index))) return null;
+        return variant(index);
+    }
+
+    Variant variant(int index) {
+        if (index < 0 || index >= variants) throw new IndexOutOfBoundsException("variant " + index);
+        // um gerador por variante: a variante i não depende de quantas vieram antes
+        SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        Template template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+        boolean fail = random.nextDouble() < failureRate;
+        switch (template) {
+            case TRANSFER_WITH_FEE:
+                return transferWithFee(index, random, fail);
+            case REPEAT_UNTIL_FAILURE:
+                return repeatUntilFailure(index, random, fail);
+            default:
+                return conditionalWithdraw(index, random, fail);
+        }
+    }
+
+    /**
+     * Combinações das variantes, na ordem {@code variante × configuração}, geradas conforme o
+     * agendador as consome.
+     */
+    Iterator<ExperimentScheduler.Combination> combinations(List<String> configs) {
+        List<String> configList = List.copyOf(configs);
+        return new Iterator<>() {
+            private int index;
+            private int config;
+            private String scenario;
+
+            @Override
+            public boolean hasNext() {
+                return !configList.isEmpty() && index < variants;
+            }
+
+            @Override
+            public ExperimentScheduler.Combination next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                if (config == 0) scenario = variant(index).scenario;
+                ExperimentScheduler.Combination c =
+                        new ExperimentScheduler.Combination(configList.get(config), idOf(index), scenario);
+                if (++config == configList.size()) {
+                    config = 0;
+                    index++;
+                }
+                return c;
+            }
+        };
+    }
+
+    /**
+     * A combinação pertence a esta carga (id gerado e cenário igual ao da variante)?
+     */
+    boolean contains(ExperimentScheduler.Combination c) {
+        Variant v = variant(c.prompt);
+        return v != null && v.scenario.equals(c.scenario);
+    }
+
+    // -----------------------------
+    // Modelos
+    // -----------------------------
+    private Variant transferWithFee(int index, SplittableRandom random, boolean fail) {
+        String[] accounts = accounts(random, 2);
+        String from = accounts[0];
+        String to = accounts[1];
+        double amount = 100.0 * (1 + random.nextInt(50));
+        double fee = 0.25 * (1 + random.nextInt(40));
+
+        String prompt = String.format(Locale.ROOT, "Transfer %s from account %s to the account %s by withdrawing"
+                        + " from the first and depositing into the second. If both operations are successful,"
+                        + " change %.2f from the first account. If not, return the value to the account and don't"
+                        + " charge the tax.", whole(amount), from, to, fee);
+
+        List<String> rules = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        if (!fail) {
+            expected.add(op("withdraw", from, amount));
+            expected.add(op("deposit", to, amount));
+            expected.add(op("taxes", from, fee));
+        } else if (random.nextBoolean()) {
+            rules.add("WITHDRAW " + from + " 1 FAIL");
+            expected.add(failed(op("withdraw", from, amount)));
+        } else {
+            rules.add("DEPOSIT " + to + " * FAIL");
+            expected.add(op("withdraw", from, amount));
+            expected.add(failed(op("deposit", to, amount)));
+            expected.add(op("returnValue", from, amount));
+        }
+        return new Variant(index, Template.TRANSFER_WITH_FEE, prompt, fail, rules, expected);
+    }
+
+    private Variant repeatUntilFailure(int index, SplittableRandom random, boolean fail) {
+        String[] accounts = accounts(random, 2);
+        String source = accounts[0];
+        String target = accounts[1];
+        double amount = 100.0 * (1 + random.nextInt(20));
+        int maxRepeats = 2 + random.nextInt(7);
+        int taxPercent = 1 + random.nextInt(20);
+        // ocorrência (base 1) do saque que falha; além do limite, nenhum falha
+        int failAt = fail ? 1 + random.nextInt(maxRepeats) : maxRepeats + 1;
+
+        String prompt = String.format(Locale.ROOT, "Execute withdrawal operations of %s from account %s one at a"
+                        + " time. Repeat until a failure is received, or until this operation has been executed %d"
+                        + " times. Deposit the total value withdrawn in account %s and pay a tax of %d%% of the value"
+                        + " deposited in the account %s.", whole(amount), source, maxRepeats, target, taxPercent,
+                target);
+
+        List<String> rules = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        if (fail) rules.add("WITHDRAW " + source + " " + failAt + "- FAIL");
+        int succeeded = Math.min(failAt - 1, maxRepeats);
+        for (int i = 0; i < succeeded; i++) expected.add(op("withdraw", source, amount));
+        if (fail) expected.add(failed(op("withdraw", source, amount)));
+        double total = succeeded * amount;
+        if (total > 0) {
+            expected.add(op("deposit", target, total));
+            expected.add(op("taxes", target, total * taxPercent / 100.0));
+        }
+        return new Variant(index, Template.REPEAT_UNTIL_FAILURE, prompt, fail, rules, expected);
+    }
+
+    private Variant conditionalWithdraw(int index, SplittableRandom random, boolean fail) {
+        String[] accounts = accounts(random, 3);
+        String first = accounts[0];
+        String second = accounts[1];
+        String target = accounts[2];
+        double firstValue = 100.0 * (1 + random.nextInt(30));
+        double secondValue = 100.0 * (1 + random.nextInt(30));
+        double payment = 100.0 * (1 + random.nextInt((int) ((firstValue + secondValue) / 100.0)));
+
+        String prompt = String.format(Locale.ROOT, "Withdraw %s from account %s and %s from account %s. If one of"
+                        + " the operations is not successful, return the value to the other account and don't"
+                        + " execute anything else. If both operations are successful, perform a deposit of the summed"
+                        + " value into account %s and perform a payment of %s in this same account.",
+                whole(firstValue), first, whole(secondValue), second, target, whole(payment));
+
+        List<String> rules = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        if (!fail) {
+            expected.add(op("withdraw", first, firstValue));
+            expected.add(op("withdraw", second, secondValue));
+            expected.add(op("deposit", target, firstValue + secondValue));
+            expected.add(op("payment", target, payment));
+        } else if (random.nextBoolean()) {
+            rules.add("WITHDRAW " + first + " 1 FAIL");
+            expected.add(failed(op("withdraw", first, firstValue)));
+            expected.add(op("withdraw", second, secondValue));
+            expected.add(op("returnValue", second, secondValue));
+        } else {
+            rules.add("WITHDRAW " + second + " 1 FAIL");
+            expected.add(op("withdraw", first, firstValue));
+            expected.add(failed(op("withdraw", second, secondValue)));
+            expected.add(op("returnValue", first, firstValue));
+        }
+        return new Variant(index, Template.CONDITIONAL_WITHDRAW, prompt, fail, rules, expected);
+    }
+
+    /**
+     * Contas distintas no formato das contas da grade (duas letras e cinco dígitos, às vezes com
+     * uma letra final).
+     */
+    private static String[] accounts(SplittableRandom random, int n) {
+        String[] out = new String[n];
+        for (int i = 0; i < n; i++) {
+            String account;
+            boolean repeated;
+            do {
+                StringBuilder sb = new StringBuilder(8);
+                sb.append(LETTERS.charAt(random.nextInt(26))).append(LETTERS.charAt(random.nextInt(26)));
+                sb.append(10_000 + random.nextInt(90_000));
+                if (random.nextInt(4) == 0) sb.append(LETTERS.charAt(random.nextInt(26)));
+                account = sb.toString();
+                repeated = false;
+                for (int j = 0; j < i; j++) repeated |= out[j].equals(account);
+            } while (repeated);
+            out[i] = account;
+        }
+        return out;
+    }
+
+    private static String whole(double value) {
+        return Long.toString((long) value);
+    }
+
+    /** mesma forma do texto das operações observadas ({@code Double.toString} do valor) */
+    private static String op(String method, String account, double value) {
+        return method + "(" + account + "," + value + ")";
+    }
+
+    private static String failed(String op) {
+        return op + "->FAILED";
+    }
+
+    /**
+     * Uma variante: prompt, regras de cenário (mesmo formato da tabela {@code scenario-rules.txt}) e
+     * operações esperadas (mesmo formato dos critérios de aceitação da grade).
+     */
+    static final class Variant {
+        final int index;
+        final String id;
+        final Template template;
+        final String prompt;
+        final String scenario;
+        final List<String> rules;
+        final List<String> expectedOps;
+
+        private Variant(int index, Template template, String prompt, boolean fail, List<String> rules,
+                        List<String> expectedOps) {
+            this.index = index;
+            this.id = idOf(index);
+            this.template = template;
+            this.prompt = prompt;
+            this.scenario = fail ? WITH_FAILURE : NO_FAILURE;
+            this.rules = List.copyOf(rules);
+            this.expectedOps = List.copyOf(expectedOps);
+        }
+
+        ScenarioRules.Compiled compileRules() {
+            List<ScenarioRules.Rule> compiled = new ArrayList<>(rules.size());
+            for (String line : rules) {
+                String[] cols = line.split("\\s+");
+                compiled.add(ScenarioRules.Rule.of(cols[0], cols[1], cols[2], cols[3]));
+            }
+            return ScenarioRules.compile(id + scenario, compiled);
+        }
+
+        AcceptanceMatcher matcher() {
+            return AcceptanceMatcher.compile(expectedOps);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package br.university.project.standin;
+
+import br.university.project.model.OperationType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Roteiro determinístico de chamadas de ferramenta para um prompt do benchmark.
+ * <p>
+ * O próximo passo é derivado apenas dos resultados das ferramentas já devolvidos na conversa,
+ * então a mesma sequência de resultados sempre produz a mesma sequência de chamadas. Os ramos de
+ * falha (P1B, P2B, P3B) aparecem naturalmente quando o {@code ScenarioController} devolve {@code false}.
+ */
+public abstract class ConversationScript {
+
+    public static final class Step {
+        final OperationType type;
+        final String account;
+        final double value;
+        final String text;
+
+        private Step(OperationType type, String account, double value, String text) {
+            this.type = type;
+            this.account = account;
+            this.value = value;
+            this.text = text;
+        }
+
+        static Step call(OperationType type, String account, double value) {
+            return new Step(type, account, value, null);
+        }
+
+        static Step done(String text) {
+            return new Step(null, null, 0.0, text);
+        }
+
+        public boolean isToolCall() {
+            return type != null;
+        }
+
+        public OperationType getType() {
+            return type;
+        }
+
+        public String getAccount() {
+            return account;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private static final List<ConversationScript> SCRIPTS = List.of(
+            new TransferWithFee(), new RepeatUntilFailure(), new ConditionalDoubleWithdraw());
+
+    /**
+     * Escolhe o roteiro cujo template reconhece o prompt; {@code null} se nenhum reconhece.
+     */
+    public static ConversationScript forPrompt(String prompt) {
+        if (prompt == null) return null;
+        for (ConversationScript s : SCRIPTS) {
+            ConversationScript bound = s.bind(prompt);
+            if (bound != null) return bound;
+        }
+        return null;
+    }
+
+    abstract ConversationScript bind(String prompt);
+
+    public abstract Step next(List<Boolean> toolResults);
+
+    /**
+     * Próximos passos supondo que todos dão certo, até o fim do roteiro: o lote que um modelo
+     * mandaria de uma vez para uma ferramenta que para na primeira falha. Se alguma operação
+     * falhar, o roteiro continua do ponto da falha no turno seguinte. Sem chamadas pendentes,
+     * devolve só o passo final.
+     */
+    public List<Step> batch(List<Boolean> toolResults) {
+        List<Boolean> assumed = new ArrayList<>(toolResults);
+        List<Step> steps = new ArrayList<>();
+        Step step = next(assumed);
+        while (step.isToolCall()) {
+            steps.add(step);
+            assumed.add(Boolean.TRUE);
+            step = next(assumed);
+        }
+        if (steps.isEmpty()) steps.add(step);
+        return steps;
+    }
+
+    static double number(String raw) {
+        return Double.parseDouble(raw);
+    }
+
+    // -----------------------------
+    // P1 — transferência com taxa
+    // -----------------------------
+    static final class TransferWithFee extends ConversationScript {
+        private static final Pattern PATTERN = Pattern.compile(
+                "Transfer ([\\d.]+) from account (\\w+) to the account (\\w+).*?change ([\\d.]+) from the first account",
+                Pattern.DOTALL);
+
+        private final double amount;
+        private final String from;
+        private final String to;
+        private final double fee;
+
+        TransferWithFee() {
+            this(0.0, null, null, 0.0);
+        }
+
+        private TransferWithFee(double amount, String from, String to, double fee) {
+            this.amount = amount;
+            this.from = from;
+            this.to = to;
+            this.fee = fee;
+        }
+
+        @Override
+        ConversationScript bind(String prompt) {
+            Matcher m = PATTERN.matcher(prompt);
+            if (!m.find()) return null;
+            return new TransferWithFee(number(m.group(1)), m.group(2), m.group(3), number(m.group(4)));
+        }
+
+        @Override
+        public Step next(List<Boolean> r) {
+            switch (r.size()) {
+                case 0:
+                    return Step.call(OperationType.WITHDRAW, from, amount);
+                case 1:
+                    if (!r.get(0)) return Step.done("The withdrawal failed, so nothing was transferred.");
+                    return Step.call(OperationType.DEPOSIT, to, amount);
+                case 2:
+                    if (r.get(1)) return Step.call(OperationType.TAX, from, fee);
+                    return Step.call(OperationType.RETURN, from, amount);
+                default:
+                    return Step.done(r.get(1)
+                            ? "The transfer was completed and the tax was charged."
+                            : "The deposit failed, the value was returned and no tax was charged.");
+            }
+        }
+    }
+
+    // -----------------------------
+    // P2 — retiradas repetidas até falha
+    // -----------------------------
+    static final class RepeatUntilFailure extends ConversationScript {
+        private static final Pattern PATTERN = Pattern.compile(
+                "withdrawal operations of ([\\d.]+) from account (\\w+) one at a time.*?executed (\\d+) times\\."
+                        + " Deposit the total value withdrawn in account (\\w+) and pay a tax of ([\\d.]+)%",
+                Pattern.DOTALL);
+
+        private final double amount;
+        private final String source;
+        private final int maxRepeats;
+        private final String target;
+        private final double taxPercent;
+
+        RepeatUntilFailure() {
+            this(0.0, null, 0, null, 0.0);
+        }
+
+        private RepeatUntilFailure(double amount, String source, int maxRepeats, String target, double taxPercent) {
+            this.amount = amount;
+            this.source = source;
+            this.maxRepeats = maxRepeats;
+            this.target = target;
+            this.taxPercent = taxPercent;
+        }
+
+        @Override
+        ConversationScript bind(String prompt) {
+            Matcher m = PATTERN.matcher(prompt);
+            if (!m.find()) return null;
+            return new RepeatUntilFailure(number(m.group(1)), m.group(2), Integer.parseInt(m.group(3)),
+                    m.group(4), number(m.group(5)));
+        }
+
+        @Override
+        public Step next(List<Boolean> r) {
+            int i = 0;
+            int succeeded = 0;
+            boolean failed = false;
+            while (i < r.size() && i < maxRepeats && !failed) {
+                if (r.get(i)) succeeded++;
+                else failed = true;
+                i++;
+            }
+            if (!failed && i < maxRepeats) {
+                return Step.call(OperationType.WITHDRAW, source, amount);
+            }
+            double total = succeeded * amount;
+            if (total == 0.0) return Step.done("No value was withdrawn.");
+
+            switch (r.size() - i) {
+                case 0:
+                    return Step.call(OperationType.DEPOSIT, target, total);
+                case 1:
+                    return Step.call(OperationType.TAX, target, total * taxPercent / 100.0);
+                default:
+                    return Step.done("Withdrew " + total + " in " + succeeded + " operations, deposited it and paid the tax.");
+            }
+        }
+    }
+
+    // -----------------------------
+    // P3 — dupla retirada condicional
+    // -----------------------------
+    static final class ConditionalDoubleWithdraw extends ConversationScript {
+        private static final Pattern PATTERN = Pattern.compile(
+                "Withdraw ([\\d.]+) from account (\\w+) and ([\\d.]+) from account (\\w+)\\..*?"
+                        + "deposit of the summed value into account (\\w+) and perform a payment of ([\\d.]+)",
+                Pattern.DOTALL);
+
+        private final double firstValue;
+        private final String firstAccount;
+        private final double secondValue;
+        private final String secondAccount;
+        private final String target;
+        private final double payment;
+
+        ConditionalDoubleWithdraw() {
+            this(0.0, null, 0.0, null, null, 0.0);
+        }
+
+        private ConditionalDoubleWithdraw(double firstValue, String firstAccount, double secondValue,
+                                          String secondAccount, String target, double payment) {
+            this.firstValue = firstValue;
+            this.firstAccount = firstAccount;
+            this.secondValue = secondValue;
+            this.secondAccount = secondAccount;
+            this.target = target;
+            this.payment = payment;
+        }
+
+        @Override
+        ConversationScript bind(String prompt) {
+            Matcher m = PATTERN.matcher(prompt);
+            if (!m.find()) return null;
+            return new ConditionalDoubleWithdraw(number(m.group(1)), m.group(2), number(m.group(3)),
+                    m.group(4), m.group(5), number(m.group(6)));
+        }
+
+        @Override
+        public Step next(List<Boolean> r) {
+            if (r.size() == 0) return Step.call(OperationType.WITHDRAW, firstAccount, firstValue);
+            if (r.size() == 1) return Step.call(OperationType.WITHDRAW, secondAccount, secondValue);
+
+            boolean first = r.get(0);
+            boolean second = r.get(1);
+            if (first && second) {
+                if (r.size() == 2) return Step.call(OperationType.DEPOSIT, target, firstValue + secondValue);
+                if (r.size() == 3) return Step.call(OperationType.PAYMENT, target, payment);
+                return Step.done("Both withdrawals succeeded; the deposit and the payment were performed.");
+            }
+            if (first != second && r.size() == 2) {
+                return first
+                        ? Step.call(OperationType.RETURN, firstAccount, firstValue)
+                        : Step.call(OperationType.RETURN, secondAccount, secondValue);
+            }
+            return Step.done("One of the withdrawals failed, so the value was returned and nothing else was executed.");
+        }
+    }
+
+    /**
+     * Resultados das ferramentas na ordem da conversa; o resultado de um lote ({@code [true,false]})
+     * conta como um resultado por operação executada.
+     */
+    static List<Boolean> parseResults(List<String> contents) {
+        List<Boolean> results = new ArrayList<>(contents.size());
+        for (String c : contents) {
+            String text = c == null ? "" : c.trim();
+            if (text.startsWith("[") && text.endsWith("]")) {
+                for (String item : text.substring(1, text.length() - 1).split(",")) {
+                    if (!item.isBlank()) results.add(Boolean.parseBoolean(item.trim()));
+                }
+            } else {
+                results.add(Boolean.parseBoolean(text));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,477 @@
+package br.university.project.standin;
+
+import br.university.project.model.OperationType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor HTTP embutido que imita os endpoints {@code /api/tags}, {@code /api/chat} e
+ * {@code /api/generate} (carga de modelo) do Ollama usados pelo runner, respondendo com chamadas de
+ * ferramenta roteirizadas.
+ * <p>
+ * Permite rodar o {@code MainRunner} sem LLM (CI, medição do overhead do próprio harness).
+ * A latência artificial por chamada de chat é configurável. Como num Ollama com memória para um
+ * só modelo, pedir um modelo diferente do residente conta uma troca e custa {@code loadLatencyMillis};
+ * uma fração das chamadas de chat ao primeiro modelo pode falhar, para exercitar o fallback.
+ * Com {@code stream: true} a resposta sai em linhas NDJSON, um pedaço por palavra, e a resposta
+ * final pode ser alongada com texto de enchimento para simular um modelo prolixo.
+ */
+public class OllamaStandInServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** ferramenta em lote do BankToolsC: o roteiro manda todos os passos de uma vez */
+    private static final String BATCH_TOOL = "executeOperations";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<String> models;
+    private volatile long latencyMillis;
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong modelLoads = new AtomicLong();
+    private volatile long loadLatencyMillis;
+    private volatile int primaryFailurePercent;
+    private volatile int primarySlowPercent;
+    private volatile long slowMillis;
+    private volatile long tokenMillis;
+    private volatile int verboseWords;
+    private final AtomicLong streamedChunks = new AtomicLong();
+    private String residentModel;
+
+    public OllamaStandInServer(int port, long latencyMillis, List<String> models) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.models = List.copyOf(models);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        AtomicInteger counter = new AtomicInteger(0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ollama-standin-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/tags", this::handleTags);
+        server.createContext("/api/chat", this::handleChat);
+        server.createContext("/api/generate", this::handleGenerate);
+    }
+
+    public static OllamaStandInServer start(int port, long latencyMillis) throws IOException {
+        OllamaStandInServer s = new OllamaStandInServer(port, latencyMillis,
+                List.of("mistral:latest", "llama3.1:latest", "llama3:latest"));
+        s.server.start();
+        return s;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public long getChatRequests() {
+        return chatRequests.get();
+    }
+
+    /**
+     * Latência de carregar um modelo que não é o residente.
+     */
+    public void setLoadLatencyMillis(long loadLatencyMillis) {
+        this.loadLatencyMillis = loadLatencyMillis;
+    }
+
+    /**
+     * Percentual de chamadas de chat ao primeiro modelo da lista que respondem HTTP 500.
+     */
+    public void setPrimaryFailurePercent(int percent) {
+        this.primaryFailurePercent = percent;
+    }
+
+    /**
+     * Percentual de chamadas de chat ao primeiro modelo que demoram {@code slowMillis} a mais
+     * (cauda de latência, para exercitar o hedge).
+     */
+    public void setPrimarySlowCalls(int percent, long slowMillis) {
+        this.primarySlowPercent = percent;
+        this.slowMillis = slowMillis;
+    }
+
+    /**
+     * Respostas em streaming: {@code tokenMillis} entre pedaços e {@code verboseWords} palavras de
+     * enchimento depois do texto final de cada conversa.
+     */
+    public void setStreaming(long tokenMillis, int verboseWords) {
+        this.tokenMillis = tokenMillis;
+        this.verboseWords = verboseWords;
+    }
+
+    /**
+     * Pedaços efetivamente enviados em respostas com streaming (um cliente que fecha a conexão
+     * interrompe a geração).
+     */
+    public long getStreamedChunks() {
+        return streamedChunks.get();
+    }
+
+    /**
+     * Quantas vezes o modelo residente mudou (a primeira carga conta).
+     */
+    public long getModelLoads() {
+        return modelLoads.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleTags(HttpExchange exchange) throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        ArrayNode list = root.putArray("models");
+        for (String m : models) {
+            ObjectNode node = list.addObject();
+            node.put("name", m);
+            node.put("model", m);
+            node.put("modified_at", Instant.EPOCH.toString());
+            node.put("size", 0);
+        }
+        respond(exchange, 200, root);
+    }
+
+    private void handleChat(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            respondError(exchange, 405, "method not allowed");
+            return;
+        }
+        chatRequests.incrementAndGet();
+        JsonNode request;
+        try {
+            request = MAPPER.readTree(exchange.getRequestBody());
+        } catch (IOException e) {
+            respondError(exchange, 400, "invalid json: " + e.getMessage());
+            return;
+        }
+
+        String model = request.path("model").asText();
+        if (!models.contains(model)) {
+            respondError(exchange, 404, "model '" + model + "' not found");
+            return;
+        }
+        ensureLoaded(model);
+        int failPercent = primaryFailurePercent;
+        if (failPercent > 0 && model.equals(models.get(0))
+                && ThreadLocalRandom.current().nextInt(100) < failPercent) {
+            respondError(exchange, 500, "injected failure");
+            return;
+        }
+        int slowPercent = primarySlowPercent;
+        if (slowPercent > 0 && model.equals(models.get(0))
+                && ThreadLocalRandom.current().nextInt(100) < slowPercent) {
+            sleep(slowMillis);
+        }
+
+        String prompt = null;
+        List<String> toolContents = new ArrayList<>();
+        for (JsonNode msg : request.path("messages")) {
+            String role = msg.path("role").asText();
+            if ("user".equals(role) && prompt == null) prompt = msg.path("content").asText();
+            if ("tool".equals(role)) toolContents.add(msg.path("content").asText());
+        }
+
+        ConversationScript script = ConversationScript.forPrompt(prompt);
+        List<Boolean> results = ConversationScript.parseResults(toolContents);
+        JsonNode tools = request.path("tools");
+        List<ConversationScript.Step> steps;
+        if (script == null) {
+            steps = List.of(ConversationScript.Step.done("I cannot map this request to banking operations."));
+        } else {
+            steps = hasTool(tools, BATCH_TOOL) ? script.batch(results) : List.of(script.next(results));
+        }
+        ConversationScript.Step step = steps.get(0);
+
+        pause();
+
+        ObjectNode message = MAPPER.createObjectNode();
+        message.put("role", "assistant");
+        if (step.isToolCall()) {
+            message.put("content", "");
+            ObjectNode call = hasTool(tools, BATCH_TOOL) ? batchCall(tools, steps) : toolCall(tools, step);
+            if (call == null) {
+                message.put("content", "No suitable tool is available.");
+            } else {
+                message.putArray("tool_calls").add(call);
+            }
+        } else {
+            message.put("content", step.getText() + filler(verboseWords));
+        }
+
+        if (request.path("stream").asBoolean(false)) {
+            stream(exchange, model, message, request);
+            return;
+        }
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("model", model);
+        response.put("created_at", Instant.now().toString());
+        response.set("message", message);
+        response.put("done", true);
+        response.put("done_reason", "stop");
+        response.put("prompt_eval_count", promptTokens(request));
+        response.put("eval_count", estimateTokens(message.toString()));
+        respond(exchange, 200, response);
+    }
+
+    /**
+     * Envia a mensagem em pedaços: chamadas de ferramenta num pedaço só, texto palavra a palavra
+     * com {@code tokenMillis} entre elas, e o pedaço final com {@code done: true} e as contagens.
+     */
+    private void stream(HttpExchange exchange, String model, ObjectNode message, JsonNode request) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (message.has("tool_calls")) {
+                ObjectNode piece = message.deepCopy();
+                writeChunk(os, chunk(model, piece, false));
+            } else {
+                String text = message.path("content").asText();
+                int from = 0;
+                while (from < text.length()) {
+                    int space = text.indexOf(' ', from);
+                    int to = space < 0 ? text.length() : space + 1;
+                    if (from > 0) sleep(tokenMillis);
+                    ObjectNode piece = MAPPER.createObjectNode();
+                    piece.put("role", "assistant");
+                    piece.put("content", text.substring(from, to));
+                    writeChunk(os, chunk(model, piece, false));
+                    from = to;
+                }
+            }
+            ObjectNode last = MAPPER.createObjectNode();
+            last.put("role", "assistant");
+            last.put("content", "");
+            ObjectNode done = chunk(model, last, true);
+            done.put("done_reason", "stop");
+            done.put("prompt_eval_count", promptTokens(request));
+            done.put("eval_count", estimateTokens(message.toString()));
+            writeChunk(os, done);
+        } catch (IOException e) {
+            // cliente fechou a conexão (parada antecipada ou cancelamento): para de "gerar"
+        }
+    }
+
+    private static ObjectNode chunk(String model, ObjectNode message, boolean done) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("model", model);
+        node.put("created_at", Instant.now().toString());
+        node.set("message", message);
+        node.put("done", done);
+        return node;
+    }
+
+    private void writeChunk(OutputStream os, ObjectNode chunk) throws IOException {
+        os.write(MAPPER.writeValueAsBytes(chunk));
+        os.write('\n');
+        os.flush();
+        streamedChunks.incrementAndGet();
+    }
+
+    private static String filler(int words) {
+        if (words <= 0) return "";
+        String[] base = {"Here", "is", "a", "detailed", "explanation", "of", "every", "step", "taken", "above."};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) sb.append(' ').append(base[i % base.length]);
+        return sb.toString();
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try {
+            request = MAPPER.readTree(exchange.getRequestBody());
+        } catch (IOException e) {
+            respondError(exchange, 400, "invalid json: " + e.getMessage());
+            return;
+        }
+        String model = request.path("model").asText();
+        if (!models.contains(model)) {
+            respondError(exchange, 404, "model '" + model + "' not found");
+            return;
+        }
+        if (request.path("prompt").asText().isEmpty()) {
+            ensureLoaded(model);
+        }
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("model", model);
+        response.put("created_at", Instant.now().toString());
+        response.put("response", "");
+        response.put("done", true);
+        response.put("done_reason", "load");
+        respond(exchange, 200, response);
+    }
+
+    /**
+     * Troca o modelo residente se preciso, segurando as demais requisições enquanto "carrega".
+     */
+    private synchronized void ensureLoaded(String model) {
+        if (model.equals(residentModel)) return;
+        residentModel = model;
+        modelLoads.incrementAndGet();
+        sleep(loadLatencyMillis);
+    }
+
+    /**
+     * Monta a chamada usando a primeira família de ferramentas oferecida na requisição
+     * (BankToolsA por nome de operação, ou {@code executeOperation} do BankToolsB).
+     * Os nomes dos argumentos vêm da ordem de {@code required} no schema recebido.
+     */
+    static ObjectNode toolCall(JsonNode tools, ConversationScript.Step step) {
+        String methodName = methodFor(step.getType());
+        for (JsonNode tool : tools) {
+            JsonNode function = tool.path("function");
+            String name = function.path("name").asText();
+            List<String> args = new ArrayList<>();
+            for (JsonNode r : function.path("parameters").path("required")) args.add(r.asText());
+
+            ObjectNode arguments = MAPPER.createObjectNode();
+            if (name.equals(methodName) && args.size() >= 2) {
+                arguments.put(args.get(0), step.getAccount());
+                arguments.put(args.get(1), step.getValue());
+            } else if (name.equals("executeOperation") && args.size() >= 3) {
+                arguments.put(args.get(0), step.getType().name());
+                arguments.put(args.get(1), step.getAccount());
+                arguments.put(args.get(2), step.getValue());
+            } else {
+                continue;
+            }
+            ObjectNode call = MAPPER.createObjectNode();
+            ObjectNode fn = call.putObject("function");
+            fn.put("name", name);
+            fn.set("arguments", arguments);
+            return call;
+        }
+        return null;
+    }
+
+    private static boolean hasTool(JsonNode tools, String name) {
+        for (JsonNode tool : tools) {
+            if (name.equals(tool.path("function").path("name").asText())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Uma chamada a {@code executeOperations} (BankToolsC) com todos os passos do lote; os nomes dos
+     * campos de cada operação vêm do schema dos itens.
+     */
+    static ObjectNode batchCall(JsonNode tools, List<ConversationScript.Step> steps) {
+        for (JsonNode tool : tools) {
+            JsonNode function = tool.path("function");
+            if (!BATCH_TOOL.equals(function.path("name").asText())) continue;
+            JsonNode parameters = function.path("parameters");
+            JsonNode required = parameters.path("required");
+            if (required.size() < 1) return null;
+            String arg = required.get(0).asText();
+            List<String> fields = new ArrayList<>();
+            parameters.path("properties").path(arg).path("items").path("properties").fieldNames()
+                    .forEachRemaining(fields::add);
+            if (!fields.containsAll(List.of("type", "account", "value"))) return null;
+
+            ObjectNode arguments = MAPPER.createObjectNode();
+            ArrayNode operations = arguments.putArray(arg);
+            for (ConversationScript.Step s : steps) {
+                ObjectNode op = operations.addObject();
+                op.put("type", s.getType().name());
+                op.put("account", s.getAccount());
+                op.put("value", s.getValue());
+            }
+            ObjectNode call = MAPPER.createObjectNode();
+            ObjectNode fn = call.putObject("function");
+            fn.put("name", BATCH_TOOL);
+            fn.set("arguments", arguments);
+            return call;
+        }
+        return null;
+    }
+
+    static String methodFor(OperationType type) {
+        switch (type) {
+            case WITHDRAW:
+                return "withdraw";
+            case DEPOSIT:
+                return "deposit";
+            case TAX:
+                return "taxes";
+            case RETURN:
+                return "returnValue";
+            case PAYMENT:
+                return "payment";
+            default:
+                return type.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Como o Ollama, conta as especificações de ferramentas no prompt: o template do modelo as
+     * insere junto das mensagens a cada turno.
+     */
+    private static int promptTokens(JsonNode request) {
+        JsonNode tools = request.path("tools");
+        return estimateTokens(request.path("messages").toString() + (tools.isArray() ? tools.toString() : ""));
+    }
+
+    private static int estimateTokens(String text) {
+        return Math.max(1, text.length() / 4);
+    }
+
+    private void pause() {
+        sleep(latencyMillis);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String error) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("error", error);
+        respond(exchange, status, node);
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 11434;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 0L;
+        OllamaStandInServer s = start(port, latency);
+        System.out.println("🧪 Ollama stand-in ouvindo em " + s.getBaseUrl() + " (latência " + latency + " ms)");
+        Thread.currentThread().join();
+    }
+}
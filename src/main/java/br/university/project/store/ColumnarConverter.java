@@ -0,0 +1,117 @@
+package br.university.project.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converte resultados em JSON já existentes para o formato colunar.
+ * <p>
+ * Lê os arquivos {@code sweep-*.jsonl} (linhas de evento seguidas da linha de resumo de cada
+ * execução) e os arquivos legados {@code summary-*.json}, que trazem os eventos embutidos.
+ * Execuções cujo {@code runId} já está em algum {@code .cols} do diretório (por exemplo os
+ * {@code sweep-*.cols} gravados pelo próprio runner, ou uma conversão anterior) são puladas, então
+ * rodar a conversão de novo não duplica dados.
+ * Uso: {@code ColumnarConverter [diretório=results] [prefixo=converted]}.
+ */
+public class ColumnarConverter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "results");
+        String prefix = args.length > 1 ? args[1] : "converted";
+
+        int runs;
+        List<File> written;
+        try (ColumnarResultsWriter writer = new ColumnarResultsWriter(dir, prefix, 1 << 18)) {
+            runs = convert(dir, writer);
+            writer.flush();
+            written = writer.getWrittenFiles();
+        }
+        System.out.printf("Converted %d runs into %d columnar file(s) in %s%n", runs, written.size(), dir.getPath());
+        for (File f : written) System.out.println("  " + f.getName());
+    }
+
+    /**
+     * Converte os resultados JSON do diretório que ainda não estão em nenhum {@code .cols} dele;
+     * retorna o número de execuções convertidas.
+     */
+    public static int convert(File dir, ColumnarResultsWriter writer) throws IOException {
+        Set<String> known = ColumnarResultsReader.runIds(dir);
+        int before = known.size();
+        int runs = 0;
+        for (File f : list(dir, "sweep-", ".jsonl")) {
+            runs += convertJsonl(f, writer, known);
+        }
+        for (File f : list(dir, "summary-", ".json")) {
+            Map<String, Object> summary = MAPPER.readValue(f, MAP_TYPE);
+            if (!known.add(String.valueOf(summary.get("runId")))) continue;
+            writer.appendRunMaps(summary, eventsOf(summary.get("events")));
+            runs++;
+        }
+        if (before > 0) {
+            System.out.printf("ℹ️  %d execuções já estavam em arquivos .cols; só as demais foram convertidas%n", before);
+        }
+        return runs;
+    }
+
+    /**
+     * @param known {@code runId} já convertidos; recebe os desta chamada
+     */
+    static int convertJsonl(File file, ColumnarResultsWriter writer, Set<String> known) throws IOException {
+        int runs = 0;
+        List<Map<String, Object>> pending = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                Map<String, Object> record = MAPPER.readValue(line, MAP_TYPE);
+                Object kind = record.get("kind");
+                if ("event".equals(kind)) {
+                    pending.addAll(eventsOf(Arrays.asList(record.get("event"))));
+                } else if ("summary".equals(kind)) {
+                    if (known.add(String.valueOf(record.get("runId")))) {
+                        writer.appendRunMaps(record, pending);
+                        runs++;
+                    }
+                    pending = new ArrayList<>();
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            System.err.println("⚠️  " + pending.size() + " eventos sem resumo ignorados em " + file.getName());
+        }
+        return runs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> eventsOf(Object events) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        if (!(events instanceof List)) return out;
+        for (Object e : (List<?>) events) {
+            if (e instanceof Map) out.add((Map<String, Object>) e);
+        }
+        return out;
+    }
+
+    private static List<File> list(File dir, String prefix, String suffix) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(prefix) && name.endsWith(suffix));
+        if (files == null) return List.of();
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return Arrays.asList(files);
+    }
+}
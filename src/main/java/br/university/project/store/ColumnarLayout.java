@@ -0,0 +1,70 @@
+package br.university.project.store;
+
+/**
+ * Layout do arquivo colunar {@code .cols} (little-endian):
+ * <pre>
+ * cabeçalho   magic "BTCOLS" + versão (short), runCount, eventCount, dictSize, columnCount (int)
+ * dicionário  dictSize × (int tamanho, bytes UTF-8)
+ * diretório   columnCount × (int id da coluna, long offset, long tamanho)
+ * colunas     dados de cada coluna, alinhados em 8 bytes
+ * </pre>
+ * Colunas de símbolo guardam ids do dicionário do próprio arquivo ({@code -1} = ausente).
+ * A coluna {@link Column#RUN_ID} guarda (runCount + 1) offsets int seguidos dos bytes UTF-8.
+ */
+final class ColumnarLayout {
+
+    static final byte[] MAGIC = {'B', 'T', 'C', 'O', 'L', 'S'};
+    static final short VERSION = 1;
+    static final String EXTENSION = ".cols";
+
+    /** valores de {@link Column#RUN_ERROR} além de 0 (sem erro) */
+    static final int RUN_FAILED = 1;
+    static final int RUN_CANCELLED = 2;
+
+    /** magic + versão + 4 ints */
+    static final int HEADER_BYTES = MAGIC.length + 2 + 4 * 4;
+    /** id + offset + tamanho */
+    static final int DIRECTORY_ENTRY_BYTES = 4 + 8 + 8;
+
+    enum Column {
+        // tabela de execuções
+        RUN_ID(0),
+        RUN_SWEEP(4),
+        RUN_CONFIG(4),
+        RUN_PROMPT(4),
+        RUN_SCENARIO(4),
+        RUN_IDX(4),
+        RUN_CORRECT(1),
+        RUN_ERROR(1),
+        RUN_EVENT_START(4),
+        RUN_EVENT_COUNT(4),
+        // tabela de eventos
+        EVENT_RUN(4),
+        EVENT_SEQUENCE(4),
+        EVENT_TIMESTAMP(8),
+        EVENT_TOOL(4),
+        EVENT_METHOD(4),
+        EVENT_TYPE(1),
+        EVENT_ACCOUNT(4),
+        EVENT_VALUE(8),
+        EVENT_RESULT(1);
+
+        /** bytes por linha; 0 para colunas de tamanho variável */
+        final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+
+        boolean isEventColumn() {
+            return ordinal() >= EVENT_RUN.ordinal();
+        }
+    }
+
+    private ColumnarLayout() {
+    }
+
+    static long align8(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,260 @@
+package br.university.project.store;
+
+import br.university.project.model.OperationType;
+import br.university.project.store.ColumnarLayout.Column;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Leitor de um segmento {@code .cols} sobre um {@link MappedByteBuffer}.
+ * <p>
+ * Só o cabeçalho, o dicionário e o diretório de colunas são decodificados na abertura;
+ * os acessores leem valores diretamente das colunas mapeadas por índice de linha.
+ * Colunas de símbolo retornam ids do dicionário deste arquivo, que podem ser comparados
+ * entre si sem materializar strings.
+ */
+public class ColumnarResultsReader implements AutoCloseable {
+
+    private static final OperationType[] TYPES = OperationType.values();
+
+    private final File file;
+    private final MappedByteBuffer buf;
+    private final int runCount;
+    private final int eventCount;
+    private final String[] dictionary;
+    private final Map<String, Integer> dictionaryIds;
+    private final int[] offsets;
+
+    private ColumnarResultsReader(File file, MappedByteBuffer buf) throws IOException {
+        this.file = file;
+        this.buf = buf;
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+
+        byte[] magic = new byte[ColumnarLayout.MAGIC.length];
+        buf.get(0, magic);
+        if (!Arrays.equals(magic, ColumnarLayout.MAGIC)) {
+            throw new IOException("Not a columnar results file: " + file);
+        }
+        int pos = magic.length;
+        short version = buf.getShort(pos);
+        if (version != ColumnarLayout.VERSION) {
+            throw new IOException("Unsupported columnar version " + version + " in " + file);
+        }
+        pos += 2;
+        this.runCount = buf.getInt(pos);
+        this.eventCount = buf.getInt(pos + 4);
+        int dictSize = buf.getInt(pos + 8);
+        int columnCount = buf.getInt(pos + 12);
+        pos = ColumnarLayout.HEADER_BYTES;
+
+        this.dictionary = new String[dictSize];
+        this.dictionaryIds = new HashMap<>(dictSize * 2);
+        for (int i = 0; i < dictSize; i++) {
+            int len = buf.getInt(pos);
+            byte[] bytes = new byte[len];
+            buf.get(pos + 4, bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            dictionaryIds.put(dictionary[i], i);
+            pos += 4 + len;
+        }
+
+        this.offsets = new int[Column.values().length];
+        Arrays.fill(offsets, -1);
+        for (int i = 0; i < columnCount; i++) {
+            int id = buf.getInt(pos);
+            long offset = buf.getLong(pos + 4);
+            if (id >= 0 && id < offsets.length) offsets[id] = (int) offset;
+            pos += ColumnarLayout.DIRECTORY_ENTRY_BYTES;
+        }
+        for (Column c : Column.values()) {
+            if (offsets[c.ordinal()] < 0) throw new IOException("Missing column " + c + " in " + file);
+        }
+    }
+
+    public static ColumnarResultsReader open(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // o mapeamento continua válido depois de fechar o canal
+            return new ColumnarResultsReader(file, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /**
+     * {@code runId} de todas as execuções nos segmentos {@code <prefix>-NNNNN.cols} de {@code dir}.
+     */
+    public static Set<String> runIds(File dir, String prefix) throws IOException {
+        return runIds(dir.listFiles((d, name) -> name.startsWith(prefix + "-") && name.endsWith(ColumnarLayout.EXTENSION)));
+    }
+
+    /**
+     * {@code runId} de todas as execuções em qualquer {@code .cols} de {@code dir}.
+     */
+    public static Set<String> runIds(File dir) throws IOException {
+        return runIds(dir.listFiles((d, name) -> name.endsWith(ColumnarLayout.EXTENSION)));
+    }
+
+    private static Set<String> runIds(File[] files) throws IOException {
+        Set<String> ids = new HashSet<>();
+        if (files == null) return ids;
+        for (File f : files) {
+            try (ColumnarResultsReader reader = open(f)) {
+                for (int run = 0; run < reader.runCount(); run++) ids.add(reader.runId(run));
+            }
+        }
+        return ids;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int runCount() {
+        return runCount;
+    }
+
+    public int eventCount() {
+        return eventCount;
+    }
+
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    /**
+     * Id do símbolo neste arquivo, ou {@code -1} se não ocorre.
+     */
+    public int symbolId(String symbol) {
+        Integer id = dictionaryIds.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    public String symbol(int id) {
+        return id < 0 ? null : dictionary[id];
+    }
+
+    // ---- execuções ----
+
+    public String runId(int run) {
+        int base = offsets[Column.RUN_ID.ordinal()];
+        int start = buf.getInt(base + 4 * run);
+        int end = buf.getInt(base + 4 * (run + 1));
+        byte[] bytes = new byte[end - start];
+        buf.get(base + 4 * (runCount + 1) + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int sweepId(int run) {
+        return getInt(Column.RUN_SWEEP, run);
+    }
+
+    public int configId(int run) {
+        return getInt(Column.RUN_CONFIG, run);
+    }
+
+    public int promptId(int run) {
+        return getInt(Column.RUN_PROMPT, run);
+    }
+
+    public int scenarioId(int run) {
+        return getInt(Column.RUN_SCENARIO, run);
+    }
+
+    public int runIdx(int run) {
+        return getInt(Column.RUN_IDX, run);
+    }
+
+    public boolean correct(int run) {
+        return getByte(Column.RUN_CORRECT, run) != 0;
+    }
+
+    public boolean error(int run) {
+        return getByte(Column.RUN_ERROR, run) == ColumnarLayout.RUN_FAILED;
+    }
+
+    /**
+     * Execução cancelada por vencimento do prazo (registrada sem eventos).
+     */
+    public boolean cancelled(int run) {
+        return getByte(Column.RUN_ERROR, run) == ColumnarLayout.RUN_CANCELLED;
+    }
+
+    /**
+     * Índice do primeiro evento da execução; os eventos de uma execução são contíguos.
+     */
+    public int eventStart(int run) {
+        return getInt(Column.RUN_EVENT_START, run);
+    }
+
+    public int eventCount(int run) {
+        return getInt(Column.RUN_EVENT_COUNT, run);
+    }
+
+    // ---- eventos ----
+
+    public int eventRun(int event) {
+        return getInt(Column.EVENT_RUN, event);
+    }
+
+    public int sequence(int event) {
+        return getInt(Column.EVENT_SEQUENCE, event);
+    }
+
+    public long timestampMicros(int event) {
+        return buf.getLong(offsets[Column.EVENT_TIMESTAMP.ordinal()] + 8 * event);
+    }
+
+    public int toolId(int event) {
+        return getInt(Column.EVENT_TOOL, event);
+    }
+
+    public int methodId(int event) {
+        return getInt(Column.EVENT_METHOD, event);
+    }
+
+    /**
+     * Ordinal de {@link OperationType}, ou {@code -1} nas ferramentas nomeadas do BankToolsA.
+     */
+    public int typeOrdinal(int event) {
+        return getByte(Column.EVENT_TYPE, event);
+    }
+
+    public OperationType type(int event) {
+        int t = typeOrdinal(event);
+        return t < 0 ? null : TYPES[t];
+    }
+
+    public int accountId(int event) {
+        return getInt(Column.EVENT_ACCOUNT, event);
+    }
+
+    public double value(int event) {
+        return Double.longBitsToDouble(buf.getLong(offsets[Column.EVENT_VALUE.ordinal()] + 8 * event));
+    }
+
+    public boolean result(int event) {
+        return getByte(Column.EVENT_RESULT, event) != 0;
+    }
+
+    private int getInt(Column c, int row) {
+        return buf.getInt(offsets[c.ordinal()] + 4 * row);
+    }
+
+    private byte getByte(Column c, int row) {
+        return buf.get(offsets[c.ordinal()] + row);
+    }
+
+    @Override
+    public void close() {
+        // não há unmap explícito na API pública; o mapeamento é liberado pelo GC
+    }
+}
@@ -0,0 +1,293 @@
+package br.university.project.store;
+
+import br.university.project.model.OperationType;
+import br.university.project.store.ColumnarLayout.Column;
+import br.university.project.util.CallEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Grava execuções e eventos no formato colunar de {@link ColumnarLayout}.
+ * <p>
+ * As linhas ficam em arrays primitivos em memória e viram um segmento autocontido
+ * ({@code <prefix>-NNNNN.cols}) quando o número de eventos passa de {@code maxEventsPerSegment}
+ * ou no {@link #close()}. Cada segmento é gravado num arquivo temporário e renomeado,
+ * então leitores nunca veem um arquivo pela metade. Seguro para vários workers.
+ */
+public class ColumnarResultsWriter implements AutoCloseable {
+
+    private static final OperationType[] TYPES = OperationType.values();
+
+    private final File dir;
+    private final String prefix;
+    private final int maxEventsPerSegment;
+    private final List<File> writtenFiles = new ArrayList<>();
+    private int fileIndex;
+    private boolean closed;
+
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private final List<String> runIds = new ArrayList<>();
+    private final Map<Column, Ints> ints = new EnumMap<>(Column.class);
+    private final Longs timestamps = new Longs();
+    private final Longs values = new Longs();
+
+    public ColumnarResultsWriter(File dir, String prefix, int maxEventsPerSegment) {
+        this.dir = dir;
+        this.prefix = prefix;
+        this.maxEventsPerSegment = Math.max(1, maxEventsPerSegment);
+        for (Column c : Column.values()) {
+            if (c.width == 1 || c.width == 4) ints.put(c, new Ints());
+        }
+        dir.mkdirs();
+        this.fileIndex = JsonlSink.nextFileIndex(dir, prefix, ColumnarLayout.EXTENSION);
+    }
+
+    /**
+     * Acrescenta uma execução com seus eventos tipados (caminho do {@code MainRunner}).
+     */
+    public synchronized void appendRun(Map<String, Object> summary, List<CallEvent> events) throws IOException {
+        int run = beginRun(summary, events.size());
+        for (CallEvent e : events) {
+            String account = e.getAccount();
+            double value = e.getValue();
+            if (account == null) {
+                // evento com parâmetros não tipados
+                Map<String, Object> params = e.getParams();
+                account = params.get("account") instanceof String ? (String) params.get("account") : null;
+                value = params.get("value") instanceof Number ? ((Number) params.get("value")).doubleValue() : 0.0;
+            }
+            Instant ts = e.getTimestamp();
+            addEvent(run, e.getSequence(), ts.getEpochSecond() * 1_000_000L + ts.getNano() / 1_000,
+                    e.getToolClass(), e.getMethod(), e.getType() == null ? -1 : e.getType().ordinal(),
+                    account, value, e.getResult());
+        }
+        endRun();
+    }
+
+    /**
+     * Acrescenta uma execução cujos eventos estão no formato de mapa dos arquivos JSON
+     * (usado pelo {@link ColumnarConverter}).
+     */
+    public synchronized void appendRunMaps(Map<String, Object> summary, List<Map<String, Object>> events) throws IOException {
+        int run = beginRun(summary, events.size());
+        for (Map<String, Object> e : events) {
+            Map<?, ?> params = e.get("params") instanceof Map ? (Map<?, ?>) e.get("params") : Map.of();
+            Object ts = e.get("timestamp");
+            long micros = 0;
+            if (ts != null) {
+                Instant instant = Instant.parse(ts.toString());
+                micros = instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+            }
+            addEvent(run,
+                    e.get("sequence") instanceof Number ? ((Number) e.get("sequence")).intValue() : 0,
+                    micros,
+                    stringOrNull(e.get("toolClass")),
+                    stringOrNull(e.get("method")),
+                    typeOrdinal(params.get("type")),
+                    stringOrNull(params.get("account")),
+                    params.get("value") instanceof Number ? ((Number) params.get("value")).doubleValue() : 0.0,
+                    Boolean.TRUE.equals(e.get("result")));
+        }
+        endRun();
+    }
+
+    public synchronized List<File> getWrittenFiles() {
+        return List.copyOf(writtenFiles);
+    }
+
+    /**
+     * Grava o segmento corrente, se houver linhas pendentes.
+     */
+    public synchronized void flush() throws IOException {
+        if (runIds.isEmpty()) return;
+        File target = new File(dir, String.format("%s-%05d%s", prefix, fileIndex++, ColumnarLayout.EXTENSION));
+        File tmp = new File(dir, target.getName() + ".tmp");
+        ByteBuffer buf = encode();
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        writtenFiles.add(target);
+        reset();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        flush();
+    }
+
+    private int beginRun(Map<String, Object> summary, int expectedEvents) throws IOException {
+        if (closed) throw new IOException("Columnar writer is closed");
+        int run = runIds.size();
+        Object eval = summary.get("evaluation");
+        Object response = summary.get("llmResponseText");
+        runIds.add(stringOrNull(summary.get("runId")));
+        ints.get(Column.RUN_SWEEP).add(symbol(stringOrNull(summary.get("sweepId"))));
+        ints.get(Column.RUN_CONFIG).add(symbol(stringOrNull(summary.get("config"))));
+        ints.get(Column.RUN_PROMPT).add(symbol(stringOrNull(summary.get("prompt"))));
+        ints.get(Column.RUN_SCENARIO).add(symbol(stringOrNull(summary.get("scenario"))));
+        ints.get(Column.RUN_IDX).add(summary.get("runIdx") instanceof Number ? ((Number) summary.get("runIdx")).intValue() : 0);
+        ints.get(Column.RUN_CORRECT).add(eval instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) eval).get("correct")) ? 1 : 0);
+        ints.get(Column.RUN_ERROR).add("CANCELLED".equals(summary.get("status")) ? ColumnarLayout.RUN_CANCELLED
+                : response != null && response.toString().startsWith("[ERROR]") ? ColumnarLayout.RUN_FAILED : 0);
+        ints.get(Column.RUN_EVENT_START).add(timestamps.size);
+        ints.get(Column.RUN_EVENT_COUNT).add(expectedEvents);
+        return run;
+    }
+
+    private void endRun() throws IOException {
+        if (timestamps.size >= maxEventsPerSegment) flush();
+    }
+
+    private void addEvent(int run, int sequence, long timestampMicros, String tool, String method,
+                          int typeOrdinal, String account, double value, boolean result) {
+        ints.get(Column.EVENT_RUN).add(run);
+        ints.get(Column.EVENT_SEQUENCE).add(sequence);
+        timestamps.add(timestampMicros);
+        ints.get(Column.EVENT_TOOL).add(symbol(tool));
+        ints.get(Column.EVENT_METHOD).add(symbol(method));
+        ints.get(Column.EVENT_TYPE).add(typeOrdinal);
+        ints.get(Column.EVENT_ACCOUNT).add(symbol(account));
+        values.add(Double.doubleToRawLongBits(value));
+        ints.get(Column.EVENT_RESULT).add(result ? 1 : 0);
+    }
+
+    private int symbol(String s) {
+        if (s == null) return -1;
+        Integer id = dictionaryIds.get(s);
+        if (id != null) return id;
+        int next = dictionary.size();
+        dictionary.add(s);
+        dictionaryIds.put(s, next);
+        return next;
+    }
+
+    private ByteBuffer encode() {
+        int runCount = runIds.size();
+        int eventCount = timestamps.size;
+        Column[] columns = Column.values();
+
+        byte[][] dictBytes = new byte[dictionary.size()][];
+        long dictLength = 0;
+        for (int i = 0; i < dictBytes.length; i++) {
+            dictBytes[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+            dictLength += 4 + dictBytes[i].length;
+        }
+        byte[][] runIdBytes = new byte[runCount][];
+        long runIdLength = 4L * (runCount + 1);
+        for (int i = 0; i < runCount; i++) {
+            String id = runIds.get(i);
+            runIdBytes[i] = id == null ? new byte[0] : id.getBytes(StandardCharsets.UTF_8);
+            runIdLength += runIdBytes[i].length;
+        }
+
+        long directoryStart = ColumnarLayout.HEADER_BYTES + dictLength;
+        long position = ColumnarLayout.align8(directoryStart + (long) columns.length * ColumnarLayout.DIRECTORY_ENTRY_BYTES);
+        long[] offsets = new long[columns.length];
+        long[] lengths = new long[columns.length];
+        for (Column c : columns) {
+            long rows = c.isEventColumn() ? eventCount : runCount;
+            offsets[c.ordinal()] = position;
+            lengths[c.ordinal()] = c == Column.RUN_ID ? runIdLength : rows * c.width;
+            position = ColumnarLayout.align8(position + lengths[c.ordinal()]);
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Columnar segment too large: " + position + " bytes");
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate((int) position).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put(ColumnarLayout.MAGIC).putShort(ColumnarLayout.VERSION)
+                .putInt(runCount).putInt(eventCount).putInt(dictBytes.length).putInt(columns.length);
+        for (byte[] b : dictBytes) buf.putInt(b.length).put(b);
+        for (Column c : columns) {
+            buf.putInt(c.ordinal()).putLong(offsets[c.ordinal()]).putLong(lengths[c.ordinal()]);
+        }
+
+        for (Column c : columns) {
+            buf.position((int) offsets[c.ordinal()]);
+            if (c == Column.RUN_ID) {
+                int off = 0;
+                buf.putInt(off);
+                for (byte[] b : runIdBytes) buf.putInt(off += b.length);
+                for (byte[] b : runIdBytes) buf.put(b);
+            } else if (c == Column.EVENT_TIMESTAMP) {
+                for (int i = 0; i < eventCount; i++) buf.putLong(timestamps.values[i]);
+            } else if (c == Column.EVENT_VALUE) {
+                for (int i = 0; i < eventCount; i++) buf.putLong(values.values[i]);
+            } else {
+                Ints col = ints.get(c);
+                if (c.width == 1) {
+                    for (int i = 0; i < col.size; i++) buf.put((byte) col.values[i]);
+                } else {
+                    for (int i = 0; i < col.size; i++) buf.putInt(col.values[i]);
+                }
+            }
+        }
+        buf.rewind();
+        return buf;
+    }
+
+    private void reset() {
+        dictionaryIds.clear();
+        dictionary.clear();
+        runIds.clear();
+        for (Ints col : ints.values()) col.size = 0;
+        timestamps.size = 0;
+        values.size = 0;
+    }
+
+    private static String stringOrNull(Object o) {
+        return o == null ? null : o.toString();
+    }
+
+    private static int typeOrdinal(Object type) {
+        if (type == null) return -1;
+        if (type instanceof OperationType) return ((OperationType) type).ordinal();
+        String name = type.toString().trim().toUpperCase(Locale.ROOT);
+        for (OperationType t : TYPES) {
+            if (t.name().equals(name)) return t.ordinal();
+        }
+        return -1;
+    }
+
+    private static final class Ints {
+        int[] values = new int[256];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+
+    private static final class Longs {
+        long[] values = new long[256];
+        int size;
+
+        void add(long v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+}
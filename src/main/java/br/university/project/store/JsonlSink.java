@@ -0,0 +1,326 @@
+package br.university.project.store;
+
+import br.university.project.util.CallEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink append-only em JSON Lines para eventos e resumos de execução, compartilhado por todos os workers.
+ * <p>
+ * Cada execução é serializada na thread do chamador num bloco contíguo (uma linha por evento seguida
+ * da linha de resumo) e entregue a uma única thread de escrita, que grava em lotes, aplica a política
+ * de fsync e rotaciona o arquivo por tamanho. Blocos nunca são divididos entre arquivos.
+ * <p>
+ * Com um {@link ResultsManifest}, a posição de cada bloco é acrescentada ao índice depois que o
+ * lote que o contém foi gravado.
+ */
+public class JsonlSink implements AutoCloseable {
+
+    public enum FsyncPolicy {
+        /** deixa o fsync a cargo do sistema operacional */
+        NEVER,
+        /** fsync após cada lote gravado */
+        BATCH,
+        /** fsync apenas ao rotacionar e ao fechar */
+        ROTATE;
+
+        public static FsyncPolicy parse(String raw, FsyncPolicy defaultValue) {
+            if (raw == null || raw.isBlank()) return defaultValue;
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Block POISON = new Block(new byte[0], null, 0);
+
+    private final File dir;
+    private final String prefix;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long maxFileBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final BlockingQueue<Block> queue;
+    private final Thread writer;
+    private final ResultsManifest manifest;
+    /** entradas dos blocos gravados no lote corrente, ainda fora do índice */
+    private final List<ResultsManifest.Entry> pending = new ArrayList<>();
+
+    private FileOutputStream file;
+    private BufferedOutputStream out;
+    private File currentFile;
+    private long currentSize;
+    private int fileIndex;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    public JsonlSink(File dir, String prefix, int batchSize, long flushIntervalMillis,
+                     long maxFileBytes, FsyncPolicy fsyncPolicy) throws IOException {
+        this(dir, prefix, batchSize, flushIntervalMillis, maxFileBytes, fsyncPolicy, null);
+    }
+
+    /**
+     * @param manifest índice que recebe a posição de cada bloco gravado; {@code null} para nenhum.
+     *                 Deve estar aberto sobre {@code dir}; o chamador é quem o fecha.
+     */
+    public JsonlSink(File dir, String prefix, int batchSize, long flushIntervalMillis,
+                     long maxFileBytes, FsyncPolicy fsyncPolicy, ResultsManifest manifest) throws IOException {
+        this.manifest = manifest;
+        this.dir = dir;
+        this.prefix = prefix;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.maxFileBytes = Math.max(1, maxFileBytes);
+        this.fsyncPolicy = fsyncPolicy;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1024, this.batchSize * 16));
+        dir.mkdirs();
+        this.fileIndex = nextFileIndex(dir, prefix, ".jsonl");
+        openNext();
+
+        this.writer = new Thread(this::writeLoop, "jsonl-sink-" + prefix);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Serializa os eventos e o resumo da execução como um bloco contíguo. A chave {@code events}
+     * do resumo é omitida, pois cada evento já tem sua própria linha.
+     */
+    public void appendRun(Map<String, Object> summary, List<CallEvent> events) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(256 + events.size() * 256);
+        for (CallEvent e : events) {
+            try (JsonGenerator g = MAPPER.getFactory().createGenerator(buf)) {
+                g.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                g.writeStartObject();
+                g.writeStringField("kind", "event");
+                g.writeFieldName("event");
+                e.writeTo(g);
+                g.writeEndObject();
+            }
+            buf.write('\n');
+        }
+        int eventBytes = buf.size();
+        writeSummary(buf, summary);
+        submit(new Block(buf.toByteArray(), manifest == null ? null : ResultsManifest.Entry.forRun(summary), eventBytes));
+    }
+
+    /**
+     * Como {@link #appendRun(Map, List)}, com os eventos no formato de mapa (usado ao reemitir
+     * execuções relidas do journal).
+     */
+    public void appendRunMaps(Map<String, Object> summary, List<Map<String, Object>> events) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(256 + events.size() * 256);
+        for (Map<String, Object> e : events) {
+            try (JsonGenerator g = MAPPER.getFactory().createGenerator(buf)) {
+                g.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                g.writeStartObject();
+                g.writeStringField("kind", "event");
+                g.writeFieldName("event");
+                g.writeObject(e);
+                g.writeEndObject();
+            }
+            buf.write('\n');
+        }
+        int eventBytes = buf.size();
+        writeSummary(buf, summary);
+        submit(new Block(buf.toByteArray(), manifest == null ? null : ResultsManifest.Entry.forRun(summary), eventBytes));
+    }
+
+    private static void writeSummary(ByteArrayOutputStream buf, Map<String, Object> summary) throws IOException {
+        try (JsonGenerator g = MAPPER.getFactory().createGenerator(buf)) {
+            g.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            g.writeStartObject();
+            g.writeStringField("kind", "summary");
+            for (Map.Entry<String, Object> entry : summary.entrySet()) {
+                if ("events".equals(entry.getKey())) continue;
+                g.writeFieldName(entry.getKey());
+                g.writeObject(entry.getValue());
+            }
+            g.writeEndObject();
+        }
+        buf.write('\n');
+    }
+
+    /**
+     * {@code runId} de todas as linhas de resumo já gravadas nos arquivos {@code <prefix>-NNNNN.jsonl}
+     * de {@code dir}. Linhas incompletas (queda no meio da escrita) são ignoradas.
+     */
+    public static Set<String> summaryRunIds(File dir, String prefix) throws IOException {
+        Set<String> ids = new HashSet<>();
+        File[] files = dir.listFiles((d, name) -> name.startsWith(prefix + "-") && name.endsWith(".jsonl"));
+        if (files == null) return ids;
+        for (File f : files) {
+            try (BufferedReader reader = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.startsWith("{\"kind\":\"summary\"")) continue;
+                    try {
+                        JsonNode runId = MAPPER.readTree(line).get("runId");
+                        if (runId != null) ids.add(runId.asText());
+                    } catch (IOException ignored) {
+                        // linha truncada
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    void submit(Block block) throws IOException {
+        if (closed) throw new IOException("JSONL sink is closed");
+        try {
+            // offer com timeout para não ficar preso numa fila cheia se o escritor tiver falhado
+            do {
+                IOException f = failure;
+                if (f != null) throw new IOException("JSONL sink failed", f);
+            } while (!queue.offer(block, flushIntervalMillis, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing results", e);
+        }
+    }
+
+    public File getCurrentFile() {
+        return currentFile;
+    }
+
+    private void writeLoop() {
+        List<Block> batch = new ArrayList<>(batchSize);
+        boolean running = true;
+        while (running) {
+            try {
+                Block first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                for (Block b : batch) {
+                    if (b == POISON) {
+                        // blocos drenados depois do POISON ainda são gravados neste lote
+                        running = false;
+                        continue;
+                    }
+                    write(b);
+                }
+                out.flush();
+                if (fsyncPolicy == FsyncPolicy.BATCH) file.getChannel().force(false);
+                indexPending();
+                if (manifest != null && fsyncPolicy == FsyncPolicy.BATCH) manifest.force();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                failure = e;
+                System.err.println("❌ Falha ao gravar resultados JSONL: " + e.getMessage());
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(Block b) throws IOException {
+        out.write(b.bytes);
+        if (b.run != null) pending.add(b.run.at(currentFile.getName(), currentSize, b.bytes.length, b.eventBytes));
+        currentSize += b.bytes.length;
+        if (currentSize >= maxFileBytes) {
+            rotate();
+        }
+    }
+
+    /**
+     * Acrescenta ao índice os blocos gravados até aqui; chamado depois do flush do lote.
+     */
+    private void indexPending() throws IOException {
+        if (manifest == null || pending.isEmpty()) return;
+        try {
+            manifest.append(pending);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeCurrent();
+        openNext();
+    }
+
+    private void openNext() throws IOException {
+        currentFile = new File(dir, String.format("%s-%05d.jsonl", prefix, fileIndex++));
+        file = new FileOutputStream(currentFile, true);
+        out = new BufferedOutputStream(file, 64 * 1024);
+        currentSize = currentFile.length();
+    }
+
+    private void closeCurrent() throws IOException {
+        out.flush();
+        if (fsyncPolicy != FsyncPolicy.NEVER) file.getChannel().force(false);
+        out.close();
+        indexPending();
+        if (manifest != null && fsyncPolicy != FsyncPolicy.NEVER) manifest.force();
+    }
+
+    static int nextFileIndex(File dir, String prefix, String extension) {
+        int next = 1;
+        File[] existing = dir.listFiles((d, name) -> name.startsWith(prefix + "-") && name.endsWith(extension));
+        if (existing == null) return next;
+        for (File f : existing) {
+            String digits = f.getName().substring(prefix.length() + 1, f.getName().length() - extension.length());
+            try {
+                next = Math.max(next, Integer.parseInt(digits) + 1);
+            } catch (NumberFormatException ignored) {
+                // arquivo de outro prefixo que começa igual
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(POISON);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // blocos que chegaram depois do POISON não são esperados, mas não devem se perder
+        Block b;
+        while ((b = queue.poll()) != null) {
+            if (b != POISON && failure == null) write(b);
+        }
+        closeCurrent();
+        if (failure != null) throw new IOException("JSONL sink failed", failure);
+    }
+
+    static final class Block {
+        final byte[] bytes;
+        /** chave para o índice; {@code null} sem manifesto */
+        final ResultsManifest.Entry run;
+        final int eventBytes;
+
+        Block(byte[] bytes, ResultsManifest.Entry run, int eventBytes) {
+            this.bytes = bytes;
+            this.run = run;
+            this.eventBytes = eventBytes;
+        }
+    }
+}
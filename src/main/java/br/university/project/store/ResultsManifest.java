@@ -0,0 +1,366 @@
+package br.university.project.store;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice append-only dos resultados ({@code results/manifest.idx}): uma linha por execução com
+ * (sweepId, config, prompt, cenário, runIdx, runId), o arquivo e a posição do bloco de eventos e
+ * da linha de resumo. Ferramentas de análise leem só os trechos das execuções que interessam, sem
+ * listar {@code results/}.
+ * <p>
+ * Formato: cabeçalho {@value #HEADER} e linhas separadas por TAB
+ * {@code sweepId config prompt scenario runIdx runId file offset length summaryOffset}; {@code file}
+ * é relativo ao diretório do índice, o bloco é {@code [offset, offset + length)} e o resumo começa
+ * em {@code summaryOffset}. Cada lote vai num único {@code write} com {@code O_APPEND}, então shards
+ * gravando no mesmo diretório não intercalam linhas. A entrada só é gravada depois do bloco; numa
+ * queda podem faltar entradas para os últimos blocos, nunca sobrar. {@link #rebuild(File)} (ou
+ * {@code ResultsManifest <dir>}) refaz o índice a partir dos {@code sweep-*.jsonl} e
+ * {@code summary-*.json}.
+ */
+public final class ResultsManifest implements AutoCloseable {
+
+    public static final String FILE_NAME = "manifest.idx";
+    static final String HEADER = "# results-manifest v1";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int FIELDS = 10;
+
+    /**
+     * Uma execução indexada. Antes de gravada ({@link #forRun(Map)}) não tem arquivo nem posição.
+     */
+    public static final class Entry {
+        public final String sweepId;
+        public final String config;
+        public final String prompt;
+        public final String scenario;
+        public final int runIdx;
+        public final String runId;
+        public final String file;
+        public final long offset;
+        public final long length;
+        public final long summaryOffset;
+
+        Entry(String sweepId, String config, String prompt, String scenario, int runIdx, String runId,
+              String file, long offset, long length, long summaryOffset) {
+            this.sweepId = sweepId;
+            this.config = config;
+            this.prompt = prompt;
+            this.scenario = scenario;
+            this.runIdx = runIdx;
+            this.runId = runId;
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.summaryOffset = summaryOffset;
+        }
+
+        /**
+         * Chave da execução tirada do resumo, ainda sem posição.
+         */
+        public static Entry forRun(Map<String, Object> summary) {
+            Object idx = summary.get("runIdx");
+            return new Entry(string(summary.get("sweepId")), string(summary.get("config")),
+                    string(summary.get("prompt")), string(summary.get("scenario")),
+                    idx instanceof Number ? ((Number) idx).intValue() : 0, string(summary.get("runId")),
+                    null, -1, 0, -1);
+        }
+
+        /**
+         * A mesma execução, gravada em {@code file} a partir de {@code offset}; os primeiros
+         * {@code eventBytes} bytes do bloco são as linhas de evento.
+         */
+        public Entry at(String file, long offset, long length, long eventBytes) {
+            return new Entry(sweepId, config, prompt, scenario, runIdx, runId, file, offset, length, offset + eventBytes);
+        }
+
+        public long summaryLength() {
+            return offset + length - summaryOffset;
+        }
+
+        String toLine() {
+            return clean(sweepId) + '\t' + clean(config) + '\t' + clean(prompt) + '\t' + clean(scenario) + '\t'
+                    + runIdx + '\t' + clean(runId) + '\t' + clean(file) + '\t' + offset + '\t' + length + '\t'
+                    + summaryOffset + '\n';
+        }
+
+        static Entry parse(String line) {
+            String[] f = line.split("\t", -1);
+            if (f.length != FIELDS) return null;
+            try {
+                return new Entry(empty(f[0]), empty(f[1]), empty(f[2]), empty(f[3]), Integer.parseInt(f[4]),
+                        empty(f[5]), f[6], Long.parseLong(f[7]), Long.parseLong(f[8]), Long.parseLong(f[9]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String clean(String s) {
+            return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ');
+        }
+
+        private static String empty(String s) {
+            return s.isEmpty() ? null : s;
+        }
+
+        private static String string(Object o) {
+            return o == null ? null : o.toString();
+        }
+    }
+
+    private final File dir;
+    private final File file;
+    private final FileChannel channel;
+    private final boolean rebuilt;
+    private long appended;
+
+    private ResultsManifest(File dir, File file, FileChannel channel, boolean rebuilt) {
+        this.dir = dir;
+        this.file = file;
+        this.channel = channel;
+        this.rebuilt = rebuilt;
+    }
+
+    /**
+     * Abre o índice de {@code dir} para acréscimos. Se ele ainda não existe mas já há resultados no
+     * diretório (gravados antes do índice), ele é reconstruído antes.
+     */
+    public static ResultsManifest open(File dir) throws IOException {
+        dir.mkdirs();
+        File file = new File(dir, FILE_NAME);
+        boolean rebuilt = false;
+        if (!file.exists() && !resultFiles(dir).isEmpty()) {
+            rebuild(dir);
+            rebuilt = true;
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        ResultsManifest manifest = new ResultsManifest(dir, file, channel, rebuilt);
+        if (channel.size() == 0) manifest.write(HEADER + "\n");
+        return manifest;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * @return se o índice foi reconstruído na abertura
+     */
+    public boolean wasRebuilt() {
+        return rebuilt;
+    }
+
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Acrescenta as entradas numa única escrita. Devem apontar para blocos já gravados.
+     */
+    public synchronized void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(entries.size() * 96);
+        for (Entry e : entries) sb.append(e.toLine());
+        write(sb.toString());
+        appended += entries.size();
+    }
+
+    public void append(Entry entry) throws IOException {
+        append(List.of(entry));
+    }
+
+    private void write(String text) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    public static boolean exists(File dir) {
+        return new File(dir, FILE_NAME).isFile();
+    }
+
+    /**
+     * Entradas do índice de {@code dir}, na ordem em que foram gravadas. Uma última linha incompleta
+     * (queda no meio da escrita) é ignorada.
+     */
+    public static List<Entry> read(File dir) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        File file = new File(dir, FILE_NAME);
+        if (!file.isFile()) return entries;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                Entry e = Entry.parse(line);
+                if (e != null) entries.add(e);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Refaz {@code manifest.idx} a partir dos {@code sweep-*.jsonl} e {@code summary-*.json} de
+     * {@code dir}; uma execução presente nos dois fica só com o bloco do JSONL. Não deve rodar
+     * enquanto um {@code MainRunner} grava no mesmo diretório.
+     *
+     * @return número de execuções indexadas
+     */
+    public static int rebuild(File dir) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        List<File> summaries = new ArrayList<>();
+        for (File f : resultFiles(dir)) {
+            if (f.getName().endsWith(".jsonl")) {
+                scanJsonl(f, entries);
+            } else {
+                summaries.add(f);
+            }
+        }
+        Set<String> inJsonl = new HashSet<>();
+        for (Entry e : entries) inJsonl.add(e.runId);
+        for (File f : summaries) {
+            Entry key = readKey(Files.readAllBytes(f.toPath()));
+            if (key != null && !inJsonl.contains(key.runId)) entries.add(key.at(f.getName(), 0, f.length(), 0));
+        }
+
+        File tmp = new File(dir, FILE_NAME + ".tmp");
+        StringBuilder sb = new StringBuilder(HEADER).append('\n');
+        for (Entry e : entries) sb.append(e.toLine());
+        Files.writeString(tmp.toPath(), sb, StandardCharsets.UTF_8);
+        Files.move(tmp.toPath(), new File(dir, FILE_NAME).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return entries.size();
+    }
+
+    private static List<File> resultFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> (name.startsWith("sweep-") && name.endsWith(".jsonl"))
+                || (name.startsWith("summary-") && name.endsWith(".json")));
+        if (files == null) return List.of();
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Blocos de um JSONL: linhas de evento seguidas da linha de resumo. Uma linha final sem quebra
+     * (escrita interrompida) não entra.
+     */
+    private static void scanJsonl(File f, List<Entry> out) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(f.toPath()), 64 * 1024)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(4096);
+            long offset = 0;
+            long lineStart = 0;
+            long blockStart = 0;
+            int b;
+            while ((b = in.read()) >= 0) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                byte[] bytes = line.toByteArray();
+                line.reset();
+                if (startsWith(bytes, "{\"kind\":\"summary\"")) {
+                    Entry key = readKey(bytes);
+                    if (key != null) out.add(key.at(f.getName(), blockStart, offset - blockStart, lineStart - blockStart));
+                    blockStart = offset;
+                } else if (!startsWith(bytes, "{\"kind\":\"event\"")) {
+                    // linha estranha entre blocos: o próximo bloco começa depois dela
+                    blockStart = offset;
+                }
+                lineStart = offset;
+            }
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, String prefix) {
+        if (bytes.length < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Chave da execução num resumo JSON, lida em streaming (campos de primeiro nível apenas).
+     */
+    private static Entry readKey(byte[] json) {
+        String sweepId = null, config = null, prompt = null, scenario = null, runId = null;
+        int runIdx = 0;
+        try (JsonParser p = FACTORY.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "sweepId":
+                        sweepId = p.getValueAsString();
+                        break;
+                    case "config":
+                        config = p.getValueAsString();
+                        break;
+                    case "prompt":
+                        prompt = p.getValueAsString();
+                        break;
+                    case "scenario":
+                        scenario = p.getValueAsString();
+                        break;
+                    case "runIdx":
+                        runIdx = p.getValueAsInt();
+                        break;
+                    case "runId":
+                        runId = p.getValueAsString();
+                        break;
+                    default:
+                        p.skipChildren();
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return runId == null ? null : new Entry(sweepId, config, prompt, scenario, runIdx, runId, null, -1, 0, -1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "results");
+        if (!dir.isDirectory()) {
+            System.err.println("Usage: ResultsManifest [resultsDir]");
+            System.exit(1);
+        }
+        int indexed = rebuild(dir);
+        System.out.printf("🗂️ %d execuções indexadas em %s%n", indexed, new File(dir, FILE_NAME).getPath());
+    }
+}
@@ -0,0 +1,139 @@
+package br.university.project.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Journal write-ahead de execuções concluídas: um registro JSON por linha, precedido do CRC32
+ * do conteúdo ({@code crc32hex<TAB>json}), gravado com fsync antes de a execução contar como feita.
+ * <p>
+ * Na abertura os registros existentes são relidos; uma linha final incompleta ou corrompida
+ * (queda no meio da escrita) é descartada e o arquivo é truncado no último registro válido.
+ */
+public class RunJournal implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final File file;
+    private final FileChannel channel;
+    private final List<Map<String, Object>> replayed;
+    private final long discardedBytes;
+
+    private RunJournal(File file, FileChannel channel, List<Map<String, Object>> replayed, long discardedBytes) {
+        this.file = file;
+        this.channel = channel;
+        this.replayed = replayed;
+        this.discardedBytes = discardedBytes;
+    }
+
+    public static RunJournal open(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        long validEnd = 0;
+        long size = file.exists() ? file.length() : 0;
+        if (size > 0) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), 64 * 1024)) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream(4096);
+                long offset = 0;
+                int b;
+                while ((b = in.read()) >= 0) {
+                    offset++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    Map<String, Object> record = decode(line.toByteArray());
+                    line.reset();
+                    if (record == null) break;
+                    records.add(record);
+                    validEnd = offset;
+                }
+            }
+        }
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (validEnd < size) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        return new RunJournal(file, channel, Collections.unmodifiableList(records), size - validEnd);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Registros válidos encontrados na abertura, na ordem em que foram gravados.
+     */
+    public List<Map<String, Object>> getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Bytes descartados do final do arquivo na abertura (registro incompleto ou corrompido).
+     */
+    public long getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    /**
+     * Grava o registro e só retorna depois do fsync.
+     */
+    public synchronized void append(Map<String, Object> record) throws IOException {
+        byte[] json = MAPPER.writeValueAsBytes(record);
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        byte[] prefix = String.format("%08x\t", crc.getValue()).getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer buf = ByteBuffer.allocate(prefix.length + json.length + 1);
+        buf.put(prefix).put(json).put((byte) '\n').flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static Map<String, Object> decode(byte[] line) {
+        if (line.length < 10 || line[8] != '\t') return null;
+        long expected;
+        try {
+            expected = Long.parseLong(new String(line, 0, 8, StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(line, 9, line.length - 9);
+        if (crc.getValue() != expected) return null;
+        try {
+            return MAPPER.readValue(line, 9, line.length - 9, MAP_TYPE);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
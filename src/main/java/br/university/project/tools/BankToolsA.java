@@ -1,59 +1,78 @@
 package br.university.project.tools;
 
+import br.university.project.ledger.LedgerSession;
 import br.university.project.runner.ScenarioController;
 import br.university.project.util.CallLogger;
+import br.university.project.util.SymbolTable;
 //import dev.langchain4j.agent.tool.annotation.Tool;
 //import dev.langchain4j.agent.tool.annotation.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.P;
 
 
-import java.util.Map;
-
 public class BankToolsA {
 
+    private static final int TOOL_ID = SymbolTable.intern("BankToolsA");
+    private static final int WITHDRAW_ID = SymbolTable.intern("withdraw");
+    private static final int DEPOSIT_ID = SymbolTable.intern("deposit");
+    private static final int PAYMENT_ID = SymbolTable.intern("payment");
+    private static final int TAXES_ID = SymbolTable.intern("taxes");
+    private static final int RETURN_VALUE_ID = SymbolTable.intern("returnValue");
+
     private final ScenarioController scenario;
     private final CallLogger logger;
     private final String runId;
+    /** {@code null} sem ledger: só o cenário decide */
+    private final LedgerSession ledger;
 
     public BankToolsA(ScenarioController scenario, CallLogger logger, String runId) {
+        this(scenario, logger, runId, null);
+    }
+
+    public BankToolsA(ScenarioController scenario, CallLogger logger, String runId, LedgerSession ledger) {
         this.scenario = scenario;
         this.logger = logger;
         this.runId = runId;
+        this.ledger = ledger;
     }
 
     @Tool("Withdraw a value from an account and return if the operation was successful or not")
     public boolean withdraw(@P("account number") String accountNumber, @P("value to be withdraw") double value) {
-        boolean success = scenario.simulate(br.university.project.model.OperationType.WITHDRAW, accountNumber, value);
-        logger.log(runId, "BankToolsA", "withdraw", Map.of("account", accountNumber, "value", value), success);
+        boolean success = apply(br.university.project.model.OperationType.WITHDRAW, accountNumber, value);
+        logger.log(runId, TOOL_ID, WITHDRAW_ID, null, accountNumber, value, success);
         return success;
     }
 
     @Tool("Deposit the value into an account and return if the operation was successful or not")
     public boolean deposit(@P("account number") String accountNumber, @P("value to be deposited") double value) {
-        boolean success = scenario.simulate(br.university.project.model.OperationType.DEPOSIT, accountNumber, value);
-        logger.log(runId, "BankToolsA", "deposit", Map.of("account", accountNumber, "value", value), success);
+        boolean success = apply(br.university.project.model.OperationType.DEPOSIT, accountNumber, value);
+        logger.log(runId, TOOL_ID, DEPOSIT_ID, null, accountNumber, value, success);
         return success;
     }
 
     @Tool("Perform a payment with a value using the money from an account and return if the operation was successful or not")
     public boolean payment(@P("account number") String accountNumber, @P("value of the payment") double value) {
-        boolean success = scenario.simulate(br.university.project.model.OperationType.PAYMENT, accountNumber, value);
-        logger.log(runId, "BankToolsA", "payment", Map.of("account", accountNumber, "value", value), success);
+        boolean success = apply(br.university.project.model.OperationType.PAYMENT, accountNumber, value);
+        logger.log(runId, TOOL_ID, PAYMENT_ID, null, accountNumber, value, success);
         return success;
     }
 
     @Tool("Charge the value of a tax from the account and return if the operation was successful or not")
     public boolean taxes(@P("account number") String accountNumber, @P("value of the tax") double value) {
-        boolean success = scenario.simulate(br.university.project.model.OperationType.TAX, accountNumber, value);
-        logger.log(runId, "BankToolsA", "taxes", Map.of("account", accountNumber, "value", value), success);
+        boolean success = apply(br.university.project.model.OperationType.TAX, accountNumber, value);
+        logger.log(runId, TOOL_ID, TAXES_ID, null, accountNumber, value, success);
         return success;
     }
 
     @Tool("Return a value of a failed operation to an account and return if the operation was successful or not")
     public boolean returnValue(@P("account number") String accountNumber, @P("value to be returned") double value) {
-        boolean success = scenario.simulate(br.university.project.model.OperationType.RETURN, accountNumber, value);
-        logger.log(runId, "BankToolsA", "returnValue", Map.of("account", accountNumber, "value", value), success);
+        boolean success = apply(br.university.project.model.OperationType.RETURN, accountNumber, value);
+        logger.log(runId, TOOL_ID, RETURN_VALUE_ID, null, accountNumber, value, success);
         return success;
     }
+
+    private boolean apply(br.university.project.model.OperationType type, String accountNumber, double value) {
+        boolean success = scenario.simulate(type, accountNumber, value);
+        return success && (ledger == null || ledger.apply(type, accountNumber, value));
+    }
 }
@@ -1,33 +1,44 @@
 package br.university.project.tools;
 
+import br.university.project.ledger.LedgerSession;
 import br.university.project.model.OperationType;
 import br.university.project.runner.ScenarioController;
 import br.university.project.util.CallLogger;
+import br.university.project.util.SymbolTable;
 //import dev.langchain4j.agent.tool.annotation.Tool;
 //import dev.langchain4j.agent.tool.annotation.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.P;
 
-import java.util.Map;
-
 public class BankToolsB {
 
+    private static final int TOOL_ID = SymbolTable.intern("BankToolsB");
+    private static final int EXECUTE_OPERATION_ID = SymbolTable.intern("executeOperation");
+
     private final ScenarioController scenario;
     private final CallLogger logger;
     private final String runId;
+    /** {@code null} sem ledger: só o cenário decide */
+    private final LedgerSession ledger;
 
     public BankToolsB(ScenarioController scenario, CallLogger logger, String runId) {
+        this(scenario, logger, runId, null);
+    }
+
+    public BankToolsB(ScenarioController scenario, CallLogger logger, String runId, LedgerSession ledger) {
         this.scenario = scenario;
         this.logger = logger;
         this.runId = runId;
+        this.ledger = ledger;
     }
 
     @Tool("Execute an operation in an account with a given value and return if the operation was successful or not")
     public boolean executeOperation(@P("WITHDRAW if ... DEPOSIT if ... TAX ... RETURN ... PAYMENT ...") OperationType type,
                                     @P("account number") String accountNumber,
                                     @P("value to be used in the operation") double value) {
-        boolean success = scenario.simulate(type, accountNumber, value);
-        logger.log(runId, "BankToolsB", "executeOperation", Map.of("type", type, "account", accountNumber, "value", value), success);
+        boolean success = scenario.simulate(type, accountNumber, value)
+                && (ledger == null || ledger.apply(type, accountNumber, value));
+        logger.log(runId, TOOL_ID, EXECUTE_OPERATION_ID, type, accountNumber, value, success);
         return success;
     }
 }
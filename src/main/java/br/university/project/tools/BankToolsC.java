@@ -0,0 +1,76 @@
+package br.university.project.tools;
+
+import br.university.project.ledger.LedgerSession;
+import br.university.project.model.OperationType;
+import br.university.project.runner.ScenarioController;
+import br.university.project.util.CallLogger;
+import br.university.project.util.SymbolTable;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.model.output.structured.Description;
+
+import java.util.Arrays;
+
+/**
+ * Ferramenta em lote (CONF5): uma única chamada executa várias operações em ordem e para na
+ * primeira que falhar, poupando uma ida e volta ao modelo por operação. Cada operação passa pelo
+ * cenário (e pelo ledger, se houver) e é registrada como um evento próprio, então a avaliação
+ * enxerga a mesma sequência que veria com uma chamada por operação.
+ */
+public class BankToolsC {
+
+    private static final int TOOL_ID = SymbolTable.intern("BankToolsC");
+    private static final int EXECUTE_OPERATIONS_ID = SymbolTable.intern("executeOperations");
+
+    /**
+     * Uma operação do lote. Array em vez de {@code List} no parâmetro da ferramenta: o executor do
+     * langchain4j só converte o JSON para o tipo do elemento quando ele não é genérico.
+     */
+    public static class Operation {
+        @Description("WITHDRAW, DEPOSIT, TAX, RETURN or PAYMENT")
+        public OperationType type;
+        @Description("account number")
+        public String account;
+        @Description("value to be used in the operation")
+        public double value;
+    }
+
+    private final ScenarioController scenario;
+    private final CallLogger logger;
+    private final String runId;
+    /** {@code null} sem ledger: só o cenário decide */
+    private final LedgerSession ledger;
+
+    public BankToolsC(ScenarioController scenario, CallLogger logger, String runId) {
+        this(scenario, logger, runId, null);
+    }
+
+    public BankToolsC(ScenarioController scenario, CallLogger logger, String runId, LedgerSession ledger) {
+        this.scenario = scenario;
+        this.logger = logger;
+        this.runId = runId;
+        this.ledger = ledger;
+    }
+
+    /**
+     * @return um resultado por operação executada; depois da primeira falha nada mais é executado,
+     * então o array pode ser menor que o lote
+     */
+    @Tool("Execute a list of operations in order and stop at the first one that fails. Returns one result per"
+            + " executed operation (true if successful); operations after a failure are not executed")
+    public boolean[] executeOperations(@P("operations to execute, in order") Operation[] operations) {
+        if (operations == null) return new boolean[0];
+        boolean[] results = new boolean[operations.length];
+        int executed = 0;
+        while (executed < operations.length) {
+            Operation op = operations[executed];
+            boolean success = op != null && op.type != null && scenario.simulate(op.type, op.account, op.value)
+                    && (ledger == null || ledger.apply(op.type, op.account, op.value));
+            logger.log(runId, TOOL_ID, EXECUTE_OPERATIONS_ID, op == null ? null : op.type,
+                    op == null ? null : op.account, op == null ? 0.0 : op.value, success);
+            results[executed++] = success;
+            if (!success) break;
+        }
+        return executed == results.length ? results : Arrays.copyOf(results, executed);
+    }
+}
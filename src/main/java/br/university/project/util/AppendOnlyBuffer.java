@@ -0,0 +1,91 @@
+package br.university.project.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer append-only sem locks, dividido em segmentos de tamanho dobrado (16, 32, 64, ...).
+ * <p>
+ * Escritores reservam um índice com um único {@code getAndIncrement} e publicam o elemento no slot;
+ * nada é copiado quando o buffer cresce. Leitores que alcançam um slot reservado mas ainda não
+ * publicado aguardam brevemente a publicação; se ela não vier em {@link #PUBLISH_TIMEOUT_NANOS}
+ * (escritor que falhou entre {@link #claim()} e {@link #publish(int, Object)}), a leitura falha em vez
+ * de prender a thread.
+ */
+public final class AppendOnlyBuffer<T> {
+
+    private static final int FIRST_SHIFT = 4;
+    private static final int MAX_SEGMENTS = 31 - FIRST_SHIFT;
+    static final long PUBLISH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicInteger claimed = new AtomicInteger(0);
+
+    /**
+     * Reserva o próximo índice. O chamador deve publicar o elemento com {@link #publish(int, Object)}
+     * logo em seguida, sem nada que possa falhar entre as duas chamadas.
+     */
+    public int claim() {
+        int idx = claimed.getAndIncrement();
+        if (idx < 0) throw new IllegalStateException("buffer full");
+        return idx;
+    }
+
+    public void publish(int idx, T value) {
+        if (value == null) throw new NullPointerException("value");
+        int k = segmentIndex(idx);
+        segment(k).set(idx - segmentStart(k), value);
+    }
+
+    public int append(T value) {
+        int idx = claim();
+        publish(idx, value);
+        return idx;
+    }
+
+    public int size() {
+        return claimed.get();
+    }
+
+    public T get(int idx) {
+        if (idx < 0 || idx >= claimed.get()) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + claimed.get());
+        }
+        int k = segmentIndex(idx);
+        int offset = idx - segmentStart(k);
+        AtomicReferenceArray<T> seg = segments.get(k);
+        T value = seg == null ? null : seg.get(offset);
+        return value != null ? value : awaitPublished(idx, k, offset);
+    }
+
+    private T awaitPublished(int idx, int k, int offset) {
+        long deadline = System.nanoTime() + PUBLISH_TIMEOUT_NANOS;
+        while (true) {
+            AtomicReferenceArray<T> seg = segments.get(k);
+            T value = seg == null ? null : seg.get(offset);
+            if (value != null) return value;
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Slot " + idx + " was claimed but never published");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private AtomicReferenceArray<T> segment(int k) {
+        AtomicReferenceArray<T> seg = segments.get(k);
+        if (seg == null) {
+            AtomicReferenceArray<T> fresh = new AtomicReferenceArray<>(1 << (FIRST_SHIFT + k));
+            seg = segments.compareAndSet(k, null, fresh) ? fresh : segments.get(k);
+        }
+        return seg;
+    }
+
+    static int segmentIndex(int idx) {
+        return 31 - Integer.numberOfLeadingZeros((idx >>> FIRST_SHIFT) + 1);
+    }
+
+    static int segmentStart(int k) {
+        return ((1 << k) - 1) << FIRST_SHIFT;
+    }
+}
@@ -0,0 +1,148 @@
+package br.university.project.util;
+
+import br.university.project.model.OperationType;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evento tipado de chamada de ferramenta. Mapas e timestamps ISO só são gerados na exportação.
+ */
+public final class CallEvent {
+
+    private static final long EPOCH_NANOS_BASE;
+    private static final long NANO_TIME_BASE;
+    private static final OperationType[] TYPES = OperationType.values();
+
+    static {
+        Instant now = Instant.now();
+        NANO_TIME_BASE = System.nanoTime();
+        EPOCH_NANOS_BASE = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    final String runId;
+    final int sequence;
+    final long nanoTime;
+    final int toolId;
+    final int methodId;
+    final int type;
+    final String account;
+    final double value;
+    final boolean result;
+    final Map<String, Object> extraParams;
+
+    CallEvent(String runId, int sequence, long nanoTime, int toolId, int methodId, int type,
+              String account, double value, boolean result, Map<String, Object> extraParams) {
+        this.runId = runId;
+        this.sequence = sequence;
+        this.nanoTime = nanoTime;
+        this.toolId = toolId;
+        this.methodId = methodId;
+        this.type = type;
+        this.account = account;
+        this.value = value;
+        this.result = result;
+        this.extraParams = extraParams;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    public int getToolId() {
+        return toolId;
+    }
+
+    public int getMethodId() {
+        return methodId;
+    }
+
+    public String getToolClass() {
+        return SymbolTable.name(toolId);
+    }
+
+    public String getMethod() {
+        return SymbolTable.name(methodId);
+    }
+
+    /**
+     * Tipo da operação para o BankToolsB; {@code null} nas ferramentas nomeadas do BankToolsA.
+     */
+    public OperationType getType() {
+        return type < 0 ? null : TYPES[type];
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public boolean getResult() {
+        return result;
+    }
+
+    public Instant getTimestamp() {
+        long epochNanos = EPOCH_NANOS_BASE + (nanoTime - NANO_TIME_BASE);
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    public Map<String, Object> getParams() {
+        if (extraParams != null) return extraParams;
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (type >= 0) params.put("type", TYPES[type]);
+        params.put("account", account);
+        params.put("value", value);
+        return params;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> e = new LinkedHashMap<>();
+        e.put("runId", runId);
+        e.put("sequence", sequence);
+        e.put("timestamp", getTimestamp().toString());
+        e.put("toolClass", getToolClass());
+        e.put("method", getMethod());
+        e.put("params", getParams());
+        e.put("result", result);
+        return e;
+    }
+
+    /**
+     * Escreve o evento como objeto JSON; o gerador precisa ter um codec (ObjectMapper) para
+     * parâmetros não tipados.
+     */
+    public void writeTo(JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("runId", runId);
+        g.writeNumberField("sequence", sequence);
+        g.writeStringField("timestamp", getTimestamp().toString());
+        g.writeStringField("toolClass", getToolClass());
+        g.writeStringField("method", getMethod());
+        g.writeFieldName("params");
+        if (extraParams != null) {
+            g.writeObject(extraParams);
+        } else {
+            g.writeStartObject();
+            if (type >= 0) g.writeStringField("type", TYPES[type].name());
+            g.writeStringField("account", account);
+            g.writeNumberField("value", value);
+            g.writeEndObject();
+        }
+        g.writeBooleanField("result", result);
+        g.writeEndObject();
+    }
+}
@@ -1,48 +1,123 @@
 package br.university.project.util;
 
+import br.university.project.model.OperationType;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class CallLogger {
-    private final List<Map<String,Object>> events = Collections.synchronizedList(new ArrayList<>());
-    private final AtomicInteger seq = new AtomicInteger(0);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** eventos registrados por todos os loggers do processo, para métricas de throughput */
+    private static final LongAdder TOTAL_EVENTS = new LongAdder();
+
+    private final AppendOnlyBuffer<CallEvent> events = new AppendOnlyBuffer<>();
+
+    /**
+     * Registro tipado usado pelas ferramentas; ids vêm de {@link SymbolTable#intern(String)}.
+     * {@code type} é {@code null} para as ferramentas nomeadas do BankToolsA.
+     */
+    public void log(String runId, int toolId, int methodId, OperationType type, String account, double value, boolean result) {
+        int typeOrdinal = type == null ? -1 : type.ordinal();
+        long now = System.nanoTime();
+        // entre claim e publish só a construção do evento: uma falha ali deixaria o slot sem publicar
+        int idx = events.claim();
+        events.publish(idx, new CallEvent(runId, idx + 1, now, toolId, methodId,
+                typeOrdinal, account, value, result, null));
+        TOTAL_EVENTS.increment();
+    }
 
     public void log(String runId, String toolClass, String method, Map<String,Object> params, boolean result) {
-        Map<String,Object> e = new LinkedHashMap<>();
-        e.put("runId", runId);
-        e.put("sequence", seq.incrementAndGet());
-        e.put("timestamp", Instant.now().toString());
-        e.put("toolClass", toolClass);
-        e.put("method", method);
-        e.put("params", params);
-        e.put("result", result);
-        events.add(e);
+        Object type = params.get("type");
+        Object account = params.get("account");
+        Object value = params.get("value");
+        boolean typed = (type == null || type instanceof OperationType)
+                && (account == null || account instanceof String)
+                && value instanceof Number
+                && params.size() == (type == null ? 2 : 3);
+        int typeOrdinal = typed && type != null ? ((OperationType) type).ordinal() : -1;
+        int toolId = SymbolTable.intern(toolClass);
+        int methodId = SymbolTable.intern(method);
+        String typedAccount = typed ? (String) account : null;
+        double typedValue = typed ? ((Number) value).doubleValue() : 0.0;
+        Map<String, Object> extra = typed ? null : params;
+        long now = System.nanoTime();
+        int idx = events.claim();
+        events.publish(idx, new CallEvent(runId, idx + 1, now, toolId, methodId,
+                typeOrdinal, typedAccount, typedValue, result, extra));
+        TOTAL_EVENTS.increment();
+    }
+
+    public static long totalEvents() {
+        return TOTAL_EVENTS.sum();
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Visão tipada e somente leitura dos eventos.
+     */
+    public List<CallEvent> getCallEvents() {
+        return new AbstractList<CallEvent>() {
+            @Override
+            public CallEvent get(int index) {
+                return events.get(index);
+            }
+
+            @Override
+            public int size() {
+                return events.size();
+            }
+        };
     }
 
-    public List<Map<String,Object>> getEvents() { return events; }
+    /**
+     * Visão somente leitura no formato antigo (um mapa por evento, criado a cada acesso).
+     */
+    public List<Map<String,Object>> getEvents() {
+        return new AbstractList<Map<String,Object>>() {
+            @Override
+            public Map<String,Object> get(int index) {
+                return events.get(index).toMap();
+            }
+
+            @Override
+            public int size() {
+                return events.size();
+            }
+        };
+    }
 
     public void dumpJson(File out) throws IOException {
-        ObjectMapper m = new ObjectMapper();
-        m.writerWithDefaultPrettyPrinter().writeValue(out, events);
+        try (JsonGenerator g = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            g.useDefaultPrettyPrinter();
+            g.writeStartArray();
+            for (int i = 0; i < events.size(); i++) {
+                events.get(i).writeTo(g);
+            }
+            g.writeEndArray();
+        }
     }
 
     public void dumpCsv(File out) throws IOException {
         try (FileWriter fw = new FileWriter(out)) {
             fw.write("runId,sequence,timestamp,toolClass,method,params,result\n");
-            for (Map<String,Object> e : events) {
-                fw.write(String.format("\"%s\",%s,%s,%s,%s,\"%s\"\n",
-                        e.get("runId"),
-                        e.get("sequence"),
-                        e.get("timestamp"),
-                        e.get("toolClass"),
-                        e.get("method"),
-                        e.get("result")
+            for (CallEvent e : getCallEvents()) {
+                fw.write(String.format("\"%s\",%s,%s,%s,%s,\"%s\",%s\n",
+                        e.getRunId(),
+                        e.getSequence(),
+                        e.getTimestamp(),
+                        e.getToolClass(),
+                        e.getMethod(),
+                        e.getParams().toString().replace("\"", "\"\""),
+                        e.getResult()
                 ));
             }
         }
@@ -0,0 +1,36 @@
+package br.university.project.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela global de nomes internados (classes e métodos de ferramenta) em ids inteiros.
+ * Consultas não usam lock; apenas o registro de um nome novo é sincronizado.
+ */
+public final class SymbolTable {
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[0];
+
+    private SymbolTable() {
+    }
+
+    public static int intern(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) return id;
+        synchronized (SymbolTable.class) {
+            id = IDS.get(name);
+            if (id != null) return id;
+            String[] current = names;
+            String[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = name;
+            names = next;
+            IDS.put(name, current.length);
+            return current.length;
+        }
+    }
+
+    public static String name(int id) {
+        return id < 0 ? null : names[id];
+    }
+}
@@ -0,0 +1,121 @@
+package br.university.project.runner;
+
+import br.university.project.model.OperationType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Estresse do {@link ScenarioController} sob contenção: em cada rodada, várias threads liberadas
+ * juntas por uma barreira disputam as mesmas operações de um controller novo. Para cada tipo de
+ * operação, o número de falhas tem de ser igual ao de uma execução sequencial das mesmas operações
+ * (qual conta falha pode variar: no P3B falha o primeiro dos dois saques, em qualquer ordem).
+ * <p>
+ * Rodadas e threads vêm de {@code -Dstress.rounds} (padrão 5000) e {@code -Dstress.threads} (padrão 8).
+ */
+class ScenarioStressTest {
+
+    private static final int ROUNDS = Integer.getInteger("stress.rounds", 5_000);
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+
+    private static final Object[][] OPERATIONS = {
+            {OperationType.WITHDRAW, "BC3456A", 6},
+            {OperationType.WITHDRAW, "AG7340H", 1},
+            {OperationType.WITHDRAW, "TG23986Q", 1},
+            {OperationType.WITHDRAW, "BC12345", 1},
+            {OperationType.DEPOSIT, "ND87632", 2},
+            {OperationType.DEPOSIT, "WS2754T", 1},
+            {OperationType.TAX, "FG62495S", 1},
+            {OperationType.PAYMENT, "WS2754T", 1},
+            {OperationType.RETURN, "AG7340H", 1},
+    };
+
+    private static ExecutorService pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ScenarioController.Scenario.class)
+    void failuresMatchSequentialRunUnderContention(ScenarioController.Scenario scenario) throws Exception {
+        List<Op> ops = new ArrayList<>();
+        for (Object[] o : OPERATIONS) {
+            for (int i = 0; i < (Integer) o[2]; i++) ops.add(new Op((OperationType) o[0], (String) o[1]));
+        }
+        Map<String, Integer> expected = failures(ops, sequential(scenario, ops));
+
+        Random random = new Random(42);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Op> shuffled = new ArrayList<>(ops);
+            Collections.shuffle(shuffled, random);
+            Map<String, Integer> observed = failures(shuffled, concurrent(scenario, shuffled));
+            assertEquals(expected, observed, scenario + ": falhas por operação divergiram na rodada " + round);
+        }
+    }
+
+    private static boolean[] sequential(ScenarioController.Scenario scenario, List<Op> ops) {
+        ScenarioController controller = new ScenarioController(scenario);
+        boolean[] out = new boolean[ops.size()];
+        for (int i = 0; i < out.length; i++) out[i] = controller.simulate(ops.get(i).type, ops.get(i).account, 1.0);
+        return out;
+    }
+
+    private static boolean[] concurrent(ScenarioController.Scenario scenario, List<Op> ops) throws Exception {
+        ScenarioController controller = new ScenarioController(scenario);
+        boolean[] out = new boolean[ops.size()];
+        AtomicInteger next = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = next.getAndIncrement(); i < out.length; i = next.getAndIncrement()) {
+                    out[i] = controller.simulate(ops.get(i).type, ops.get(i).account, 1.0);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        return out;
+    }
+
+    private static Map<String, Integer> failures(List<Op> ops, boolean[] results) {
+        Map<String, Integer> out = new TreeMap<>();
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) out.merge(ops.get(i).type.name(), 1, Integer::sum);
+        }
+        return out;
+    }
+
+    private static final class Op {
+        final OperationType type;
+        final String account;
+
+        Op(OperationType type, String account) {
+            this.type = type;
+            this.account = account;
+        }
+    }
+}